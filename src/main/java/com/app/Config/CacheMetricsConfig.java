@@ -0,0 +1,19 @@
+package com.app.Config;
+
+import com.app.helper.CacheMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Instruments the Redis caches of the cached services. The meters are exported like every other
+ * meter, through {@code /actuator/prometheus} and over JMX.
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+  @Bean
+  public CacheMetrics cacheMetrics(MeterRegistry meterRegistry) {
+    return new CacheMetrics(meterRegistry);
+  }
+}
@@ -0,0 +1,27 @@
+package com.app.Config;
+
+import com.app.helper.EarlyRefresh;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spreads out the expiry of cached entries: TTLs are jittered by {@code cache.refresh.jitter} and
+ * entries close to their expiry are reloaded in the background, earlier the larger {@code
+ * cache.refresh.beta}. A beta of 0 turns early reloads off.
+ */
+@Configuration
+public class EarlyRefreshConfig {
+
+  @Bean
+  public EarlyRefresh earlyRefresh(
+      MeterRegistry meterRegistry,
+      @Value("${cache.refresh.beta:1.0}") double beta,
+      @Value("${cache.refresh.jitter:0.1}") double jitter) {
+    // Reloads mostly wait on MySQL and Redis, so each one gets its own virtual thread.
+    return new EarlyRefresh(
+        meterRegistry, beta, jitter, Executors.newVirtualThreadPerTaskExecutor());
+  }
+}
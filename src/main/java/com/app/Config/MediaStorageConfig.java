@@ -0,0 +1,101 @@
+package com.app.Config;
+
+import com.app.storage.LocalMediaStorage;
+import com.app.storage.MediaBodyCache;
+import com.app.storage.MediaStorage;
+import com.app.storage.S3MediaStorage;
+import com.app.storage.ShardedMediaStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+/**
+ * Selects the backend media files are stored in with {@code media.storage.type}: {@code local}
+ * (the default), {@code sharded} or {@code s3}.
+ */
+@Configuration
+public class MediaStorageConfig {
+
+  /** Storage I/O blocks, so it runs on virtual threads rather than the common pool. */
+  private final ExecutorService storageExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+  @Bean
+  @ConditionalOnProperty(name = "media.storage.type", havingValue = "local", matchIfMissing = true)
+  public MediaStorage localMediaStorage(@Value("${media.storage.local.root:.}") String root) {
+    return new LocalMediaStorage(Path.of(root), storageExecutor);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "media.storage.type", havingValue = "sharded")
+  public MediaStorage shardedMediaStorage(
+      @Value("${media.storage.sharded.volumes}") String[] volumes) {
+    return new ShardedMediaStorage(
+        Arrays.stream(volumes)
+            .map(String::trim)
+            .map(volume -> new LocalMediaStorage(Path.of(volume), storageExecutor))
+            .toList());
+  }
+
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(name = "media.storage.type", havingValue = "s3")
+  public S3Client s3Client(
+      @Value("${media.storage.s3.endpoint:}") String endpoint,
+      @Value("${media.storage.s3.region:us-east-1}") String region,
+      @Value("${media.storage.s3.access-key:}") String accessKey,
+      @Value("${media.storage.s3.secret-key:}") String secretKey) {
+    AwsCredentialsProvider credentials =
+        accessKey.isBlank()
+            ? DefaultCredentialsProvider.create()
+            : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+
+    S3ClientBuilder builder =
+        S3Client.builder().region(Region.of(region)).credentialsProvider(credentials);
+    if (!endpoint.isBlank()) {
+      // MinIO and most other S3 compatible servers only support path style addressing.
+      builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+    }
+    return builder.build();
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "media.storage.type", havingValue = "s3")
+  public MediaStorage s3MediaStorage(
+      S3Client s3Client,
+      @Value("${media.storage.s3.bucket:media}") String bucket,
+      @Value("${media.storage.s3.staging-dir:${java.io.tmpdir}}") String stagingDir) {
+    S3MediaStorage storage =
+        new S3MediaStorage(s3Client, bucket, Path.of(stagingDir), storageExecutor);
+    storage.createBucketIfMissing();
+    return storage;
+  }
+
+  @Bean
+  public MediaBodyCache mediaBodyCache(
+      MediaStorage mediaStorage,
+      MeterRegistry meterRegistry,
+      @Value("${media.cache.max-size:256MB}") DataSize maxSize,
+      @Value("${media.cache.max-entry-size:512KB}") DataSize maxEntrySize) {
+    MediaBodyCache cache =
+        new MediaBodyCache(
+            mediaStorage,
+            MediaBodyCache.fitToDirectMemory(maxSize.toBytes()),
+            maxEntrySize.toBytes());
+    cache.bindTo(meterRegistry, "media.body");
+    return cache;
+  }
+}
@@ -0,0 +1,47 @@
+package com.app.Config;
+
+import com.app.helper.NearCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Puts an in-process cache in front of Redis for the cached services, disabled with {@code
+ * cache.near.enabled=false}. Sizes and TTLs default to {@code cache.near.max-size} and {@code
+ * cache.near.ttl} and can be set per key prefix, e.g. {@code cache.near.pin.max-size}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cache.near.enabled", havingValue = "true", matchIfMissing = true)
+public class NearCacheConfig {
+
+  @Bean
+  public NearCache nearCache(
+      StringRedisTemplate stringRedisTemplate,
+      Environment environment,
+      MeterRegistry meterRegistry,
+      @Value("${cache.near.max-size:10000}") long maxSize,
+      @Value("${cache.near.ttl:30s}") Duration ttl) {
+    return new NearCache(stringRedisTemplate, environment, meterRegistry, maxSize, ttl);
+  }
+
+  @Bean
+  public RedisMessageListenerContainer nearCacheListenerContainer(
+      RedisConnectionFactory connectionFactory, NearCache nearCache) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(
+        (message, pattern) ->
+            nearCache.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+        new ChannelTopic(NearCache.CHANNEL));
+    return container;
+  }
+}
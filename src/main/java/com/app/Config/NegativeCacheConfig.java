@@ -0,0 +1,22 @@
+package com.app.Config;
+
+import com.app.helper.NegativeCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Remembers reads of missing entities for {@code cache.negative.ttl}, kept short since an entity
+ * may be created under an ID read before. A zero TTL turns it off.
+ */
+@Configuration
+public class NegativeCacheConfig {
+
+  @Bean
+  public NegativeCache negativeCache(
+      MeterRegistry meterRegistry, @Value("${cache.negative.ttl:30s}") Duration ttl) {
+    return new NegativeCache(meterRegistry, ttl);
+  }
+}
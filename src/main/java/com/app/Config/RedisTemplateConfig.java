@@ -1,55 +1,68 @@
 package com.app.Config;
 
 import com.app.Model.*;
+import com.app.helper.SmileRedisSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
 public class RedisTemplateConfig {
 
-  private <T> RedisTemplate<String, T> createRedisTemplate(RedisConnectionFactory factory) {
+  /** Writes cached entities with Java serialization while nodes reading Smile are rolled out. */
+  @Value("${cache.codec.legacy-writes:false}")
+  private boolean legacyWrites;
+
+  private <T> RedisTemplate<String, T> createRedisTemplate(
+      RedisConnectionFactory factory, RedisSerializer<?> valueSerializer) {
     RedisTemplate<String, T> template = new RedisTemplate<>();
     template.setConnectionFactory(factory);
     template.setKeySerializer(new StringRedisSerializer());
-    template.setValueSerializer(new JdkSerializationRedisSerializer());
+    template.setValueSerializer(valueSerializer);
     return template;
   }
 
+  private <T> RedisTemplate<String, T> createEntityRedisTemplate(
+      RedisConnectionFactory factory, Class<T> type) {
+    return createRedisTemplate(factory, new SmileRedisSerializer<>(type, legacyWrites));
+  }
+
   @Bean
   @Primary
   public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
-    return createRedisTemplate(connectionFactory);
+    return createRedisTemplate(connectionFactory, new JdkSerializationRedisSerializer());
   }
 
   @Bean
   public RedisTemplate<String, Comment> commentRedisTemplate(
       RedisConnectionFactory connectionFactory) {
-    return createRedisTemplate(connectionFactory);
+    return createEntityRedisTemplate(connectionFactory, Comment.class);
   }
 
   @Bean
   public RedisTemplate<String, SubComment> subCommentRedisTemplate(
       RedisConnectionFactory connectionFactory) {
-    return createRedisTemplate(connectionFactory);
+    return createEntityRedisTemplate(connectionFactory, SubComment.class);
   }
 
   @Bean
   public RedisTemplate<String, Pin> pinRedisTemplate(RedisConnectionFactory connectionFactory) {
-    return createRedisTemplate(connectionFactory);
+    return createEntityRedisTemplate(connectionFactory, Pin.class);
   }
 
   @Bean
   public RedisTemplate<String, Board> boardRedisTemplate(RedisConnectionFactory connectionFactory) {
-    return createRedisTemplate(connectionFactory);
+    return createEntityRedisTemplate(connectionFactory, Board.class);
   }
 
   @Bean
   public RedisTemplate<String, Media> mediaRedisTemplate(RedisConnectionFactory connectionFactory) {
-    return createRedisTemplate(connectionFactory);
+    return createEntityRedisTemplate(connectionFactory, Media.class);
   }
 }
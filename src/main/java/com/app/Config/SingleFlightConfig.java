@@ -0,0 +1,27 @@
+package com.app.Config;
+
+import com.app.helper.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Coalesces the loads of missing cache entries. Within a node loads are always coalesced, across
+ * nodes only with a positive {@code cache.load.lease}, the time one node may load a key before the
+ * others give up waiting for it.
+ */
+@Configuration
+public class SingleFlightConfig {
+
+  @Bean
+  public SingleFlight singleFlight(
+      MeterRegistry meterRegistry,
+      StringRedisTemplate stringRedisTemplate,
+      @Value("${cache.load.lease:1s}") Duration lease,
+      @Value("${cache.load.poll-interval:25ms}") Duration pollInterval) {
+    return new SingleFlight(meterRegistry, stringRedisTemplate, lease, pollInterval);
+  }
+}
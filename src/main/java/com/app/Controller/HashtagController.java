@@ -69,7 +69,9 @@ public class HashtagController {
                             pin.getDescription(),
                             pin.getMediaId(),
                             new ArrayList<>(),
-                            pin.getCreatedAt()))
+                            pin.getCreatedAt(),
+                            pin.getPlaceholder(),
+                            pin.getAspectRatio()))
                 .toList());
   }
 
@@ -1,33 +1,65 @@
 package com.app.Controller;
 
 import com.app.Model.Media;
-import com.app.Model.MediaType;
+import com.app.Model.MediaVariant;
+import com.app.Service.ImageVariantService;
 import com.app.Service.MediaService;
+import com.app.storage.ByteRangeResponse;
+import com.app.storage.MediaBodyCache;
 import com.app.storage.MediaManager;
+import com.app.storage.MediaStorage;
+import com.app.storage.StoredMedia;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import lombok.AllArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.FileSystemResource;
+import java.sql.Timestamp;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/media")
-@AllArgsConstructor
 public class MediaController {
 
+  /**
+   * A media keeps its id when its file is replaced, so what its route returns can change at any
+   * time: caches may store it but have to revalidate it, which the validators make cheap.
+   */
+  private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
   private final MediaService mediaService;
+  private final MediaStorage mediaStorage;
+  private final ImageVariantService imageVariantService;
+  private final MediaBodyCache mediaBodyCache;
+
+  /**
+   * Location nginx serves the media volume from, when set the body of a media is sent by nginx
+   * through {@code X-Accel-Redirect} instead of being streamed by the application.
+   */
+  private final String accelRedirectPrefix;
+
+  public MediaController(
+      MediaService mediaService,
+      MediaStorage mediaStorage,
+      ImageVariantService imageVariantService,
+      MediaBodyCache mediaBodyCache,
+      @Value("${media.delivery.accel-redirect-prefix:}") String accelRedirectPrefix) {
+    this.mediaService = mediaService;
+    this.mediaStorage = mediaStorage;
+    this.imageVariantService = imageVariantService;
+    this.mediaBodyCache = mediaBodyCache;
+    this.accelRedirectPrefix = accelRedirectPrefix;
+  }
 
   @Operation(summary = "Get a image or video by media id")
   @ApiResponses(
@@ -39,57 +71,81 @@ public class MediaController {
                 @Content(
                     mediaType = "application/octet-stream",
                     schema = @Schema(implementation = Resource.class))),
+        @ApiResponse(
+            responseCode = "206",
+            description = "Requested range of the media, multipart/byteranges for multiple ranges"),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Media not modified since the validators sent by the client"),
         @ApiResponse(responseCode = "404", description = "Media not found"),
+        @ApiResponse(responseCode = "416", description = "Requested range not satisfiable"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
       })
   @GetMapping("/{id}")
-  public ResponseEntity<Resource> getMediaById(
+  public ResponseEntity<StreamingResponseBody> getMediaById(
       @Parameter(description = "Id of the media to be search", required = true) @PathVariable
           Long id,
-      @RequestHeader(value = "Range", required = false) String rangeHeader)
-      throws IOException {
+      @Parameter(description = "Width the image is rendered at, the closest variant is served")
+          @RequestParam(required = false)
+          Integer w,
+      @RequestHeader HttpHeaders headers) {
     Media media = mediaService.findById(id);
-    if (media.getMediaType().equals(MediaType.IMAGE)) {
-      Path imagePath = Paths.get("image/", media.getUrl());
-
-      String mineType = Files.probeContentType(imagePath);
-      if (mineType == null) {
-        mineType = org.springframework.http.MediaType.APPLICATION_OCTET_STREAM_VALUE;
-      }
+    MediaVariant variant = imageVariantService.select(media, w);
+    String url = variant != null ? variant.getUrl() : media.getUrl();
 
-      Resource resource = new FileSystemResource(imagePath);
-      return ResponseEntity.status(HttpStatus.OK)
-          .contentType(org.springframework.http.MediaType.parseMediaType(mineType))
-          .body(resource);
-    } else {
-      Path videoPath = Paths.get(MediaManager.getFilePath(), media.getUrl());
-      long size = MediaManager.getFileSize(media.getUrl());
-
-      long start = 0;
-      long end = size - 1;
+    // Stored filenames derive from the content hash and are never rewritten, so they are a valid
+    // strong validator, changing whenever the file of the media is replaced.
+    String etag = "\"" + MediaManager.getBaseFilename(url) + "\"";
+    // Media cached before updated_at was read only carry their creation date.
+    Timestamp updated =
+        media.getUpdated_at() != null ? media.getUpdated_at() : media.getCreated_at();
+    Long knownLastModified = updated != null ? updated.getTime() : null;
+    if (ByteRangeResponse.isNotModified(headers, etag, knownLastModified)) {
+      return ByteRangeResponse.notModified(etag, knownLastModified, CACHE_CONTROL);
+    }
 
-      if (rangeHeader != null && rangeHeader.startsWith("bytes=")) {
-        String[] ranges = rangeHeader.substring(6).split("-");
-        start = Long.parseLong(ranges[0]);
-        if (ranges.length > 1) {
-          end = Long.parseLong(ranges[1]);
-        }
-      }
+    String mineType = media.getMimeType();
+    if (mineType == null) {
+      mineType =
+          MediaTypeFactory.getMediaType(url).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
 
-      if (start >= size || end >= size) {
-        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
-            .header("Content-Range", "bytes */" + size)
+    if (!accelRedirectPrefix.isEmpty()) {
+      Optional<String> path = mediaStorage.relativePath(url);
+      if (path.isPresent()) {
+        // nginx answers ranges and conditional requests from the file itself.
+        return ResponseEntity.ok()
+            .header("X-Accel-Redirect", accelRedirectPrefix + path.get())
+            .header(HttpHeaders.CONTENT_TYPE, mineType)
+            .cacheControl(CACHE_CONTROL)
             .build();
       }
+    }
 
-      byte[] videoData = MediaManager.readByRange(videoPath, start, end);
+    long size;
+    long lastModified;
+    Long knownSize = variant != null ? variant.getSizeBytes() : media.getSizeBytes();
+    if (knownSize != null && knownLastModified != null) {
+      size = knownSize;
+      lastModified = knownLastModified;
+    } else {
+      // Saved before the metadata was recorded and not backfilled yet.
+      StoredMedia stored = mediaStorage.stat(url);
+      size = stored.size();
+      lastModified = stored.lastModified();
+    }
 
-      return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
-          .header("Content-Type", Files.probeContentType(videoPath))
-          .header("Accept-Ranges", "bytes")
-          .header("Content-Range", "bytes " + start + "-" + end + "/" + size)
-          .contentLength(videoData.length)
-          .body(new ByteArrayResource(videoData));
+    ByteRangeResponse.RangeSource source;
+    if (mineType.startsWith("image/") && mediaBodyCache.admits(size)) {
+      // Small images are read far more often than the rest, they are served from memory.
+      long cachedSize = size;
+      source =
+          (position, length, out) ->
+              MediaBodyCache.transferRange(
+                  mediaBodyCache.get(url, cachedSize), position, length, out);
+    } else {
+      source = (position, length, out) -> mediaStorage.transferRange(url, position, length, out);
     }
+    return ByteRangeResponse.of(headers, size, mineType, etag, lastModified, CACHE_CONTROL, source);
   }
 }
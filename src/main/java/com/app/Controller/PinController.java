@@ -74,7 +74,9 @@ public class PinController {
                             pin.getDescription(),
                             pin.getMediaId(),
                             new ArrayList<>(),
-                            pin.getCreatedAt()))
+                            pin.getCreatedAt(),
+                            pin.getPlaceholder(),
+                            pin.getAspectRatio()))
                 .toList());
   }
 
@@ -116,7 +118,9 @@ public class PinController {
                 pin.getDescription(),
                 pin.getMediaId(),
                 new ArrayList<>(pin.getHashtags()),
-                pin.getCreatedAt()));
+                pin.getCreatedAt(),
+                pin.getPlaceholder(),
+                pin.getAspectRatio()));
   }
 
   @Operation(description = "Update an existing pin")
@@ -147,7 +151,9 @@ public class PinController {
                 pin.getDescription(),
                 pin.getMediaId(),
                 new ArrayList<>(pin.getHashtags()),
-                pin.getCreatedAt()));
+                pin.getCreatedAt(),
+                pin.getPlaceholder(),
+                pin.getAspectRatio()));
   }
 
   @GetMapping(value = "/{id}/sse-comment", produces = "text/event-stream")
@@ -200,7 +206,9 @@ public class PinController {
                 view.equalsIgnoreCase("detail")
                     ? new ArrayList<>(pin.getHashtags())
                     : new ArrayList<>(),
-                pin.getCreatedAt()));
+                pin.getCreatedAt(),
+                pin.getPlaceholder(),
+                pin.getAspectRatio()));
   }
 
   @Operation(summary = "Find all comment by pin id")
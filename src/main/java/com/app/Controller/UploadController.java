@@ -0,0 +1,140 @@
+package com.app.Controller;
+
+import com.app.DTO.response.UploadSessionResponse;
+import com.app.Model.UploadSession;
+import com.app.Service.UploadSessionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Resumable uploads following the tus 1.0 protocol: {@code POST} creates an upload, {@code HEAD}
+ * reports how much of it was received, {@code PATCH} appends a chunk at that offset. Finalizing an
+ * upload stores it as a media whose ID can be given when creating a pin.
+ */
+@RestController
+@RequestMapping("/api/upload")
+@AllArgsConstructor
+public class UploadController {
+
+  private static final String TUS_RESUMABLE = "1.0.0";
+  private static final String UPLOAD_OFFSET = "Upload-Offset";
+  private static final String UPLOAD_LENGTH = "Upload-Length";
+
+  private final UploadSessionService uploadSessionService;
+
+  @Operation(summary = "Start a resumable upload")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "201", description = "Upload created"),
+        @ApiResponse(responseCode = "400", description = "Media format or length not supported")
+      })
+  @PostMapping
+  public ResponseEntity<UploadSessionResponse> create(
+      @Parameter(description = "Size of the whole file in bytes") @RequestHeader(UPLOAD_LENGTH)
+          long length,
+      @Parameter(description = "tus metadata, the base64 encoded filename under the key filename")
+          @RequestHeader("Upload-Metadata")
+          String metadata) {
+    UploadSession session = uploadSessionService.create(length, filenameOf(metadata));
+    return ResponseEntity.created(URI.create("/api/upload/" + session.getId()))
+        .headers(uploadHeaders(session))
+        .body(toResponse(session));
+  }
+
+  @Operation(summary = "Get the offset the next chunk of an upload starts at")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Upload-Offset header holds the offset"),
+        @ApiResponse(responseCode = "404", description = "Upload not found")
+      })
+  @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+  public ResponseEntity<Void> getOffset(@PathVariable String id) {
+    UploadSession session = uploadSessionService.findById(id);
+    return ResponseEntity.ok()
+        .headers(uploadHeaders(session))
+        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+        .build();
+  }
+
+  @Operation(summary = "Append a chunk to an upload")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "204", description = "Chunk written, new offset returned"),
+        @ApiResponse(responseCode = "404", description = "Upload not found"),
+        @ApiResponse(responseCode = "409", description = "Offset does not match the upload")
+      })
+  @PatchMapping(value = "/{id}", consumes = "application/offset+octet-stream")
+  public ResponseEntity<Void> append(
+      @PathVariable String id,
+      @RequestHeader(UPLOAD_OFFSET) long offset,
+      HttpServletRequest request)
+      throws IOException {
+    UploadSession session = uploadSessionService.append(id, offset, request.getInputStream());
+    return ResponseEntity.noContent().headers(uploadHeaders(session)).build();
+  }
+
+  @Operation(summary = "Store a complete upload as a media")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Upload stored, mediaId is set"),
+        @ApiResponse(responseCode = "404", description = "Upload not found"),
+        @ApiResponse(responseCode = "409", description = "Upload is not complete")
+      })
+  @PostMapping("/{id}/finalize")
+  public ResponseEntity<UploadSessionResponse> complete(@PathVariable String id) {
+    uploadSessionService.complete(id);
+    UploadSession session = uploadSessionService.findById(id);
+    return ResponseEntity.ok().headers(uploadHeaders(session)).body(toResponse(session));
+  }
+
+  @Operation(summary = "Abandon an upload")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "204", description = "Upload deleted"),
+        @ApiResponse(responseCode = "404", description = "Upload not found"),
+        @ApiResponse(responseCode = "409", description = "Upload is already finalized")
+      })
+  @DeleteMapping("/{id}")
+  public ResponseEntity<Void> delete(@PathVariable String id) {
+    uploadSessionService.delete(id);
+    return ResponseEntity.status(HttpStatus.NO_CONTENT)
+        .header("Tus-Resumable", TUS_RESUMABLE)
+        .build();
+  }
+
+  private HttpHeaders uploadHeaders(UploadSession session) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set("Tus-Resumable", TUS_RESUMABLE);
+    headers.set(UPLOAD_OFFSET, String.valueOf(session.getOffset()));
+    headers.set(UPLOAD_LENGTH, String.valueOf(session.getLength()));
+    return headers;
+  }
+
+  private UploadSessionResponse toResponse(UploadSession session) {
+    return new UploadSessionResponse(
+        session.getId(), session.getOffset(), session.getLength(), session.getMediaId());
+  }
+
+  /** Reads the filename from tus metadata, comma separated keys each followed by a base64 value. */
+  private static String filenameOf(String metadata) {
+    for (String pair : metadata.split(",")) {
+      String[] parts = pair.trim().split(" ", 2);
+      if (parts[0].equals("filename") && parts.length == 2) {
+        return new String(Base64.getDecoder().decode(parts[1].trim()), StandardCharsets.UTF_8);
+      }
+    }
+    throw new IllegalArgumentException("Upload-Metadata must contain a filename");
+  }
+}
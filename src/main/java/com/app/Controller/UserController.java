@@ -328,7 +328,9 @@ public class UserController {
                             pin.getDescription(),
                             pin.getMediaId(),
                             new ArrayList<>(),
-                            pin.getCreatedAt()))
+                            pin.getCreatedAt(),
+                            pin.getPlaceholder(),
+                            pin.getAspectRatio()))
                 .toList());
   }
 
@@ -2,6 +2,7 @@ package com.app.DAO;
 
 import com.app.Model.Comment;
 import com.app.Model.SortType;
+import java.util.Collection;
 import java.util.List;
 
 /** Data Access Object interface for managing Comment entities. */
@@ -33,6 +34,14 @@ public interface CommentDao {
    */
   Comment findById(Long id, boolean fetchDetails);
 
+  /**
+   * Find the basic details of several comments by their IDs with one query.
+   *
+   * @param ids The IDs of the comments
+   * @return The comments found, ordered by ID. IDs without a comment are left out.
+   */
+  List<Comment> findByIds(Collection<Long> ids);
+
   /**
    * Retrieves a list of comments by the ID of the associated pin.
    *
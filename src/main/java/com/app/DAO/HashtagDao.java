@@ -1,6 +1,8 @@
 package com.app.DAO;
 
 import com.app.Model.Hashtag;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -8,4 +10,13 @@ public interface HashtagDao {
   Map<String, Hashtag> findByTag(Set<String> tags);
 
   Hashtag save(Hashtag hashtag);
+
+  /**
+   * Finds the tags used by the most pins created after a point in time, most used first.
+   *
+   * @param since only pins created after it are counted
+   * @param limit the most tags to return
+   * @return the tags
+   */
+  List<String> findTopTags(LocalDateTime since, int limit);
 }
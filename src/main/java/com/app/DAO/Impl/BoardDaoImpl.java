@@ -134,11 +134,12 @@ public class BoardDaoImpl implements BoardDao {
         "SELECT b.id AS board_id, b.board_name, b.create_at, "
             + "u.id AS user_id, u.username, "
             + "p.id AS pin_id, p.media_id, p.user_id AS pin_user_id "
-            + "FROM boards b "
+            + "FROM (SELECT id, board_name, create_at, user_id FROM boards "
+            + "WHERE user_id = ? ORDER BY id DESC LIMIT ? OFFSET ?) b "
             + "JOIN users u ON b.user_id = u.id "
             + "LEFT JOIN board_pin bp ON b.id = bp.board_id "
             + "LEFT JOIN pins p ON p.id = bp.pin_id "
-            + "WHERE b.user_id = ? limit ? offset ?";
+            + "ORDER BY b.id DESC";
     return jdbcTemplate.query(sql, new BoardResultSetExtractor(), userId, limit, offset);
   }
 
@@ -157,7 +158,8 @@ class BoardResultSetExtractor implements ResultSetExtractor<List<Board>> {
 
   @Override
   public List<Board> extractData(ResultSet rs) throws SQLException {
-    Map<Long, Board> boardMap = new HashMap<>();
+    // Keeps the order of the query.
+    Map<Long, Board> boardMap = new LinkedHashMap<>();
 
     while (rs.next()) {
       Long boardId = rs.getLong("board_id");
@@ -8,7 +8,9 @@ import com.app.exception.sub.CommentNotFoundException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
@@ -16,6 +18,7 @@ import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
@@ -132,22 +135,37 @@ public class CommentDaoImpl implements CommentDao {
                 + "WHERE c.id = ?";
         return jdbcTemplate.query(sql, new CommentRSE(), id);
       } else {
-        String sql = "SELECT id, user_id, pin_id, created_at FROM comments WHERE id = ?";
-        return jdbcTemplate.queryForObject(sql, new CommentRowMapper(false, false, true), id);
+        String sql =
+            "SELECT id, content, user_id, pin_id, media_id, created_at FROM comments WHERE id = ?";
+        return jdbcTemplate.queryForObject(sql, new CommentRowMapper(true, true, true), id);
       }
     } catch (DataAccessException e) {
       throw new CommentNotFoundException("Comment not found with a id: " + id);
     }
   }
 
+  @Override
+  public List<Comment> findByIds(Collection<Long> ids) {
+    if (ids == null || ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    String sql =
+        "SELECT id, content, user_id, pin_id, media_id, created_at FROM comments "
+            + "WHERE id IN (:ids) ORDER BY id";
+    NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    return namedJdbcTemplate.query(sql, Map.of("ids", ids), new CommentRowMapper(true, true, true));
+  }
+
   @Override
   public List<Comment> findByPinId(Long pinId, SortType sortType, int limit, int offset) {
     try {
       String sql =
-          "SELECT id, content, user_id, media_id, created_at FROM comments WHERE pin_id = ? ORDER BY created_at "
+          "SELECT id, content, user_id, pin_id, media_id, created_at FROM comments "
+              + "WHERE pin_id = ? ORDER BY id "
               + sortType.getOrder()
               + " LIMIT ? OFFSET ?";
-      return jdbcTemplate.query(sql, new CommentRowMapper(true, true, false), pinId, limit, offset);
+      return jdbcTemplate.query(sql, new CommentRowMapper(true, true, true), pinId, limit, offset);
     } catch (DataAccessException e) {
       System.out.println(e.getMessage());
       throw new CommentNotFoundException("Comment not found with a pin id: " + pinId);
@@ -157,12 +175,12 @@ public class CommentDaoImpl implements CommentDao {
   @Override
   public List<Comment> findByHashtag(String tag, int limit, int offset) {
     String sql =
-        "SELECT c.id, c.user_id, c.pin_id, c.created_at "
+        "SELECT c.id, c.content, c.user_id, c.pin_id, c.media_id, c.created_at "
             + "FROM comments c "
             + "JOIN hashtags_comments hc ON c.id = hc.comment_id "
             + "JOIN hashtags h ON hc.hashtag_id = h.id "
-            + "WHERE h.tag = ? ORDER BY c.created_at DESC LIMIT ? OFFSET ?";
-    return jdbcTemplate.query(sql, new CommentRowMapper(false, false, true), tag, limit, offset);
+            + "WHERE h.tag = ? ORDER BY c.id DESC LIMIT ? OFFSET ?";
+    return jdbcTemplate.query(sql, new CommentRowMapper(true, true, true), tag, limit, offset);
   }
 
   @Override
@@ -4,6 +4,8 @@ import com.app.DAO.HashtagDao;
 import com.app.Model.Hashtag;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
@@ -68,4 +70,15 @@ public class HashtagDaoImpl implements HashtagDao {
       return null;
     }
   }
+
+  @Override
+  public List<String> findTopTags(LocalDateTime since, int limit) {
+    String sql =
+        "SELECT h.tag FROM hashtags h "
+            + "JOIN hashtags_pins hp ON hp.hashtag_id = h.id "
+            + "JOIN pins p ON p.id = hp.pin_id "
+            + "WHERE p.created_at > ? "
+            + "GROUP BY h.id, h.tag ORDER BY COUNT(*) DESC, h.id LIMIT ?";
+    return template.queryForList(sql, String.class, Timestamp.valueOf(since), limit);
+  }
 }
@@ -0,0 +1,75 @@
+package com.app.DAO.Impl;
+
+import com.app.DAO.MediaBlobDao;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+@AllArgsConstructor
+public class MediaBlobDaoImpl implements MediaBlobDao {
+
+  private final JdbcTemplate template;
+
+  @Override
+  public int acquire(String url) {
+    String sql =
+        "INSERT INTO media_blobs(url, ref_count) VALUES(?, 1) "
+            + "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1";
+    return template.update(sql, url);
+  }
+
+  @Transactional
+  @Override
+  public int release(String url) {
+    String sql = "SELECT ref_count FROM media_blobs WHERE url = ? FOR UPDATE";
+    List<Integer> counts = template.queryForList(sql, Integer.class, url);
+    if (counts.isEmpty()) {
+      return 0;
+    }
+
+    int remaining = counts.getFirst() - 1;
+    if (remaining <= 0) {
+      template.update("DELETE FROM media_blobs WHERE url = ?", url);
+      return 0;
+    }
+    template.update("UPDATE media_blobs SET ref_count = ? WHERE url = ?", remaining, url);
+    return remaining;
+  }
+
+  @Override
+  public List<String> findUnreferenced(String afterUrl, LocalDateTime createdBefore, int limit) {
+    String sql =
+        "SELECT b.url FROM media_blobs b WHERE b.url > ? AND b.created_at < ?"
+            + " AND NOT EXISTS (SELECT 1 FROM media m WHERE m.url = b.url) ORDER BY b.url LIMIT ?";
+    return template.queryForList(
+        sql, String.class, afterUrl, Timestamp.valueOf(createdBefore), limit);
+  }
+
+  @Override
+  public int lock(String url) {
+    String sql =
+        "INSERT INTO media_blobs(url, ref_count) VALUES(?, 0) "
+            + "ON DUPLICATE KEY UPDATE ref_count = ref_count";
+    return template.update(sql, url);
+  }
+
+  @Override
+  public int deleteUnreferenced(String url) {
+    String sql =
+        "DELETE FROM media_blobs WHERE url = ?"
+            + " AND NOT EXISTS (SELECT 1 FROM media m WHERE m.url = ?)"
+            + " AND NOT EXISTS (SELECT 1 FROM media_variants v WHERE v.url = ?)";
+    return template.update(sql, url, url, url);
+  }
+
+  @Override
+  public int deleteReleased(String url) {
+    String sql = "DELETE FROM media_blobs WHERE url = ? AND ref_count = 0";
+    return template.update(sql, url);
+  }
+}
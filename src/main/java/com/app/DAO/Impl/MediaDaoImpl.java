@@ -2,15 +2,32 @@ package com.app.DAO.Impl;
 
 import com.app.DAO.MediaDao;
 import com.app.Model.Media;
+import com.app.Model.MediaChangedEvent;
 import com.app.Model.MediaType;
+import com.app.Model.MediaVariant;
 import com.app.exception.sub.MediaNotFoundException;
+import com.app.storage.MediaManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
@@ -22,12 +39,20 @@ import org.springframework.transaction.annotation.Transactional;
 @AllArgsConstructor
 public class MediaDaoImpl implements MediaDao {
 
+  private static final String COLUMNS =
+      "id, url, media_type, size_bytes, mime_type, width, height, duration_ms, placeholder, "
+          + "checksum, created_at, updated_at";
+
   private final JdbcTemplate template;
+  private final ApplicationEventPublisher eventPublisher;
 
+  @Transactional
   @Override
   public Media save(Media media) {
     try {
-      String sql = "INSERT INTO media(url, media_type) VALUES(?,?)";
+      String sql =
+          "INSERT INTO media(url, media_type, size_bytes, mime_type, width, height, duration_ms, "
+              + "placeholder, checksum) VALUES(?,?,?,?,?,?,?,?,?)";
       KeyHolder keyHolder = new GeneratedKeyHolder();
 
       int row =
@@ -36,65 +61,131 @@ public class MediaDaoImpl implements MediaDao {
                 PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
                 ps.setString(1, media.getUrl());
                 ps.setString(2, media.getMediaType().toString());
+                ps.setObject(3, media.getSizeBytes());
+                ps.setString(4, media.getMimeType());
+                ps.setObject(5, media.getWidth());
+                ps.setObject(6, media.getHeight());
+                ps.setObject(7, media.getDurationMs());
+                ps.setString(8, media.getPlaceholder());
+                ps.setString(9, media.getChecksum());
                 return ps;
               },
               keyHolder);
 
       if (row > 0) {
         media.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        saveVariants(media.getId(), media.getVariants());
+        // A read of the ID before it existed may have been cached as a miss.
+        eventPublisher.publishEvent(new MediaChangedEvent(media.getId()));
         return media;
-      } else {
-        return null;
       }
-    } catch (Exception e) {
-      return null;
+      throw new RuntimeException("Error saving media: no row inserted");
+    } catch (DataAccessException e) {
+      throw new RuntimeException("Error saving media", e);
     }
   }
 
+  @Transactional
   @Override
   public Media update(Long id, Media media) {
-    String sql = "UPDATE media SET url = ?, media_type = ? WHERE id = ?";
-    int rowAffected = template.update(sql, media.getUrl(), media.getMediaType().toString(), id);
-    return rowAffected > 0 ? media : null;
+    // The row now describes another file, updated_at is its Last-Modified date.
+    String sql =
+        "UPDATE media SET url = ?, media_type = ?, size_bytes = ?, mime_type = ?, width = ?, "
+            + "height = ?, duration_ms = ?, placeholder = ?, checksum = ?, "
+            + "updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+    int rowAffected =
+        template.update(
+            sql,
+            media.getUrl(),
+            media.getMediaType().toString(),
+            media.getSizeBytes(),
+            media.getMimeType(),
+            media.getWidth(),
+            media.getHeight(),
+            media.getDurationMs(),
+            media.getPlaceholder(),
+            media.getChecksum(),
+            id);
+    if (rowAffected == 0) {
+      return null;
+    }
+    template.update("DELETE FROM media_variants WHERE media_id = ?", id);
+    saveVariants(id, media.getVariants());
+    eventPublisher.publishEvent(new MediaChangedEvent(id));
+    return media;
+  }
+
+  @Override
+  public int updateMetadata(Long id, Media media) {
+    String sql =
+        "UPDATE media SET size_bytes = ?, mime_type = ?, width = ?, height = ?, duration_ms = ?, "
+            + "placeholder = ? WHERE id = ? AND url = ?";
+    int rowAffected =
+        template.update(
+            sql,
+            media.getSizeBytes(),
+            media.getMimeType(),
+            media.getWidth(),
+            media.getHeight(),
+            media.getDurationMs(),
+            media.getPlaceholder(),
+            id,
+            media.getUrl());
+    if (rowAffected > 0) {
+      eventPublisher.publishEvent(new MediaChangedEvent(id));
+    }
+    return rowAffected;
   }
 
   @Override
   public Media findById(Long id) {
     try {
-      String sql = "SELECT id, url, media_type FROM media WHERE id = ?";
-      return template.queryForObject(
-          sql,
-          (rs, rowNum) -> {
-            Media media = new Media();
-            media.setId(rs.getLong("id"));
-            media.setUrl(rs.getString("url"));
-            media.setMediaType(MediaType.valueOf(rs.getString("media_type")));
-            return media;
-          },
-          id);
+      String sql = "SELECT " + COLUMNS + " FROM media WHERE id = ?";
+      Media media = template.queryForObject(sql, this::mapMedia, id);
+      media.setVariants(findVariants(id));
+      return media;
     } catch (DataAccessException e) {
       throw new MediaNotFoundException("Media not found with a id: " + id);
     }
   }
 
+  @Override
+  public List<Media> findByIds(Collection<Long> ids) {
+    if (ids == null || ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(template);
+    String sql = "SELECT " + COLUMNS + " FROM media WHERE id IN (:ids) ORDER BY id";
+    List<Media> media = namedJdbcTemplate.query(sql, Map.of("ids", ids), this::mapMedia);
+
+    String variantsSql =
+        "SELECT media_id, width, height, size_bytes, url FROM media_variants "
+            + "WHERE media_id IN (:ids) ORDER BY media_id, width";
+    Map<Long, List<MediaVariant>> variants = new HashMap<>();
+    namedJdbcTemplate.query(
+        variantsSql,
+        Map.of("ids", ids),
+        rs -> {
+          variants
+              .computeIfAbsent(rs.getLong("media_id"), id -> new ArrayList<>())
+              .add(mapVariant(rs, 0));
+        });
+    media.forEach(m -> m.setVariants(variants.getOrDefault(m.getId(), new ArrayList<>())));
+    return media;
+  }
+
   @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
   @Override
   public Media findByCommentId(Long commentId) {
     try {
       String sql =
-          "SELECT m.id, m.url, m.media_type FROM media m "
+          "SELECT m.id, m.url, m.media_type, m.size_bytes, m.mime_type, m.width, m.height, "
+              + "m.duration_ms, m.placeholder, m.checksum, m.created_at, m.updated_at "
+              + "FROM media m "
               + "INNER JOIN comments c ON m.id = c.media_id "
               + "WHERE c.id = ?";
-      return template.queryForObject(
-          sql,
-          (rs, rowNum) -> {
-            Media media = new Media();
-            media.setId(rs.getLong("id"));
-            media.setUrl(rs.getString("url"));
-            media.setMediaType(MediaType.valueOf(rs.getString("media_type")));
-            return media;
-          },
-          commentId);
+      return template.queryForObject(sql, this::mapMedia, commentId);
     } catch (EmptyResultDataAccessException e) {
       throw new MediaNotFoundException("Media not found with comment ID: " + commentId);
     } catch (IllegalArgumentException e) {
@@ -102,13 +193,114 @@ public class MediaDaoImpl implements MediaDao {
     }
   }
 
+  @Override
+  public List<Media> findMissingMetadata(Long afterId, int limit) {
+    String sql =
+        "SELECT "
+            + COLUMNS
+            + " FROM media WHERE (size_bytes IS NULL"
+            + " OR (media_type = 'IMAGE' AND placeholder IS NULL)) AND id > ? ORDER BY id LIMIT ?";
+    return template.query(sql, this::mapMedia, afterId, limit);
+  }
+
+  @Override
+  public List<Media> findUnreferenced(Long afterId, LocalDateTime createdBefore, int limit) {
+    String sql =
+        "SELECT "
+            + COLUMNS
+            + " FROM media m WHERE m.id > ? AND m.created_at < ? AND m.url <> ?"
+            + " AND NOT EXISTS (SELECT 1 FROM pins p WHERE p.media_id = m.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM comments c WHERE c.media_id = m.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM sub_comments s WHERE s.media_id = m.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM users u WHERE u.media_id = m.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM upload_sessions us WHERE us.media_id = m.id)"
+            + " ORDER BY m.id LIMIT ?";
+    return template.query(
+        sql,
+        this::mapMedia,
+        afterId,
+        Timestamp.valueOf(createdBefore),
+        MediaManager.DEFAULT_PROFILE_PICTURE,
+        limit);
+  }
+
+  @Override
+  public Set<String> findUsedUrls(Collection<String> urls) {
+    if (urls == null || urls.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    String sql =
+        "SELECT url FROM media WHERE url IN (:urls)"
+            + " UNION SELECT url FROM media_variants WHERE url IN (:urls)"
+            + " UNION SELECT url FROM media_blobs WHERE url IN (:urls)";
+    NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(template);
+    return new HashSet<>(namedJdbcTemplate.queryForList(sql, Map.of("urls", urls), String.class));
+  }
+
   @Override
   public int deleteById(Long id) {
     try {
       String sql = "DELETE FROM media WHERE id = ?";
-      return template.update(sql, id);
+      int rowAffected = template.update(sql, id);
+      if (rowAffected > 0) {
+        eventPublisher.publishEvent(new MediaChangedEvent(id));
+      }
+      return rowAffected;
     } catch (DataAccessException e) {
       throw new MediaNotFoundException("Media not found with a id: " + id);
     }
   }
+
+  private void saveVariants(Long mediaId, List<MediaVariant> variants) {
+    if (variants == null || variants.isEmpty()) {
+      return;
+    }
+    String sql =
+        "INSERT INTO media_variants(media_id, width, height, size_bytes, url) VALUES(?,?,?,?,?)";
+    template.batchUpdate(
+        sql,
+        variants,
+        variants.size(),
+        (ps, variant) -> {
+          ps.setLong(1, mediaId);
+          ps.setInt(2, variant.getWidth());
+          ps.setInt(3, variant.getHeight());
+          ps.setLong(4, variant.getSizeBytes());
+          ps.setString(5, variant.getUrl());
+        });
+  }
+
+  private List<MediaVariant> findVariants(Long mediaId) {
+    String sql =
+        "SELECT width, height, size_bytes, url FROM media_variants "
+            + "WHERE media_id = ? ORDER BY width";
+    return template.query(sql, this::mapVariant, mediaId);
+  }
+
+  private MediaVariant mapVariant(ResultSet rs, int rowNum) throws SQLException {
+    return MediaVariant.builder()
+        .width(rs.getInt("width"))
+        .height(rs.getInt("height"))
+        .sizeBytes(rs.getLong("size_bytes"))
+        .url(rs.getString("url"))
+        .build();
+  }
+
+  private Media mapMedia(ResultSet rs, int rowNum) throws SQLException {
+    return Media.builder()
+        .id(rs.getLong("id"))
+        .url(rs.getString("url"))
+        .mediaType(MediaType.valueOf(rs.getString("media_type")))
+        .sizeBytes(rs.getObject("size_bytes", Long.class))
+        .mimeType(rs.getString("mime_type"))
+        .width(rs.getObject("width", Integer.class))
+        .height(rs.getObject("height", Integer.class))
+        .durationMs(rs.getObject("duration_ms", Long.class))
+        .placeholder(rs.getString("placeholder"))
+        .checksum(rs.getString("checksum"))
+        .created_at(rs.getTimestamp("created_at"))
+        .updated_at(rs.getTimestamp("updated_at"))
+        .build();
+  }
 }
@@ -17,6 +17,7 @@ import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
@@ -38,23 +39,25 @@ public class PinDaoImpl implements PinDao {
     String orderBy = (sortType == SortType.NEWEST) ? "DESC" : "ASC";
 
     String sql =
-        "SELECT id, user_id, media_id, created_at FROM pins ORDER BY created_at "
+        "SELECT p.id, p.user_id, p.media_id, p.created_at, m.placeholder, m.width, m.height "
+            + "FROM pins p LEFT JOIN media m ON m.id = p.media_id ORDER BY p.id "
             + orderBy
             + " LIMIT ? OFFSET ?";
 
-    return jdbcTemplate.query(sql, new PinRowMapper(false, true), limit, offset);
+    return jdbcTemplate.query(sql, new PinRowMapper(false, true, true), limit, offset);
   }
 
   @Transactional(readOnly = true)
   @Override
   public List<Pin> getAllPinsByHashtag(String tag, int limit, int offset) {
     String sql =
-        "SELECT p.id, p.user_id, p.media_id, p.created_at "
+        "SELECT p.id, p.user_id, p.media_id, p.created_at, m.placeholder, m.width, m.height "
             + "FROM pins p "
             + "JOIN hashtags_pins hp ON p.id = hp.pin_id "
             + "JOIN hashtags h ON hp.hashtag_id = h.id "
-            + "WHERE h.tag = ? ORDER BY p.created_at DESC LIMIT ? OFFSET ?";
-    return jdbcTemplate.query(sql, new PinRowMapper(false, true), tag, limit, offset);
+            + "LEFT JOIN media m ON m.id = p.media_id "
+            + "WHERE h.tag = ? ORDER BY p.id DESC LIMIT ? OFFSET ?";
+    return jdbcTemplate.query(sql, new PinRowMapper(false, true, true), tag, limit, offset);
   }
 
   @Override
@@ -158,20 +161,38 @@ public class PinDaoImpl implements PinDao {
                 + "WHERE p.id = ?";
         return jdbcTemplate.query(sql, new PinRSE(), id);
       } else {
-        String sql = "SELECT id, media_id, user_id, created_at FROM pins where id = ?";
-        return jdbcTemplate.queryForObject(sql, new PinRowMapper(false, true), id);
+        String sql =
+            "SELECT p.id, p.user_id, p.media_id, p.created_at, m.placeholder, m.width, m.height "
+                + "FROM pins p LEFT JOIN media m ON m.id = p.media_id WHERE p.id = ?";
+        return jdbcTemplate.queryForObject(sql, new PinRowMapper(false, true, true), id);
       }
     } catch (DataAccessException e) {
       throw new PinNotFoundException("Pin not found with a id: " + id);
     }
   }
 
+  @Override
+  public List<Pin> findByIds(Collection<Long> ids) {
+    if (ids == null || ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    String sql =
+        "SELECT p.id, p.user_id, p.media_id, p.created_at, m.placeholder, m.width, m.height "
+            + "FROM pins p LEFT JOIN media m ON m.id = p.media_id "
+            + "WHERE p.id IN (:ids) ORDER BY p.id";
+    NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    return namedJdbcTemplate.query(sql, Map.of("ids", ids), new PinRowMapper(false, true, true));
+  }
+
   @Override
   public List<Pin> findPinByUserId(Long userId, int limit, int offset) {
     try {
       String sql =
-          "SELECT id, user_id, media_id, created_at FROM pins WHERE user_id = ? ORDER BY created_at DESC limit ? offset ?";
-      return jdbcTemplate.query(sql, new PinRowMapper(false, true), userId, limit, offset);
+          "SELECT p.id, p.user_id, p.media_id, p.created_at, m.placeholder, m.width, m.height "
+              + "FROM pins p LEFT JOIN media m ON m.id = p.media_id "
+              + "WHERE p.user_id = ? ORDER BY p.id DESC LIMIT ? OFFSET ?";
+      return jdbcTemplate.query(sql, new PinRowMapper(false, true, true), userId, limit, offset);
     } catch (DataAccessException e) {
       throw new UserNotFoundException("User not found with a id: " + userId);
     }
@@ -221,10 +242,12 @@ class PinRowMapper implements RowMapper<Pin> {
 
   private final boolean includedDescription;
   private final boolean includedMediaId;
+  private final boolean includedPreview;
 
-  PinRowMapper(boolean includedDescription, boolean includedMediaId) {
+  PinRowMapper(boolean includedDescription, boolean includedMediaId, boolean includedPreview) {
     this.includedDescription = includedDescription;
     this.includedMediaId = includedMediaId;
+    this.includedPreview = includedPreview;
   }
 
   @Override
@@ -241,6 +264,15 @@ class PinRowMapper implements RowMapper<Pin> {
       pin.setMediaId(rs.getLong("media_id"));
     }
 
+    if (includedPreview) {
+      pin.setPlaceholder(rs.getString("placeholder"));
+      int width = rs.getInt("width");
+      int height = rs.getInt("height");
+      if (width > 0 && height > 0) {
+        pin.setAspectRatio((double) width / height);
+      }
+    }
+
     pin.setUserId(rs.getLong("user_id"));
     pin.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
     return pin;
@@ -101,7 +101,7 @@ public class SubCommentDaoImpl implements SubCommentDao {
             + "FROM sub_comments sc "
             + "JOIN users u ON sc.user_id = u.id "
             + "JOIN comments c ON sc.comment_id = c.id "
-            + "WHERE sc.comment_id = ? ORDER BY sc.create_at "
+            + "WHERE sc.comment_id = ? ORDER BY sc.id "
             + sortType.getOrder()
             + " limit ? offset ?";
     return template.query(sql, new SubCommentRowMapper(), commentId, limit, offset);
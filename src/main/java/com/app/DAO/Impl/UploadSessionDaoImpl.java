@@ -0,0 +1,87 @@
+package com.app.DAO.Impl;
+
+import com.app.DAO.UploadSessionDao;
+import com.app.Model.UploadSession;
+import com.app.exception.sub.UploadSessionNotFoundException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@AllArgsConstructor
+public class UploadSessionDaoImpl implements UploadSessionDao {
+
+  private static final String COLUMNS =
+      "id, user_id, extension, upload_length, upload_offset, media_id, created_at";
+
+  private final JdbcTemplate template;
+
+  @Override
+  public UploadSession save(UploadSession session) {
+    String sql =
+        "INSERT INTO upload_sessions(id, user_id, extension, upload_length) VALUES(?,?,?,?)";
+    template.update(
+        sql, session.getId(), session.getUserId(), session.getExtension(), session.getLength());
+    return session;
+  }
+
+  @Override
+  public UploadSession findById(String id) {
+    try {
+      String sql = "SELECT " + COLUMNS + " FROM upload_sessions WHERE id = ?";
+      return template.queryForObject(sql, this::mapSession, id);
+    } catch (EmptyResultDataAccessException e) {
+      throw new UploadSessionNotFoundException("Upload not found with a id: " + id);
+    }
+  }
+
+  @Override
+  public int updateOffset(String id, long expected, long offset) {
+    String sql = "UPDATE upload_sessions SET upload_offset = ? WHERE id = ? AND upload_offset = ?";
+    return template.update(sql, offset, id, expected);
+  }
+
+  @Override
+  public int complete(String id, Long mediaId) {
+    String sql = "UPDATE upload_sessions SET media_id = ? WHERE id = ? AND media_id IS NULL";
+    return template.update(sql, mediaId, id);
+  }
+
+  @Override
+  public int claim(Long mediaId, Long userId) {
+    String sql = "DELETE FROM upload_sessions WHERE media_id = ? AND user_id = ?";
+    return template.update(sql, mediaId, userId);
+  }
+
+  @Override
+  public List<UploadSession> findCreatedBefore(LocalDateTime before, int limit) {
+    String sql =
+        "SELECT "
+            + COLUMNS
+            + " FROM upload_sessions WHERE created_at < ? ORDER BY created_at LIMIT ?";
+    return template.query(sql, this::mapSession, Timestamp.valueOf(before), limit);
+  }
+
+  @Override
+  public int deleteById(String id) {
+    return template.update("DELETE FROM upload_sessions WHERE id = ?", id);
+  }
+
+  private UploadSession mapSession(ResultSet rs, int rowNum) throws SQLException {
+    return UploadSession.builder()
+        .id(rs.getString("id"))
+        .userId(rs.getLong("user_id"))
+        .extension(rs.getString("extension"))
+        .length(rs.getLong("upload_length"))
+        .offset(rs.getLong("upload_offset"))
+        .mediaId(rs.getObject("media_id", Long.class))
+        .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+        .build();
+  }
+}
@@ -15,6 +15,7 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
@@ -108,6 +109,18 @@ public class UserDaoImpl implements UserDao {
     }
   }
 
+  @Override
+  public List<User> findUsersByIds(Collection<Long> ids) {
+    if (ids == null || ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    String sql = "SELECT id, username, email, enable FROM users WHERE id IN (:ids) ORDER BY id";
+    NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    return namedJdbcTemplate.query(
+        sql, Map.of("ids", ids), new UserRowMapper(false, false, false, false));
+  }
+
   @Override
   public User findUserByUsername(String username) {
     try {
@@ -0,0 +1,66 @@
+package com.app.DAO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Data Access Object interface for the reference counts of content-addressed media files.
+ *
+ * <p>Identical uploads are stored once and every media row pointing at the stored file holds one
+ * reference to it.
+ */
+public interface MediaBlobDao {
+
+  /**
+   * Adds a reference to a stored file, registering the file on its first reference.
+   *
+   * @param url The name the file is stored under.
+   * @return The number of row affected.
+   */
+  int acquire(String url);
+
+  /**
+   * Removes a reference to a stored file. The row is locked until the surrounding transaction
+   * ends, so the file can be deleted before a concurrent upload of the same content re-acquires it.
+   *
+   * @param url The name the file is stored under.
+   * @return The number of references left, 0 when the file is no longer used or was never counted.
+   */
+  int release(String url);
+
+  /**
+   * Finds stored files still counted although no media points at them anymore.
+   *
+   * @param afterUrl Only files with a greater name are returned, empty for the first page.
+   * @param createdBefore Only files first counted before this time are returned.
+   * @param limit The maximum number of files to return.
+   * @return The names of the files, in order.
+   */
+  List<String> findUnreferenced(String afterUrl, LocalDateTime createdBefore, int limit);
+
+  /**
+   * Locks the count of a stored file until the surrounding transaction ends, registering the file
+   * with no reference when it is not counted, so no upload of the same content can take a
+   * reference meanwhile.
+   *
+   * @param url The name the file is stored under.
+   * @return The number of row affected.
+   */
+  int lock(String url);
+
+  /**
+   * Drops the count of a stored file no media or variant points at.
+   *
+   * @param url The name the file is stored under.
+   * @return The number of row affected, 0 when a media or a variant points at the file.
+   */
+  int deleteUnreferenced(String url);
+
+  /**
+   * Drops the count of a stored file no reference is held on anymore.
+   *
+   * @param url The name the file is stored under.
+   * @return The number of row affected, 0 when the file is referenced again.
+   */
+  int deleteReleased(String url);
+}
@@ -1,6 +1,10 @@
 package com.app.DAO;
 
 import com.app.Model.Media;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 /** Data Access Object interface for managing Media entities. */
 public interface MediaDao {
@@ -9,6 +13,7 @@ public interface MediaDao {
    *
    * @param media The media to be saved.
    * @return the saved media
+   * @throws RuntimeException if the media could not be saved
    */
   Media save(Media media);
 
@@ -21,6 +26,16 @@ public interface MediaDao {
    */
   Media update(Long id, Media media);
 
+  /**
+   * Update the size, MIME type, dimensions, duration and placeholder of a media, as long as it
+   * still points to the same file.
+   *
+   * @param id The ID of media to be updated
+   * @param media The media holding the url and metadata
+   * @return The number of row affected.
+   */
+  int updateMetadata(Long id, Media media);
+
   /**
    * Find a media by its ID.
    *
@@ -29,6 +44,14 @@ public interface MediaDao {
    */
   Media findById(Long id);
 
+  /**
+   * Find several media and their variants by their IDs, with one query for each.
+   *
+   * @param ids The IDs of the media
+   * @return The media found, ordered by ID. IDs without a media are left out.
+   */
+  List<Media> findByIds(Collection<Long> ids);
+
   /**
    * Find a media by comment ID.
    *
@@ -37,6 +60,35 @@ public interface MediaDao {
    */
   Media findByCommentId(Long commentId);
 
+  /**
+   * Find media saved before their metadata or, for images, their placeholder was recorded.
+   *
+   * @param afterId Only media with a greater ID are returned
+   * @param limit The maximum number of media to return
+   * @return The media ordered by ID
+   */
+  List<Media> findMissingMetadata(Long afterId, int limit);
+
+  /**
+   * Find media no pin, comment, sub comment, user or upload points at. The default profile picture
+   * is never returned.
+   *
+   * @param afterId Only media with a greater ID are returned
+   * @param createdBefore Only media created before this time are returned
+   * @param limit The maximum number of media to return
+   * @return The media ordered by ID
+   */
+  List<Media> findUnreferenced(Long afterId, LocalDateTime createdBefore, int limit);
+
+  /**
+   * Find which of the given stored filenames are still in use, by a media, a variant or a
+   * reference count.
+   *
+   * @param urls The stored filenames to check
+   * @return The filenames in use
+   */
+  Set<String> findUsedUrls(Collection<String> urls);
+
   /**
    * Delete a media by its ID.
    *
@@ -2,6 +2,7 @@ package com.app.DAO;
 
 import com.app.Model.Pin;
 import com.app.Model.SortType;
+import java.util.Collection;
 import java.util.List;
 
 /** Interface for managing Pin data access operations. */
@@ -27,13 +28,22 @@ public interface PinDao {
   Pin update(Long id, Pin pin);
 
   /**
-   * Finds a basic detail pin by its id.
+   * Finds a basic detail pin by its id. The basic details are what the feeds list for a pin,
+   * including the preview of its media.
    *
    * @param id The id of the pin to be found.
    * @return The pin object if found, otherwise null.
    */
   Pin findById(Long id, boolean fetchDetails);
 
+  /**
+   * Finds the basic details of several pins with one query.
+   *
+   * @param ids The ids of the pins to be found.
+   * @return The pins found, ordered by id. Ids without a pin are left out.
+   */
+  List<Pin> findByIds(Collection<Long> ids);
+
   /**
    * Find the pin that associated with a user id.
    *
@@ -0,0 +1,71 @@
+package com.app.DAO;
+
+import com.app.Model.UploadSession;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Data Access Object interface for resumable uploads in progress. */
+public interface UploadSessionDao {
+
+  /**
+   * Save a new upload session.
+   *
+   * @param session The session to be saved.
+   * @return The saved session.
+   */
+  UploadSession save(UploadSession session);
+
+  /**
+   * Find an upload session by its ID.
+   *
+   * @param id The ID of the session.
+   * @return The session if found, or exception if not found.
+   */
+  UploadSession findById(String id);
+
+  /**
+   * Move the offset of a session forward, as long as no other chunk moved it in between.
+   *
+   * @param id The ID of the session.
+   * @param expected The offset the chunk was written at.
+   * @param offset The offset after the chunk.
+   * @return The number of row affected, 0 when the offset changed in between.
+   */
+  int updateOffset(String id, long expected, long offset);
+
+  /**
+   * Record the media a finished upload was stored as.
+   *
+   * @param id The ID of the session.
+   * @param mediaId The ID of the media.
+   * @return The number of row affected, 0 when the session was already finalized.
+   */
+  int complete(String id, Long mediaId);
+
+  /**
+   * Delete the session of a finished upload once its media is used, checking it was uploaded by
+   * the given user.
+   *
+   * @param mediaId The ID of the media the upload was stored as.
+   * @param userId The ID of the user claiming the media.
+   * @return The number of row affected, 0 when the user has no finished upload of that media.
+   */
+  int claim(Long mediaId, Long userId);
+
+  /**
+   * Find sessions created before the given time.
+   *
+   * @param before The creation time sessions must precede.
+   * @param limit The maximum number of sessions to return.
+   * @return A list of sessions, oldest first.
+   */
+  List<UploadSession> findCreatedBefore(LocalDateTime before, int limit);
+
+  /**
+   * Delete an upload session.
+   *
+   * @param id The ID of the session.
+   * @return The number of row affected.
+   */
+  int deleteById(String id);
+}
@@ -1,6 +1,8 @@
 package com.app.DAO;
 
 import com.app.Model.User;
+import java.util.Collection;
+import java.util.List;
 
 /** Interface for managing User data access operations. */
 public interface UserDao {
@@ -29,6 +31,14 @@ public interface UserDao {
    */
   User findUserById(Long id);
 
+  /**
+   * Finds several users by their ids with one query.
+   *
+   * @param ids The ids of the users to find.
+   * @return the users found, ordered by id. Ids without a user are left out.
+   */
+  List<User> findUsersByIds(Collection<Long> ids);
+
   /**
    * Finds a user by their username.
    *
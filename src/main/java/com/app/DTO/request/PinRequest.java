@@ -3,4 +3,9 @@ package com.app.DTO.request;
 import java.util.Set;
 import org.springframework.web.multipart.MultipartFile;
 
-public record PinRequest(String description, MultipartFile file, Set<String> hashtags) {}
+/**
+ * A pin to save. The media is either uploaded as {@code file} or, for large files sent through a
+ * resumable upload, referenced by the {@code mediaId} the finalized upload was stored as.
+ */
+public record PinRequest(
+    String description, MultipartFile file, Set<String> hashtags, Long mediaId) {}
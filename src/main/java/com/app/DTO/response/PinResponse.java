@@ -10,4 +10,6 @@ public record PinResponse(
     String description,
     Long mediaId,
     List<Hashtag> tag,
-    LocalDateTime createdAt) {}
+    LocalDateTime createdAt,
+    String placeholder,
+    Double aspectRatio) {}
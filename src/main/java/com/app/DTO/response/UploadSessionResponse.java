@@ -0,0 +1,3 @@
+package com.app.DTO.response;
+
+public record UploadSessionResponse(String id, long offset, long length, Long mediaId) {}
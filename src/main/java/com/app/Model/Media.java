@@ -2,6 +2,7 @@ package com.app.Model;
 
 import java.io.Serializable;
 import java.sql.Timestamp;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,5 +17,16 @@ public class Media implements Serializable {
   private Long id;
   private String url;
   private MediaType mediaType;
+  private Long sizeBytes;
+  private String mimeType;
+  private Integer width;
+  private Integer height;
+  private Long durationMs;
+  private String placeholder;
+  private String checksum;
   private Timestamp created_at;
+
+  /** When the row last changed to describe another file, the Last-Modified date of the media. */
+  private Timestamp updated_at;
+  private List<MediaVariant> variants;
 }
@@ -0,0 +1,9 @@
+package com.app.Model;
+
+/**
+ * Published when a media row is created, changed or deleted, so the cached copies of the media are
+ * dropped once the change is committed.
+ *
+ * @param mediaId the ID of the media
+ */
+public record MediaChangedEvent(long mediaId) {}
@@ -0,0 +1,20 @@
+package com.app.Model;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A downscaled copy of an image media, served to clients that render it smaller. */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder(toBuilder = true)
+public class MediaVariant implements Serializable {
+
+  private Integer width;
+  private Integer height;
+  private Long sizeBytes;
+  private String url;
+}
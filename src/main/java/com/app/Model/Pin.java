@@ -18,6 +18,8 @@ public class Pin implements Serializable {
   private Long userId;
   private String description;
   private Long mediaId;
+  private String placeholder;
+  private Double aspectRatio;
   private Collection<Hashtag> hashtags;
   private LocalDateTime createdAt;
 }
@@ -0,0 +1,26 @@
+package com.app.Model;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A resumable upload in progress. Chunks are written to a staging file at their offset, the
+ * session points at the stored media once it is finalized.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class UploadSession {
+
+  private String id;
+  private Long userId;
+  private String extension;
+  private long length;
+  private long offset;
+  private Long mediaId;
+  private LocalDateTime createdAt;
+}
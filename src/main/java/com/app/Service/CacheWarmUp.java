@@ -0,0 +1,176 @@
+package com.app.Service;
+
+import com.app.DAO.HashtagDao;
+import com.app.Model.Pin;
+import com.app.Model.SortType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fills the caches before the application reports ready, so the first requests after a deploy or a
+ * flushed Redis are not all answered by the database. It loads the first pages of the newest feed
+ * and the first page of the hashtags most used lately, then the pins on them, which are the ones
+ * most likely to be opened. Loads run through the cached services on a bounded number of threads
+ * and stop at the time budget, leaving the rest to be loaded on demand; failures are logged and
+ * never fail the startup. Each step is timed in {@code cache.warmup}.
+ */
+@Log4j2
+@Service
+public class CacheWarmUp implements ApplicationRunner {
+
+  private final PinService pinService;
+  private final HashtagDao hashtagDao;
+  private final MeterRegistry meterRegistry;
+  private final boolean enabled;
+  private final int feedPages;
+  private final int pageSize;
+  private final int topHashtags;
+  private final Duration hashtagWindow;
+  private final int concurrency;
+  private final Duration budget;
+
+  public CacheWarmUp(
+      PinService pinService,
+      HashtagDao hashtagDao,
+      MeterRegistry meterRegistry,
+      @Value("${cache.warmup.enabled:true}") boolean enabled,
+      @Value("${cache.warmup.feed-pages:5}") int feedPages,
+      @Value("${cache.warmup.page-size:10}") int pageSize,
+      @Value("${cache.warmup.top-hashtags:10}") int topHashtags,
+      @Value("${cache.warmup.hashtag-window:7d}") Duration hashtagWindow,
+      @Value("${cache.warmup.concurrency:4}") int concurrency,
+      @Value("${cache.warmup.budget:30s}") Duration budget) {
+    this.pinService = pinService;
+    this.hashtagDao = hashtagDao;
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.feedPages = feedPages;
+    this.pageSize = pageSize;
+    this.topHashtags = topHashtags;
+    this.hashtagWindow = hashtagWindow;
+    this.concurrency = concurrency;
+    this.budget = budget;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (enabled) {
+      warmUp();
+    }
+  }
+
+  /**
+   * Warms the caches within the budget.
+   *
+   * @return the number of pins warmed
+   */
+  int warmUp() {
+    long start = System.nanoTime();
+    long deadline = start + budget.toNanos();
+    String result = "failure";
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(1, concurrency), Thread.ofVirtual().factory());
+    try {
+      boolean complete = true;
+      List<Future<List<Pin>>> pages = new ArrayList<>();
+      // The feed is one contiguous timeline, so its pages are loaded together in one read.
+      if (feedPages > 0) {
+        pages.add(
+            executor.submit(
+                () ->
+                    timed(
+                        "feed",
+                        () -> pinService.getAllPins(SortType.NEWEST, feedPages * pageSize, 0))));
+      }
+      if (topHashtags > 0) {
+        LocalDateTime since = LocalDateTime.now().minus(hashtagWindow);
+        // Looked up within the budget as well, a slow query must not hold up the startup.
+        Optional<List<String>> tags =
+            await(
+                executor.submit(
+                    () -> timed("hashtags", () -> hashtagDao.findTopTags(since, topHashtags))),
+                deadline);
+        complete &= tags.isPresent();
+        for (String tag : tags.orElse(List.of())) {
+          pages.add(
+              executor.submit(
+                  () -> timed("hashtag", () -> pinService.getAllPinsByHashtag(tag, pageSize, 0))));
+        }
+      }
+
+      Set<Long> ids = new LinkedHashSet<>();
+      for (Future<List<Pin>> page : pages) {
+        Optional<List<Pin>> pins = await(page, deadline);
+        pins.ifPresent(loaded -> loaded.forEach(pin -> ids.add(pin.getId())));
+        complete &= pins.isPresent();
+      }
+      if (!ids.isEmpty()) {
+        complete &=
+            await(executor.submit(() -> timed("pins", () -> pinService.findByIds(ids))), deadline)
+                .isPresent();
+      }
+      result = complete ? "success" : "partial";
+      log.info(
+          "Warmed the caches with {} pins in {} ms",
+          ids.size(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      return ids.size();
+    } catch (RuntimeException e) {
+      log.warn("Could not warm the caches: {}", e.getMessage());
+      return 0;
+    } finally {
+      // Loads still running past the budget are abandoned rather than waited for.
+      executor.shutdownNow();
+      meterRegistry
+          .timer("cache.warmup", "step", "total", "result", result)
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private <V> V timed(String step, Supplier<V> loader) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String result = "failure";
+    try {
+      V value = loader.get();
+      result = "success";
+      return value;
+    } finally {
+      sample.stop(meterRegistry.timer("cache.warmup", "step", step, "result", result));
+    }
+  }
+
+  private static <V extends Collection<?>> Optional<V> await(Future<V> future, long deadline) {
+    try {
+      return Optional.of(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      log.warn("Cache warm-up ran out of its budget, leaving the rest to be loaded on demand");
+    } catch (ExecutionException e) {
+      log.warn("Could not warm a cache: {}", e.getCause().getMessage());
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+    }
+    return Optional.empty();
+  }
+}
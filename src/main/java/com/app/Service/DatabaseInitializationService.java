@@ -58,9 +58,22 @@ public class DatabaseInitializationService implements ApplicationListener<Contex
     if (alreadySetup) return;
 
     executeSqlScript("media.sql");
+    addColumnIfMissing("media", "size_bytes", "BIGINT");
+    addColumnIfMissing("media", "mime_type", "VARCHAR(100)");
+    addColumnIfMissing("media", "width", "INT");
+    addColumnIfMissing("media", "height", "INT");
+    addColumnIfMissing("media", "duration_ms", "BIGINT");
+    addColumnIfMissing("media", "placeholder", "VARCHAR(64)");
+    addColumnIfMissing("media", "checksum", "CHAR(64)");
+    addColumnIfMissing("media", "updated_at", "TIMESTAMP DEFAULT CURRENT_TIMESTAMP");
+    addIndexIfMissing("media", "idx_media_url", "url(255)");
+    executeSqlScript("media_blob.sql");
+    executeSqlScript("media_variant.sql");
+    addIndexIfMissing("media_variants", "idx_media_variants_url", "url");
     executeSqlScript("user.sql");
     executeSqlScript("board.sql");
     executeSqlScript("pin.sql");
+    executeSqlScript("upload_session.sql");
     executeSqlScript("board_pin.sql");
     executeSqlScript("roles.sql");
     executeSqlScript("privileges.sql");
@@ -120,6 +133,47 @@ public class DatabaseInitializationService implements ApplicationListener<Contex
     }
   }
 
+  /**
+   * Adds a column to a table created before the column was introduced, {@code CREATE TABLE IF NOT
+   * EXISTS} leaves such tables untouched.
+   */
+  private void addColumnIfMissing(String table, String column, String definition) {
+    try {
+      Integer count =
+          jdbcTemplate.queryForObject(
+              "SELECT COUNT(*) FROM information_schema.COLUMNS "
+                  + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+              Integer.class,
+              table,
+              column);
+      if (count != null && count == 0) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        log.info("Added column {} to table {}", column, table);
+      }
+    } catch (Exception e) {
+      log.error("Error adding column {} to table {}: {}", column, table, e.getMessage());
+    }
+  }
+
+  /** Adds an index to a table created before the index was introduced. */
+  private void addIndexIfMissing(String table, String index, String columns) {
+    try {
+      Integer count =
+          jdbcTemplate.queryForObject(
+              "SELECT COUNT(*) FROM information_schema.STATISTICS "
+                  + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?",
+              Integer.class,
+              table,
+              index);
+      if (count != null && count == 0) {
+        jdbcTemplate.execute("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        log.info("Added index {} to table {}", index, table);
+      }
+    } catch (Exception e) {
+      log.error("Error adding index {} to table {}: {}", index, table, e.getMessage());
+    }
+  }
+
   private void createAdminAccount(User user) {
 
     String userSql = "INSERT INTO users (username, email, password) VALUES (?, ?, ?)";
@@ -0,0 +1,46 @@
+package com.app.Service;
+
+import com.app.Model.Media;
+import com.app.Model.MediaVariant;
+import java.nio.file.Path;
+import java.util.List;
+
+/** Generates the downscaled variants served in place of large images. */
+public interface ImageVariantService {
+
+  /**
+   * Generates and stores the variants of an image narrower than the image itself. Variants are
+   * named after the image, so they are shared by identical uploads like the image is.
+   *
+   * @param source A local copy of the image.
+   * @param media The media of the image, holding its url and dimensions.
+   * @return The stored variants ordered by width, empty for videos and images without variants.
+   */
+  List<MediaVariant> generate(Path source, Media media);
+
+  /**
+   * Computes the BlurHash placeholder clients show while an image loads.
+   *
+   * @param source A local copy of the image.
+   * @param media The media of the image.
+   * @return The placeholder, or null for videos and unreadable images.
+   */
+  String placeholder(Path source, Media media);
+
+  /**
+   * Deletes the variants stored for an image.
+   *
+   * @param url The name the image is stored under.
+   */
+  void delete(String url);
+
+  /**
+   * Picks the variant to serve for a requested width: the narrowest variant at least as wide as
+   * requested.
+   *
+   * @param media The media to serve.
+   * @param width The requested width, or null for the original.
+   * @return The variant, or null when the original should be served.
+   */
+  MediaVariant select(Media media, Integer width);
+}
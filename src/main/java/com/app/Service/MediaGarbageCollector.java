@@ -0,0 +1,219 @@
+package com.app.Service;
+
+import com.app.DAO.MediaBlobDao;
+import com.app.DAO.MediaDao;
+import com.app.Model.Media;
+import com.app.storage.MediaStorage;
+import com.app.storage.StoredFile;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reconciles the media table with the storage in the background, reclaiming what failed or
+ * interrupted requests left behind: media nothing points at, reference counts of files no media
+ * points at, and stored files no media, variant or reference count knows of. Each run handles one
+ * batch of each and deletes a bounded number of entries, so a large backlog is worked off slowly
+ * instead of competing with uploads. Nothing younger than the grace period is touched, which covers
+ * uploads between storing their file and saving the rows pointing at it. Runs are scheduled on
+ * every node, a run only goes ahead on the node holding the lease in Redis.
+ */
+@Log4j2
+@Service
+public class MediaGarbageCollector {
+
+  private static final String LEASE_KEY = "lock:media-gc";
+
+  private static final RedisScript<Long> RELEASE =
+      new DefaultRedisScript<>(
+          "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end"
+              + " return 0",
+          Long.class);
+
+  private final MediaDao mediaDao;
+  private final MediaBlobDao mediaBlobDao;
+  private final MediaUploadService mediaUploadService;
+  private final MediaStorage mediaStorage;
+  private final StringRedisTemplate redisTemplate;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Duration lease;
+  private final int batchSize;
+  private final int maxDeletes;
+  private final Duration gracePeriod;
+
+  private long lastMediaId = 0;
+  private String lastBlobUrl = "";
+  private Stream<StoredFile> listing;
+  private Iterator<StoredFile> files;
+
+  public MediaGarbageCollector(
+      MediaDao mediaDao,
+      MediaBlobDao mediaBlobDao,
+      MediaUploadService mediaUploadService,
+      MediaStorage mediaStorage,
+      StringRedisTemplate redisTemplate,
+      @Value("${media.gc.lease:10m}") Duration lease,
+      @Value("${media.gc.batch-size:500}") int batchSize,
+      @Value("${media.gc.max-deletes:100}") int maxDeletes,
+      @Value("${media.gc.grace-period:48h}") Duration gracePeriod) {
+    this.mediaDao = mediaDao;
+    this.mediaBlobDao = mediaBlobDao;
+    this.mediaUploadService = mediaUploadService;
+    this.mediaStorage = mediaStorage;
+    this.redisTemplate = redisTemplate;
+    this.lease = lease;
+    this.batchSize = batchSize;
+    this.maxDeletes = maxDeletes;
+    this.gracePeriod = gracePeriod;
+  }
+
+  @Scheduled(
+      initialDelayString = "${media.gc.delay-ms:60000}",
+      fixedDelayString = "${media.gc.delay-ms:60000}")
+  public void collectBatch() {
+    if (!acquireLease()) {
+      return;
+    }
+    try {
+      LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+      int media = collectMedia(cutoff);
+      int blobs = collectBlobs(cutoff);
+      int files = collectFiles(cutoff);
+      if (media + blobs + files > 0) {
+        log.info(
+            "Reclaimed {} unused media, {} leaked files and {} orphan files", media, blobs, files);
+      }
+    } finally {
+      releaseLease();
+    }
+  }
+
+  /**
+   * Takes the lease of the collection, which outlives a run should this node stop in the middle
+   * of it. A run is skipped when Redis cannot be reached, as another node may be collecting.
+   */
+  private boolean acquireLease() {
+    try {
+      return Boolean.TRUE.equals(
+          redisTemplate.opsForValue().setIfAbsent(LEASE_KEY, nodeId, lease));
+    } catch (RuntimeException e) {
+      log.warn("Could not take the media collection lease: {}", e.getMessage());
+      return false;
+    }
+  }
+
+  private void releaseLease() {
+    try {
+      redisTemplate.execute(RELEASE, List.of(LEASE_KEY), nodeId);
+    } catch (RuntimeException e) {
+      // The lease expires on its own.
+      log.warn("Could not release the media collection lease: {}", e.getMessage());
+    }
+  }
+
+  /** Deletes media rows nothing points at, releasing their file. */
+  int collectMedia(LocalDateTime cutoff) {
+    List<Media> batch = mediaDao.findUnreferenced(lastMediaId, cutoff, maxDeletes);
+    lastMediaId = batch.size() < maxDeletes ? 0 : batch.getLast().getId();
+    int deleted = 0;
+    for (Media media : batch) {
+      try {
+        mediaDao.deleteById(media.getId());
+        mediaUploadService.release(media.getUrl());
+        deleted++;
+      } catch (RuntimeException e) {
+        log.warn("Could not delete unused media {}: {}", media.getId(), e.getMessage());
+      }
+    }
+    return deleted;
+  }
+
+  /** Deletes files whose reference count outlived every media pointing at them. */
+  int collectBlobs(LocalDateTime cutoff) {
+    List<String> batch = mediaBlobDao.findUnreferenced(lastBlobUrl, cutoff, maxDeletes);
+    lastBlobUrl = batch.size() < maxDeletes ? "" : batch.getLast();
+    int deleted = 0;
+    for (String url : batch) {
+      try {
+        if (mediaUploadService.reclaim(url)) {
+          deleted++;
+        }
+      } catch (RuntimeException e) {
+        log.warn("Could not reclaim file {}: {}", url, e.getMessage());
+      }
+    }
+    return deleted;
+  }
+
+  /**
+   * Deletes stored files nothing knows of. The listing of the storage is consumed one batch per
+   * run and started over once exhausted.
+   */
+  int collectFiles(LocalDateTime cutoff) {
+    long cutoffMillis = cutoff.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    List<String> candidates = new ArrayList<>();
+    try {
+      if (files == null) {
+        listing = mediaStorage.list();
+        files = listing.iterator();
+      }
+      int listed = 0;
+      while (listed < batchSize && files.hasNext()) {
+        StoredFile file = files.next();
+        listed++;
+        if (file.lastModified() < cutoffMillis) {
+          candidates.add(file.filename());
+        }
+      }
+      if (!files.hasNext()) {
+        closeListing();
+      }
+    } catch (RuntimeException e) {
+      log.warn("Error listing stored media, starting over: {}", e.getMessage());
+      closeListing();
+    }
+    if (candidates.isEmpty()) {
+      return 0;
+    }
+
+    Set<String> used = mediaDao.findUsedUrls(candidates);
+    int deleted = 0;
+    for (String filename : candidates) {
+      if (deleted >= maxDeletes) {
+        break;
+      }
+      if (used.contains(filename)) {
+        continue;
+      }
+      try {
+        if (mediaUploadService.reclaim(filename)) {
+          deleted++;
+        }
+      } catch (RuntimeException e) {
+        log.warn("Could not delete orphan file {}: {}", filename, e.getMessage());
+      }
+    }
+    return deleted;
+  }
+
+  private void closeListing() {
+    if (listing != null) {
+      listing.close();
+    }
+    listing = null;
+    files = null;
+  }
+}
@@ -0,0 +1,38 @@
+package com.app.Service;
+
+import com.app.storage.MediaStorage;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves media stored in the original flat {@code image/} and {@code video/} directories to the
+ * hashed layout in the background. Files are moved in small batches so the migration does not
+ * compete with uploads and reads for disk bandwidth, the storage keeps resolving both layouts until
+ * it is done.
+ */
+@Log4j2
+@Service
+public class MediaLayoutMigrationService {
+
+  private final MediaStorage mediaStorage;
+  private final int batchSize;
+
+  public MediaLayoutMigrationService(
+      MediaStorage mediaStorage,
+      @Value("${media.storage.migration.batch-size:500}") int batchSize) {
+    this.mediaStorage = mediaStorage;
+    this.batchSize = batchSize;
+  }
+
+  @Scheduled(
+      initialDelayString = "${media.storage.migration.delay-ms:10000}",
+      fixedDelayString = "${media.storage.migration.delay-ms:10000}")
+  public void migrateBatch() {
+    int moved = mediaStorage.migrateLayout(batchSize);
+    if (moved > 0) {
+      log.info("Moved {} media files to the hashed layout", moved);
+    }
+  }
+}
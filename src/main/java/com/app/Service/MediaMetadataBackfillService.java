@@ -0,0 +1,91 @@
+package com.app.Service;
+
+import com.app.DAO.MediaDao;
+import com.app.Model.Media;
+import com.app.Model.MediaType;
+import com.app.storage.MediaInspector;
+import com.app.storage.MediaInspector.MediaMetadata;
+import com.app.storage.MediaStorage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Records the size, MIME type, dimensions, duration and placeholder of media saved before they
+ * were captured at upload time. Media are walked in ID order in small batches; a media whose file
+ * cannot be read is skipped until the next restart instead of being retried on every run.
+ */
+@Log4j2
+@Service
+public class MediaMetadataBackfillService {
+
+  private final MediaDao mediaDao;
+  private final MediaStorage mediaStorage;
+  private final ImageVariantService imageVariantService;
+  private final int batchSize;
+  private long lastId = 0;
+
+  public MediaMetadataBackfillService(
+      MediaDao mediaDao,
+      MediaStorage mediaStorage,
+      ImageVariantService imageVariantService,
+      @Value("${media.metadata.backfill.batch-size:100}") int batchSize) {
+    this.mediaDao = mediaDao;
+    this.mediaStorage = mediaStorage;
+    this.imageVariantService = imageVariantService;
+    this.batchSize = batchSize;
+  }
+
+  @Scheduled(
+      initialDelayString = "${media.metadata.backfill.delay-ms:10000}",
+      fixedDelayString = "${media.metadata.backfill.delay-ms:10000}")
+  public void backfillBatch() {
+    List<Media> batch = mediaDao.findMissingMetadata(lastId, batchSize);
+    int updated = 0;
+    for (Media media : batch) {
+      lastId = media.getId();
+      try {
+        MediaMetadata metadata = inspect(media.getUrl());
+        media.setSizeBytes(metadata.sizeBytes());
+        media.setMimeType(metadata.mimeType());
+        media.setWidth(metadata.width());
+        media.setHeight(metadata.height());
+        media.setDurationMs(metadata.durationMs());
+        if (media.getMediaType() == MediaType.IMAGE) {
+          media.setPlaceholder(placeholder(media));
+        }
+        updated += mediaDao.updateMetadata(media.getId(), media);
+      } catch (IOException | RuntimeException e) {
+        log.warn("Could not backfill metadata of media {}: {}", media.getId(), e.getMessage());
+      }
+    }
+    if (updated > 0) {
+      log.info("Backfilled metadata of {} media", updated);
+    }
+  }
+
+  private MediaMetadata inspect(String url) throws IOException {
+    long size = mediaStorage.stat(url).size();
+    try (InputStream content = mediaStorage.openStream(url)) {
+      return MediaInspector.inspect(content, url, size);
+    }
+  }
+
+  /** The placeholder is computed from a local copy, the storage backend may be remote. */
+  private String placeholder(Media media) throws IOException {
+    Path copy = Files.createTempFile("placeholder-", ".tmp");
+    try (InputStream content = mediaStorage.openStream(media.getUrl())) {
+      Files.copy(content, copy, StandardCopyOption.REPLACE_EXISTING);
+      return imageVariantService.placeholder(copy, media);
+    } finally {
+      Files.deleteIfExists(copy);
+    }
+  }
+}
@@ -1,7 +1,11 @@
 package com.app.Service;
 
 import com.app.Model.Media;
+import java.util.Collection;
+import java.util.List;
 
 public interface MediaService {
   Media findById(Long id);
+
+  List<Media> findByIds(Collection<Long> ids);
 }
@@ -0,0 +1,44 @@
+package com.app.Service;
+
+import com.app.Model.Media;
+import com.app.storage.StagedFile;
+import org.springframework.web.multipart.MultipartFile;
+
+/** Stores uploaded media files, sharing one stored copy between identical uploads. */
+public interface MediaUploadService {
+
+  /**
+   * Stores an uploaded file and takes a reference to it.
+   *
+   * @param file The uploaded file.
+   * @return A media pointing at the stored file, not yet saved.
+   */
+  Media upload(MultipartFile file);
+
+  /**
+   * Stores a file already written to the staging directory of the storage and takes a reference
+   * to it. The staged file is left in place when storing fails, so the caller can retry.
+   *
+   * @param staged The staged file, named after its content.
+   * @return A media pointing at the stored file, not yet saved.
+   */
+  Media upload(StagedFile staged);
+
+  /**
+   * Gives up a reference to a stored file, the file is deleted once no media points at it anymore.
+   * The file is only deleted after the surrounding transaction commits, so a rollback never leaves
+   * a media pointing at a deleted file.
+   *
+   * @param url The name the file is stored under.
+   */
+  void release(String url);
+
+  /**
+   * Deletes a stored file no media points at, whether its reference count leaked or it was never
+   * counted. Like {@link #release(String)}, the file is deleted after the transaction commits.
+   *
+   * @param url The name the file is stored under.
+   * @return true if the file is deleted, false when a media points at it.
+   */
+  boolean reclaim(String url);
+}
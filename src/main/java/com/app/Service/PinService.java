@@ -4,6 +4,7 @@ import com.app.DTO.request.PinRequest;
 import com.app.Model.Pin;
 import com.app.Model.SortType;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 public interface PinService {
@@ -18,6 +19,8 @@ public interface PinService {
 
   Pin findById(Long id, boolean fetchDetails);
 
+  List<Pin> findByIds(Collection<Long> ids);
+
   List<Pin> findPinByUserId(Long userId, int limit, int offset);
 
   void delete(Long id) throws IOException;
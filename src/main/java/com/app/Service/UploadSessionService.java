@@ -0,0 +1,64 @@
+package com.app.Service;
+
+import com.app.Model.Media;
+import com.app.Model.UploadSession;
+import java.io.InputStream;
+
+/**
+ * Resumable uploads in the style of tus: a session is created for the full length of the file,
+ * chunks are appended at the current offset until the file is complete, then the session is
+ * finalized into a media. A dropped connection only loses the chunk in flight.
+ */
+public interface UploadSessionService {
+
+  /**
+   * Starts an upload for the authenticated user.
+   *
+   * @param length The size of the whole file in bytes.
+   * @param filename The original filename, its extension decides the media type.
+   * @return The new session, at offset 0.
+   */
+  UploadSession create(long length, String filename);
+
+  /**
+   * Finds an upload of the authenticated user.
+   *
+   * @param id The ID of the session.
+   * @return The session, holding the offset the next chunk must start at.
+   */
+  UploadSession findById(String id);
+
+  /**
+   * Writes a chunk at the given offset. When the content ends early, the bytes received are kept
+   * and the offset reflects them.
+   *
+   * @param id The ID of the session.
+   * @param offset The offset of the chunk, it must equal the offset of the session.
+   * @param content The content of the chunk.
+   * @return The session with its new offset.
+   */
+  UploadSession append(String id, long offset, InputStream content);
+
+  /**
+   * Stores a complete upload as a media. Finalizing an upload again returns the same media.
+   *
+   * @param id The ID of the session.
+   * @return The saved media.
+   */
+  Media complete(String id);
+
+  /**
+   * Takes the media of a finalized upload of the authenticated user, so it is used only once.
+   *
+   * @param mediaId The ID of the media the upload was stored as.
+   * @return The media.
+   */
+  Media claim(Long mediaId);
+
+  /**
+   * Abandons an upload that is not finalized yet.
+   *
+   * @param id The ID of the session.
+   */
+  void delete(String id);
+}
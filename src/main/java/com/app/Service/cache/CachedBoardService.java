@@ -6,6 +6,7 @@ import com.app.Service.BoardService;
 import com.app.exception.sub.BoardNotFoundException;
 import com.app.helper.CachedServiceHelper;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
@@ -25,50 +26,116 @@ public class CachedBoardService extends CachedServiceHelper<Board> implements Bo
     this.boardService = boardService;
   }
 
+  /** The cached timeline of the boards of the owner of a board, newest first. */
+  private static String timelineOf(Board board) {
+    return "user:" + board.getUser().getId() + ":boards";
+  }
+
+  /**
+   * The tags of a cached board: the board itself and the pins it embeds, so a deleted or edited
+   * pin drops the boards showing it.
+   */
+  private static List<String> tagsOf(Board board) {
+    List<String> tags = new ArrayList<>();
+    tags.add("board:" + board.getId());
+    tags.addAll(pinTagsOf(List.of(board)));
+    return tags;
+  }
+
+  /**
+   * The tags of the pins embedded in boards. A timeline of boards is registered under them, so a
+   * deleted or edited pin drops the timelines showing it; the boards themselves are replaced in
+   * the timeline as they change.
+   */
+  private static List<String> pinTagsOf(List<Board> boards) {
+    return boards.stream()
+        .filter(board -> board.getPins() != null)
+        .flatMap(board -> board.getPins().stream())
+        .map(pin -> "pin:" + pin.getId())
+        .distinct()
+        .toList();
+  }
+
+  /** Replaces a changed board in the timeline of its owner with the board as it is listed. */
+  private void replaceInTimeline(long id) {
+    var row = boardService.findById(id);
+    super.replaceInTimeline(timelineOf(row), id, row);
+    super.tagTimeline(timelineOf(row), pinTagsOf(List.of(row)), Duration.ofHours(2));
+  }
+
   @Override
   public Board save(BoardRequest boardRequest) {
     var board = boardService.save(boardRequest);
-    var cached = super.getOrLoad("board:" + board.getId(), () -> board, Duration.ofHours(2));
+    super.invalidateTags("board:" + board.getId());
+    var row = boardService.findById(board.getId());
+    super.addToTimeline(timelineOf(row), true, row.getId(), row);
+    super.tagTimeline(timelineOf(row), pinTagsOf(List.of(row)), Duration.ofHours(2));
+    var cached =
+        super.getOrLoad(
+            "board:" + board.getId(), () -> board, Duration.ofHours(2), CachedBoardService::tagsOf);
     return cached.orElse(board);
   }
 
   @Override
   public Board addPinToBoard(Long pinId, Long boardId) {
-    return boardService.addPinToBoard(pinId, boardId);
+    var board = boardService.addPinToBoard(pinId, boardId);
+    super.invalidateTags("board:" + boardId);
+    if (board != null) {
+      replaceInTimeline(boardId);
+    }
+    return board;
   }
 
   @Override
   public Board deletePinFromBoard(Long pinId, Long boardId) {
-    return boardService.deletePinFromBoard(pinId, boardId);
+    var board = boardService.deletePinFromBoard(pinId, boardId);
+    super.invalidateTags("board:" + boardId);
+    if (board != null) {
+      replaceInTimeline(boardId);
+    }
+    return board;
   }
 
   @Override
   public Board update(Long id, String name) {
     var board = boardService.update(id, name);
-    super.delete("board:" + board.getId());
-    var cached = super.getOrLoad("board:" + board.getId(), () -> board, Duration.ofHours(2));
+    super.invalidateTags("board:" + id);
+    replaceInTimeline(id);
+    var cached =
+        super.getOrLoad(
+            "board:" + board.getId(), () -> board, Duration.ofHours(2), CachedBoardService::tagsOf);
     return cached.orElse(board);
   }
 
   @Override
   public Board findById(Long id) {
     var cached =
-        super.getOrLoad("board:" + id, () -> boardService.findById(id), Duration.ofHours(2));
+        super.getOrLoad(
+            "board:" + id,
+            orNullIfMissing(() -> boardService.findById(id), BoardNotFoundException.class),
+            Duration.ofHours(2),
+            CachedBoardService::tagsOf);
     return cached.orElseThrow(() -> new BoardNotFoundException("Board not found with a id: " + id));
   }
 
   @Override
   public List<Board> findAllByUserId(Long userId, int limit, int offset) {
-    return super.getListOrLoad(
-        "user:" + userId + ":board",
+    return super.getTimelineOrLoad(
+        "user:" + userId + ":boards",
+        true,
+        Board::getId,
         () -> boardService.findAllByUserId(userId, limit, offset),
         limit,
         offset,
-        Duration.ofHours(2));
+        Duration.ofHours(2),
+        CachedBoardService::pinTagsOf);
   }
 
   @Override
   public void deleteIfUserMatches(Long id) {
-    super.delete("board:" + id);
+    var board = boardService.findById(id);
+    boardService.deleteIfUserMatches(id);
+    super.invalidateTags("board:" + id);
+    super.removeFromTimeline(timelineOf(board), id);
   }
 }
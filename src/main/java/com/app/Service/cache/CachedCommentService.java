@@ -8,7 +8,11 @@ import com.app.Service.CommentService;
 import com.app.exception.sub.CommentNotFoundException;
 import com.app.helper.CachedServiceHelper;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -28,22 +32,82 @@ public class CachedCommentService extends CachedServiceHelper<Comment> implement
     this.commentService = commentService;
   }
 
+  /** The cached timelines of comments on a pin, each with whether it lists the newest first. */
+  private static Map<String, Boolean> timelinesOf(Comment comment) {
+    return Map.of(
+        "pins:" + comment.getPinId() + ":comments:" + SortType.NEWEST,
+        true,
+        "pins:" + comment.getPinId() + ":comments:" + SortType.OLDEST,
+        false);
+  }
+
+  /** The tag of a comment, under which every cached entry containing the comment is registered. */
+  private static String tagOf(long commentId) {
+    return "comment:" + commentId;
+  }
+
+  /** The tag of the cached pages of comments with a hashtag. */
+  private static String hashtagTagOf(String tag) {
+    return "hashtag:" + tag + ":comments";
+  }
+
+  /** The cached timeline of the comments with a hashtag, newest first. */
+  private static String hashtagTimelineOf(String tag) {
+    return "comments_hashtag:" + tag;
+  }
+
+  /**
+   * The tags of the comments in a page of a hashtag timeline. A change to a comment drops the
+   * timelines holding it rather than replacing it there, as it may have left their hashtags.
+   */
+  private static List<String> commentTagsOf(List<Comment> comments) {
+    return comments.stream().map(comment -> tagOf(comment.getId())).toList();
+  }
+
+  /** The tags to invalidate when a comment with the requested hashtags changes. */
+  private static List<String> tagsOf(long id, Set<String> hashtags) {
+    List<String> tags = new ArrayList<>();
+    tags.add(tagOf(id));
+    if (hashtags != null) {
+      hashtags.forEach(tag -> tags.add(hashtagTagOf(tag)));
+    }
+    return tags;
+  }
+
   @Override
   public Comment save(CreateCommentRequest request) {
     var comment = commentService.save(request);
+    super.invalidateTags(tagOf(comment.getId()));
+    var row = commentService.findById(comment.getId(), false);
+    timelinesOf(row)
+        .forEach((key, newestFirst) -> super.addToTimeline(key, newestFirst, row.getId(), row));
+    if (request.tags() != null) {
+      for (String tag : request.tags()) {
+        super.addToTimeline(hashtagTimelineOf(tag), true, row.getId(), row);
+        super.tagTimeline(hashtagTimelineOf(tag), commentTagsOf(List.of(row)), Duration.ofHours(2));
+      }
+    }
     var cached =
         super.getOrLoad(
-            "comment:" + comment.getId() + ":details", () -> comment, Duration.ofHours(2));
+            "comment:" + comment.getId() + ":details",
+            () -> comment,
+            Duration.ofHours(2),
+            loaded -> List.of(tagOf(loaded.getId())));
     return cached.orElse(comment);
   }
 
   @Override
   public Comment update(Long id, UpdatedCommentRequest request) {
     var comment = commentService.update(id, request);
-    super.delete("comment:" + id + ":details");
+    super.invalidateTags(tagsOf(id, request.tags()));
+    var row = commentService.findById(id, false);
+    timelinesOf(row).keySet().forEach(key -> super.replaceInTimeline(key, id, row));
     var cached =
         super.getOrLoad(
-            "comment:" + comment.getId() + ":details", () -> comment, Duration.ofHours(2));
+            "comment:" + comment.getId() + ":details",
+            () -> comment,
+            Duration.ofHours(2),
+            loaded -> List.of(tagOf(loaded.getId())));
     return cached.orElse(comment);
   }
 
@@ -57,16 +121,21 @@ public class CachedCommentService extends CachedServiceHelper<Comment> implement
     var cacheKey = fetchDetails ? "comment:" + id + ":details" : "comment:" + id;
     var cached =
         super.getOrLoad(
-            cacheKey, () -> commentService.findById(id, fetchDetails), Duration.ofHours(2));
+            cacheKey,
+            orNullIfMissing(
+                () -> commentService.findById(id, fetchDetails), CommentNotFoundException.class),
+            Duration.ofHours(2),
+            comment -> List.of(tagOf(id)));
     return cached.orElseThrow(
         () -> new CommentNotFoundException("Comment not found with a id: " + id));
   }
 
   @Override
   public List<Comment> findByPinId(Long pinId, SortType sortType, int limit, int offset) {
-    String redisKeys = "pins:" + pinId + ":comments:" + sortType;
-    return super.getListOrLoad(
-        redisKeys,
+    return super.getTimelineOrLoad(
+        "pins:" + pinId + ":comments:" + sortType,
+        sortType == SortType.NEWEST,
+        Comment::getId,
         () -> commentService.findByPinId(pinId, sortType, limit, offset),
         limit,
         offset,
@@ -75,18 +144,23 @@ public class CachedCommentService extends CachedServiceHelper<Comment> implement
 
   @Override
   public List<Comment> findByHashtag(String tag, int limit, int offset) {
-    String redisKeys = "comments_hashtag:" + tag + ":limit:" + limit + ":offset:" + offset;
-    return super.getListOrLoad(
-        redisKeys,
+    return super.getTimelineOrLoad(
+        hashtagTimelineOf(tag),
+        true,
+        Comment::getId,
         () -> commentService.findByHashtag(tag, limit, offset),
         limit,
         offset,
-        Duration.ofHours(2));
+        Duration.ofHours(2),
+        comments ->
+            Stream.concat(Stream.of(hashtagTagOf(tag)), commentTagsOf(comments).stream()).toList());
   }
 
   @Override
   public void deleteById(Long id) {
-    super.delete("comment:" + id + ":details");
-    super.delete("comment:" + id);
+    var comment = commentService.findById(id, false);
+    commentService.deleteById(id);
+    super.invalidateTags(tagOf(id));
+    timelinesOf(comment).keySet().forEach(key -> super.removeFromTimeline(key, id));
   }
 }
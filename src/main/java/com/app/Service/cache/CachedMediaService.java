@@ -1,14 +1,18 @@
 package com.app.Service.cache;
 
 import com.app.Model.Media;
+import com.app.Model.MediaChangedEvent;
 import com.app.Service.MediaService;
 import com.app.exception.sub.MediaNotFoundException;
 import com.app.helper.CachedServiceHelper;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 @Component
 @Primary
@@ -23,10 +27,44 @@ public class CachedMediaService extends CachedServiceHelper<Media> implements Me
     this.mediaService = mediaService;
   }
 
+  /** The tag of a media, under which every cached entry containing the media is registered. */
+  private static String tagOf(long mediaId) {
+    return "media:" + mediaId;
+  }
+
+  /**
+   * Drops the cached copies of a media, and a cached miss of its ID, once the change is committed.
+   * Media are written by the services of what they belong to, so the change is learned from the
+   * event rather than from a method of this service.
+   *
+   * @param event the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onMediaChanged(MediaChangedEvent event) {
+    super.invalidateTags(tagOf(event.mediaId()));
+  }
+
   @Override
   public Media findById(Long id) {
     var cached =
-        super.getOrLoad("media:" + id, () -> mediaService.findById(id), Duration.ofHours(2));
+        super.getOrLoad(
+            "media:" + id,
+            orNullIfMissing(() -> mediaService.findById(id), MediaNotFoundException.class),
+            Duration.ofHours(2),
+            media -> List.of(tagOf(id)));
     return cached.orElseThrow(() -> new MediaNotFoundException("Media not found with a id: " + id));
   }
+
+  @Override
+  public List<Media> findByIds(Collection<Long> ids) {
+    return List.copyOf(
+        super.getAllOrLoad(
+                ids,
+                id -> "media:" + id,
+                Media::getId,
+                mediaService::findByIds,
+                Duration.ofHours(2),
+                media -> List.of(tagOf(media.getId())))
+            .values());
+  }
 }
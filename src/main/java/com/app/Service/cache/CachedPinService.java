@@ -8,7 +8,11 @@ import com.app.exception.sub.PinNotFoundException;
 import com.app.helper.CachedServiceHelper;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -27,11 +31,57 @@ public class CachedPinService extends CachedServiceHelper<Pin> implements PinSer
     this.delegate = pinServiceImpl;
   }
 
+  /** The cached timelines a pin appears in, each with whether it lists the newest pins first. */
+  private static Map<String, Boolean> timelinesOf(Pin pin) {
+    return Map.of(
+        "pins:" + SortType.NEWEST,
+        true,
+        "pins:" + SortType.OLDEST,
+        false,
+        "user:" + pin.getUserId() + ":pins",
+        true);
+  }
+
+  /** The tag of a pin, under which every cached entry containing the pin is registered. */
+  private static String tagOf(long pinId) {
+    return "pin:" + pinId;
+  }
+
+  /** The tag of the cached pages of pins with a hashtag. */
+  private static String hashtagTagOf(String tag) {
+    return "hashtag:" + tag + ":pins";
+  }
+
+  /** The cached timeline of the pins with a hashtag, newest first. */
+  private static String hashtagTimelineOf(String tag) {
+    return "pins_hashtag:" + tag;
+  }
+
+  /**
+   * The tags of the pins in a page of a hashtag timeline. Pins are not replaced in those timelines
+   * as they change, since a pin leaves the timelines of the hashtags it no longer has, so a change
+   * drops the timelines holding the pin instead.
+   */
+  private static List<String> pinTagsOf(List<Pin> pins) {
+    return pins.stream().map(pin -> tagOf(pin.getId())).toList();
+  }
+
+  /** The tags to invalidate when a pin with the requested hashtags changes. */
+  private static List<String> tagsOf(long id, PinRequest pinRequest) {
+    List<String> tags = new ArrayList<>();
+    tags.add(tagOf(id));
+    if (pinRequest.hashtags() != null) {
+      pinRequest.hashtags().forEach(tag -> tags.add(hashtagTagOf(tag)));
+    }
+    return tags;
+  }
+
   @Override
   public List<Pin> getAllPins(SortType sortType, int limit, int offset) {
-    var redisKey = "pins:" + sortType + ":limit:" + limit + ":offset:" + offset;
-    return super.getListOrLoad(
-        redisKey,
+    return super.getTimelineOrLoad(
+        "pins:" + sortType,
+        sortType == SortType.NEWEST,
+        Pin::getId,
         () -> delegate.getAllPins(sortType, limit, offset),
         limit,
         offset,
@@ -40,27 +90,51 @@ public class CachedPinService extends CachedServiceHelper<Pin> implements PinSer
 
   @Override
   public List<Pin> getAllPinsByHashtag(String tag, int limit, int offset) {
-    var redisKey = "pins_hashtag:" + tag + ":limit:" + limit + ":offset:" + offset;
-    return super.getListOrLoad(
-        redisKey,
+    return super.getTimelineOrLoad(
+        hashtagTimelineOf(tag),
+        true,
+        Pin::getId,
         () -> delegate.getAllPinsByHashtag(tag, limit, offset),
         limit,
         offset,
-        Duration.ofHours(2));
+        Duration.ofHours(2),
+        pins -> Stream.concat(Stream.of(hashtagTagOf(tag)), pinTagsOf(pins).stream()).toList());
   }
 
   @Override
   public Pin save(PinRequest pinRequest) {
     var pin = delegate.save(pinRequest);
-    var cached = super.getOrLoad("pin:" + pin.getId() + ":details", () -> pin, Duration.ofHours(2));
+    super.invalidateTags(tagOf(pin.getId()));
+    var row = delegate.findById(pin.getId(), false);
+    timelinesOf(row)
+        .forEach((key, newestFirst) -> super.addToTimeline(key, newestFirst, row.getId(), row));
+    if (pinRequest.hashtags() != null) {
+      for (String tag : pinRequest.hashtags()) {
+        super.addToTimeline(hashtagTimelineOf(tag), true, row.getId(), row);
+        super.tagTimeline(hashtagTimelineOf(tag), pinTagsOf(List.of(row)), Duration.ofHours(2));
+      }
+    }
+    var cached =
+        super.getOrLoad(
+            "pin:" + pin.getId() + ":details",
+            () -> pin,
+            Duration.ofHours(2),
+            loaded -> List.of(tagOf(loaded.getId())));
     return cached.orElse(pin);
   }
 
   @Override
   public Pin update(Long id, PinRequest pinRequest) {
     var pin = delegate.update(id, pinRequest);
-    super.delete("pin:" + id + ":details");
-    var cached = super.getOrLoad("pin:" + pin.getId() + ":details", () -> pin, Duration.ofHours(2));
+    super.invalidateTags(tagsOf(id, pinRequest));
+    var row = delegate.findById(id, false);
+    timelinesOf(row).keySet().forEach(key -> super.replaceInTimeline(key, id, row));
+    var cached =
+        super.getOrLoad(
+            "pin:" + pin.getId() + ":details",
+            () -> pin,
+            Duration.ofHours(2),
+            loaded -> List.of(tagOf(loaded.getId())));
     return cached.orElse(pin);
   }
 
@@ -68,15 +142,34 @@ public class CachedPinService extends CachedServiceHelper<Pin> implements PinSer
   public Pin findById(Long id, boolean fetchDetails) {
     var cacheKey = fetchDetails ? "pin:" + id + ":details" : "pin:" + id + ":basic";
     var cached =
-        super.getOrLoad(cacheKey, () -> delegate.findById(id, fetchDetails), Duration.ofHours(2));
+        super.getOrLoad(
+            cacheKey,
+            orNullIfMissing(
+                () -> delegate.findById(id, fetchDetails), PinNotFoundException.class),
+            Duration.ofHours(2),
+            pin -> List.of(tagOf(id)));
     return cached.orElseThrow(() -> new PinNotFoundException("Pin not found with a id: " + id));
   }
 
+  @Override
+  public List<Pin> findByIds(Collection<Long> ids) {
+    return List.copyOf(
+        super.getAllOrLoad(
+                ids,
+                id -> "pin:" + id + ":basic",
+                Pin::getId,
+                delegate::findByIds,
+                Duration.ofHours(2),
+                pin -> List.of(tagOf(pin.getId())))
+            .values());
+  }
+
   @Override
   public List<Pin> findPinByUserId(Long userId, int limit, int offset) {
-    var redisKey = "user:" + userId + ":pins";
-    return super.getListOrLoad(
-        redisKey,
+    return super.getTimelineOrLoad(
+        "user:" + userId + ":pins",
+        true,
+        Pin::getId,
         () -> delegate.findPinByUserId(userId, limit, offset),
         limit,
         offset,
@@ -86,7 +179,8 @@ public class CachedPinService extends CachedServiceHelper<Pin> implements PinSer
   @Override
   public void delete(Long id) throws IOException {
     var pin = delegate.findById(id, false);
-    super.delete("pin:*");
-    super.delete("user:" + pin.getUserId() + ":pins");
+    delegate.delete(id);
+    super.invalidateTags(tagOf(id));
+    timelinesOf(pin).keySet().forEach(key -> super.removeFromTimeline(key, id));
   }
 }
@@ -9,6 +9,7 @@ import com.app.exception.sub.SubCommentNotFoundException;
 import com.app.helper.CachedServiceHelper;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -28,20 +29,44 @@ public class CachedSubCommentService extends CachedServiceHelper<SubComment>
     this.subCommentService = subCommentService;
   }
 
+  /** The cached timelines of replies to a comment, each with whether it lists the newest first. */
+  private static Map<String, Boolean> timelinesOf(SubComment subComment) {
+    long commentId = subComment.getComment().getId();
+    return Map.of(
+        "comment:" + commentId + ":subComments:" + SortType.NEWEST,
+        true,
+        "comment:" + commentId + ":subComments:" + SortType.OLDEST,
+        false);
+  }
+
   @Override
   public SubComment save(CreateSubCommentRequest request) {
     var subComment = subCommentService.save(request);
+    super.invalidateTags("subComment:" + subComment.getId());
+    var row = subCommentService.findById(subComment.getId());
+    timelinesOf(row)
+        .forEach((key, newestFirst) -> super.addToTimeline(key, newestFirst, row.getId(), row));
     var cached =
-        super.getOrLoad("subComment:" + subComment.getId(), () -> subComment, Duration.ofHours(2));
+        super.getOrLoad(
+            "subComment:" + subComment.getId(),
+            () -> subComment,
+            Duration.ofHours(2),
+            loaded -> List.of("subComment:" + loaded.getId()));
     return cached.orElse(subComment);
   }
 
   @Override
   public SubComment update(long id, UpdatedCommentRequest request) {
     var subComment = subCommentService.update(id, request);
-    super.delete("subComment:" + subComment.getId());
+    super.invalidateTags("subComment:" + id);
+    var row = subCommentService.findById(id);
+    timelinesOf(row).keySet().forEach(key -> super.replaceInTimeline(key, id, row));
     var cached =
-        super.getOrLoad("subComment:" + subComment.getId(), () -> subComment, Duration.ofHours(2));
+        super.getOrLoad(
+            "subComment:" + subComment.getId(),
+            () -> subComment,
+            Duration.ofHours(2),
+            loaded -> List.of("subComment:" + loaded.getId()));
     return cached.orElse(subComment);
   }
 
@@ -49,7 +74,11 @@ public class CachedSubCommentService extends CachedServiceHelper<SubComment>
   public SubComment findById(long id) {
     var cached =
         super.getOrLoad(
-            "subComment:" + id, () -> subCommentService.findById(id), Duration.ofHours(2));
+            "subComment:" + id,
+            orNullIfMissing(
+                () -> subCommentService.findById(id), SubCommentNotFoundException.class),
+            Duration.ofHours(2),
+            subComment -> List.of("subComment:" + id));
     return cached.orElseThrow(
         () -> new SubCommentNotFoundException("Sub comment not found with a id: " + id));
   }
@@ -57,9 +86,10 @@ public class CachedSubCommentService extends CachedServiceHelper<SubComment>
   @Override
   public List<SubComment> findAllByCommentId(
       long commentId, SortType sortType, int limit, int offset) {
-    String redisKey = "comment:" + commentId + ":subComments:" + sortType;
-    return super.getListOrLoad(
-        redisKey,
+    return super.getTimelineOrLoad(
+        "comment:" + commentId + ":subComments:" + sortType,
+        sortType == SortType.NEWEST,
+        SubComment::getId,
         () -> subCommentService.findAllByCommentId(commentId, sortType, limit, offset),
         limit,
         offset,
@@ -68,6 +98,9 @@ public class CachedSubCommentService extends CachedServiceHelper<SubComment>
 
   @Override
   public void deleteById(long id) {
-    super.delete("subComment:" + id);
+    var subComment = subCommentService.findById(id);
+    subCommentService.deleteById(id);
+    super.invalidateTags("subComment:" + id);
+    timelinesOf(subComment).keySet().forEach(key -> super.removeFromTimeline(key, id));
   }
 }
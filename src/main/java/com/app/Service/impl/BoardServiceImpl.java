@@ -60,10 +60,13 @@ public class BoardServiceImpl implements BoardService {
     Board board = Board.builder().name(boardRequest.name()).user(getAuthenticatedUser()).build();
 
     if (boardRequest.pin_id() != null && boardRequest.pin_id().length > 0) {
+      List<Long> pinIds = Arrays.stream(boardRequest.pin_id()).boxed().toList();
+      Map<Long, Pin> found = new HashMap<>();
+      pinDao.findByIds(pinIds).forEach(pin -> found.put(pin.getId(), pin));
       List<Pin> pins = new ArrayList<>();
 
-      for (Long pinId : boardRequest.pin_id()) {
-        Pin pin = pinDao.findById(pinId, false);
+      for (Long pinId : pinIds) {
+        Pin pin = found.get(pinId);
         if (pin == null) {
           throw new PinNotFoundException("Pin not found with a id: " + pinId);
         }
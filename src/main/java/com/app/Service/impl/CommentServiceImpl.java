@@ -5,16 +5,14 @@ import com.app.DTO.request.CreateCommentRequest;
 import com.app.DTO.request.UpdatedCommentRequest;
 import com.app.Model.*;
 import com.app.Service.CommentService;
+import com.app.Service.MediaUploadService;
 import com.app.exception.sub.CommentIsEmptyException;
 import com.app.exception.sub.CommentNotFoundException;
 import com.app.exception.sub.PinNotFoundException;
 import com.app.exception.sub.UserNotMatchException;
 import com.app.message.producer.NotificationEventProducer;
-import com.app.storage.FileManager;
-import com.app.storage.MediaManager;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -34,6 +32,7 @@ public class CommentServiceImpl implements CommentService {
   private final PinDao pinDao;
   private final MediaDao mediaDao;
   private final HashtagDao hashtagDao;
+  private final MediaUploadService mediaUploadService;
   private final Map<Long, SseEmitter> emitters;
   private final NotificationEventProducer notificationEventProducer;
 
@@ -62,13 +61,7 @@ public class CommentServiceImpl implements CommentService {
       hashtags.add(hashtag);
     }
 
-    String filename = MediaManager.generateUniqueFilename(request.media().getOriginalFilename());
-    String extension = MediaManager.getFileExtension(request.media().getOriginalFilename());
-
-    FileManager.save(request.media(), filename, extension);
-    Media media =
-        mediaDao.save(
-            Media.builder().url(filename).mediaType(MediaType.fromExtension(extension)).build());
+    Media media = mediaDao.save(mediaUploadService.upload(request.media()));
 
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
     Long userId = userDao.findUserByUsername(authentication.getName()).getId();
@@ -125,18 +118,9 @@ public class CommentServiceImpl implements CommentService {
 
     if (request.media() != null && !request.media().isEmpty()) {
       Media existingMedia = mediaDao.findByCommentId(comment.getId());
-      String extensionOfExistingMedia = MediaManager.getFileExtension(existingMedia.getUrl());
-
-      String filename = MediaManager.generateUniqueFilename(request.media().getOriginalFilename());
-      String extension = MediaManager.getFileExtension(request.media().getOriginalFilename());
-
-      CompletableFuture.runAsync(
-              () -> FileManager.delete(existingMedia.getUrl(), extensionOfExistingMedia))
-          .thenRunAsync(() -> FileManager.save(request.media(), filename, extension));
 
-      mediaDao.update(
-          comment.getMediaId(),
-          Media.builder().url(filename).mediaType(MediaType.fromExtension(extension)).build());
+      mediaDao.update(comment.getMediaId(), mediaUploadService.upload(request.media()));
+      mediaUploadService.release(existingMedia.getUrl());
     }
 
     if (request.content() != null && !request.content().trim().isEmpty()) {
@@ -0,0 +1,198 @@
+package com.app.Service.impl;
+
+import com.app.Model.Media;
+import com.app.Model.MediaType;
+import com.app.Model.MediaVariant;
+import com.app.Service.ImageVariantService;
+import com.app.exception.sub.MediaNotFoundException;
+import com.app.storage.BlurHash;
+import com.app.storage.ImageResizer;
+import com.app.storage.MediaManager;
+import com.app.storage.MediaStorage;
+import jakarta.annotation.PreDestroy;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Generates variants with the JDK image codecs on a pool sized to the CPUs. Resizing is CPU bound,
+ * so running it on the unbounded virtual threads serving requests would let a burst of uploads
+ * starve everything else; when the pool queue is full the uploading thread resizes itself, which
+ * slows uploads down instead of piling up decoded images in memory.
+ */
+@Log4j2
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService {
+
+  /** Width the image is scaled to before it is encoded as a placeholder. */
+  private static final int PLACEHOLDER_SIZE = 32;
+
+  private final MediaStorage mediaStorage;
+  private final int[] widths;
+  private final ThreadPoolExecutor executor;
+
+  public ImageVariantServiceImpl(
+      MediaStorage mediaStorage,
+      @Value("${media.variants.widths:236,474,736}") int[] widths,
+      @Value("${media.variants.threads:0}") int threads,
+      @Value("${media.variants.queue-size:64}") int queueSize) {
+    this.mediaStorage = mediaStorage;
+    this.widths = Arrays.stream(widths).sorted().distinct().toArray();
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.executor =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(queueSize),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  @Override
+  public List<MediaVariant> generate(Path source, Media media) {
+    String extension = MediaManager.getFileExtension(media.getUrl());
+    // GIF variants would lose the animation, videos have no variants.
+    if (media.getMediaType() != MediaType.IMAGE
+        || extension.equals("gif")
+        || media.getWidth() == null
+        || media.getHeight() == null) {
+      return List.of();
+    }
+
+    List<MediaVariant> planned = plan(media);
+    if (planned.isEmpty()) {
+      return List.of();
+    }
+
+    List<MediaVariant> stored = findStored(planned);
+    if (stored != null) {
+      return stored;
+    }
+
+    try {
+      return CompletableFuture.supplyAsync(() -> resize(source, extension, planned), executor)
+          .join();
+    } catch (CompletionException e) {
+      // The original is still served, a failed variant only costs bandwidth.
+      log.error("Error generating variants of {}", media.getUrl(), e.getCause());
+      return List.of();
+    }
+  }
+
+  @Override
+  public String placeholder(Path source, Media media) {
+    if (media.getMediaType() != MediaType.IMAGE) {
+      return null;
+    }
+
+    try {
+      return CompletableFuture.supplyAsync(() -> blurHash(source), executor).join();
+    } catch (CompletionException e) {
+      log.error("Error computing placeholder of {}", media.getUrl(), e.getCause());
+      return null;
+    }
+  }
+
+  @Override
+  public void delete(String url) {
+    if (MediaType.fromExtension(MediaManager.getFileExtension(url)) != MediaType.IMAGE) {
+      return;
+    }
+    CompletableFuture.allOf(
+            Arrays.stream(widths)
+                .mapToObj(width -> mediaStorage.delete(MediaManager.getVariantFilename(url, width)))
+                .toArray(CompletableFuture[]::new))
+        .join();
+  }
+
+  @Override
+  public MediaVariant select(Media media, Integer width) {
+    if (width == null || media.getVariants() == null) {
+      return null;
+    }
+    return media.getVariants().stream()
+        .filter(variant -> variant.getWidth() >= width)
+        .min((a, b) -> Integer.compare(a.getWidth(), b.getWidth()))
+        .orElse(null);
+  }
+
+  /** The variants narrower than the image, their size is known once they are stored. */
+  private List<MediaVariant> plan(Media media) {
+    List<MediaVariant> planned = new ArrayList<>();
+    for (int width : widths) {
+      if (width >= media.getWidth()) {
+        break;
+      }
+      int height = Math.max(1, Math.round((float) media.getHeight() * width / media.getWidth()));
+      planned.add(
+          MediaVariant.builder()
+              .width(width)
+              .height(height)
+              .url(MediaManager.getVariantFilename(media.getUrl(), width))
+              .build());
+    }
+    return planned;
+  }
+
+  /** The variants of an image uploaded before, or null when any of them is missing. */
+  private List<MediaVariant> findStored(List<MediaVariant> planned) {
+    List<MediaVariant> stored = new ArrayList<>(planned.size());
+    for (MediaVariant variant : planned) {
+      try {
+        long size = mediaStorage.stat(variant.getUrl()).size();
+        stored.add(variant.toBuilder().sizeBytes(size).build());
+      } catch (MediaNotFoundException e) {
+        return null;
+      }
+    }
+    return stored;
+  }
+
+  private String blurHash(Path source) {
+    try {
+      BufferedImage image = ImageResizer.read(source, PLACEHOLDER_SIZE);
+      boolean landscape = image.getWidth() >= image.getHeight();
+      // The components follow the orientation, so a portrait image keeps its vertical detail.
+      BufferedImage small = ImageResizer.resize(image, PLACEHOLDER_SIZE, false);
+      return BlurHash.encode(small, landscape ? 4 : 3, landscape ? 3 : 4);
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  private List<MediaVariant> resize(Path source, String extension, List<MediaVariant> planned) {
+    String format = extension.equals("png") ? "png" : "jpg";
+    try {
+      BufferedImage image = ImageResizer.read(source, planned.getLast().getWidth());
+      List<MediaVariant> variants = new ArrayList<>(planned.size());
+      for (MediaVariant variant : planned) {
+        byte[] encoded =
+            ImageResizer.encode(
+                ImageResizer.resize(image, variant.getWidth(), format.equals("png")), format);
+        mediaStorage.write(variant.getUrl(), new ByteArrayInputStream(encoded)).join();
+        variants.add(variant.toBuilder().sizeBytes((long) encoded.length).build());
+      }
+      return variants;
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    }
+  }
+}
@@ -4,6 +4,8 @@ import com.app.DAO.MediaDao;
 import com.app.Model.Media;
 import com.app.Service.MediaService;
 import com.app.exception.sub.MediaNotFoundException;
+import java.util.Collection;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -25,4 +27,9 @@ public class MediaServiceImpl implements MediaService {
     }
     return media;
   }
+
+  @Override
+  public List<Media> findByIds(Collection<Long> ids) {
+    return mediaDao.findByIds(ids);
+  }
 }
@@ -0,0 +1,206 @@
+package com.app.Service.impl;
+
+import com.app.DAO.MediaBlobDao;
+import com.app.Model.Media;
+import com.app.Model.MediaType;
+import com.app.Service.ImageVariantService;
+import com.app.Service.MediaUploadService;
+import com.app.exception.sub.MediaNotSupportException;
+import com.app.storage.MediaInspector;
+import com.app.storage.MediaInspector.MediaMetadata;
+import com.app.storage.MediaManager;
+import com.app.storage.MediaStorage;
+import com.app.storage.StagedFile;
+import com.app.storage.UploadInspector;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.CompletionException;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Content-addressed media store. Uploads are named after the SHA-256 of their content, identical
+ * uploads resolve to the same file, and the file is reference counted by the media pointing at it.
+ * Files are kept in the configured {@link MediaStorage}, and only deleted once the transaction
+ * releasing them has committed.
+ */
+@Log4j2
+@Service
+public class MediaUploadServiceImpl implements MediaUploadService {
+
+  private final MediaBlobDao mediaBlobDao;
+  private final MediaStorage mediaStorage;
+  private final ImageVariantService imageVariantService;
+
+  /** Runs the deletion of a released file apart from the transaction that released it. */
+  private final TransactionTemplate deletion;
+
+  public MediaUploadServiceImpl(
+      MediaBlobDao mediaBlobDao,
+      MediaStorage mediaStorage,
+      ImageVariantService imageVariantService,
+      PlatformTransactionManager transactionManager) {
+    this.mediaBlobDao = mediaBlobDao;
+    this.mediaStorage = mediaStorage;
+    this.imageVariantService = imageVariantService;
+    this.deletion = new TransactionTemplate(transactionManager);
+    this.deletion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  @Override
+  public Media upload(MultipartFile file) {
+    String extension = MediaManager.getFileExtension(file.getOriginalFilename());
+    if (!MediaManager.isValidFormat(extension)) {
+      throw new MediaNotSupportException("Media format not supported");
+    }
+
+    StagedFile staged;
+    try {
+      // Strict, so content that is not of the claimed format stops the copy at its first bytes.
+      UploadInspector content = new UploadInspector(file.getInputStream(), extension, true);
+      staged = mediaStorage.stage(content, extension).join();
+    } catch (IOException e) {
+      log.error("Error reading uploaded file", e);
+      throw new RuntimeException("Error reading uploaded file: " + e.getMessage(), e);
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+
+    try {
+      return upload(staged);
+    } catch (RuntimeException e) {
+      mediaStorage.discard(staged);
+      throw e;
+    }
+  }
+
+  @Override
+  public Media upload(StagedFile staged) {
+    String extension = MediaManager.getFileExtension(staged.filename());
+    MediaMetadata metadata = metadataOf(staged);
+    // The reference is taken before the file is moved in place, a concurrent release of the
+    // last reference then either sees it or has already deleted the old copy.
+    mediaBlobDao.acquire(staged.filename());
+
+    Media media =
+        Media.builder()
+            .url(staged.filename())
+            .mediaType(MediaType.fromExtension(extension))
+            .sizeBytes(metadata.sizeBytes())
+            .mimeType(metadata.mimeType())
+            .width(metadata.width())
+            .height(metadata.height())
+            .durationMs(metadata.durationMs())
+            .checksum(staged.inspection() != null ? staged.inspection().sha256() : null)
+            .build();
+    // Variants are decoded from the staged copy, which every backend keeps on a local file.
+    media.setVariants(imageVariantService.generate(staged.temp(), media));
+    media.setPlaceholder(imageVariantService.placeholder(staged.temp(), media));
+    mediaStorage.commit(staged).join();
+    return media;
+  }
+
+  @Transactional
+  @Override
+  public void release(String url) {
+    int remaining = mediaBlobDao.release(url);
+    if (remaining > 0) {
+      log.info("File {} is still referenced {} times", url, remaining);
+      return;
+    }
+    afterCommit(() -> deleteReleased(url));
+  }
+
+  @Transactional
+  @Override
+  public boolean reclaim(String url) {
+    // An upload of the same content waits on the lock until the file is gone.
+    mediaBlobDao.lock(url);
+    if (mediaBlobDao.deleteUnreferenced(url) == 0) {
+      return false;
+    }
+    afterCommit(() -> deleteReleased(url));
+    return true;
+  }
+
+  /**
+   * Runs an action once the current transaction has committed, or right away outside of one, so a
+   * rollback cannot leave the database pointing at a file already deleted.
+   */
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
+  }
+
+  /**
+   * Deletes a released file unless an upload of the same content took a reference since it was
+   * released. The count is locked while the file is deleted, so no upload can take a reference
+   * before the file is gone. A file left behind by a failure is reclaimed by the garbage collector.
+   */
+  private void deleteReleased(String url) {
+    try {
+      deletion.executeWithoutResult(
+          status -> {
+            mediaBlobDao.lock(url);
+            if (mediaBlobDao.deleteReleased(url) == 0) {
+              log.info("File {} was referenced again before being deleted", url);
+              return;
+            }
+            mediaStorage.delete(url).join();
+            imageVariantService.delete(url);
+          });
+    } catch (RuntimeException e) {
+      log.warn("Could not delete released file {}: {}", url, e.getMessage());
+    }
+  }
+
+  /**
+   * Images are described by the inspection made while staging. Videos still need their {@code
+   * moov} box, which may sit at the end of the file, so their box headers are read from the staged
+   * copy.
+   */
+  private MediaMetadata metadataOf(StagedFile staged) {
+    UploadInspector.Inspection inspection = staged.inspection();
+    if (inspection == null
+        || inspection.mimeType() == null
+        || !inspection.mimeType().startsWith("image/")) {
+      return inspect(staged);
+    }
+    return new MediaMetadata(
+        inspection.sizeBytes(),
+        inspection.mimeType(),
+        inspection.width(),
+        inspection.height(),
+        null);
+  }
+
+  /** Reads the metadata of a staged upload, every backend stages uploads on a local file. */
+  private MediaMetadata inspect(StagedFile staged) {
+    try (InputStream content = Files.newInputStream(staged.temp())) {
+      return MediaInspector.inspect(content, staged.filename(), Files.size(staged.temp()));
+    } catch (IOException e) {
+      log.error("Error reading staged file: {}", staged.temp(), e);
+      throw new RuntimeException("Error reading staged file: " + e.getMessage(), e);
+    }
+  }
+}
@@ -6,15 +6,14 @@ import com.app.DAO.PinDao;
 import com.app.DAO.UserDao;
 import com.app.DTO.request.PinRequest;
 import com.app.Model.*;
+import com.app.Service.MediaUploadService;
 import com.app.Service.PinService;
+import com.app.Service.UploadSessionService;
 import com.app.exception.sub.PinIsEmptyException;
 import com.app.exception.sub.PinNotFoundException;
 import com.app.exception.sub.UserNotMatchException;
-import com.app.storage.FileManager;
-import com.app.storage.MediaManager;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -39,6 +38,8 @@ public class PinServiceImpl implements PinService {
   private final UserDao userDao;
   private final MediaDao mediaDao;
   private final HashtagDao hashtagDao;
+  private final MediaUploadService mediaUploadService;
+  private final UploadSessionService uploadSessionService;
 
   private User getAuthenticatedUser() {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -59,10 +60,21 @@ public class PinServiceImpl implements PinService {
     return pinDao.getAllPinsByHashtag(tag, limit, offset);
   }
 
+  /** Saves an uploaded media, giving its reference to the stored file back when that fails. */
+  private Media saveMedia(Media uploaded) {
+    try {
+      return mediaDao.save(uploaded);
+    } catch (RuntimeException e) {
+      mediaUploadService.release(uploaded.getUrl());
+      throw e;
+    }
+  }
+
   @Transactional
   @Override
   public Pin save(PinRequest pinRequest) {
-    if (pinRequest.file().isEmpty()) {
+    boolean hasFile = pinRequest.file() != null && !pinRequest.file().isEmpty();
+    if (!hasFile && pinRequest.mediaId() == null) {
       throw new PinIsEmptyException("A pin must have file");
     }
 
@@ -78,13 +90,10 @@ public class PinServiceImpl implements PinService {
       hashtags.add(hashtag);
     }
 
-    String filename = MediaManager.generateUniqueFilename(pinRequest.file().getOriginalFilename());
-    String extension = MediaManager.getFileExtension(pinRequest.file().getOriginalFilename());
-
-    FileManager.save(pinRequest.file(), filename, extension);
     Media media =
-        mediaDao.save(
-            Media.builder().url(filename).mediaType(MediaType.fromExtension(extension)).build());
+        hasFile
+            ? saveMedia(mediaUploadService.upload(pinRequest.file()))
+            : uploadSessionService.claim(pinRequest.mediaId());
 
     Pin pin =
         Pin.builder()
@@ -112,19 +121,9 @@ public class PinServiceImpl implements PinService {
 
     if (pinRequest.file() != null && !pinRequest.file().isEmpty()) {
       Media existingMedia = mediaDao.findById(existingPin.getMediaId());
-      String extensionOfExistingMedia = MediaManager.getFileExtension(existingMedia.getUrl());
-
-      String filename =
-          MediaManager.generateUniqueFilename(pinRequest.file().getOriginalFilename());
-      String extension = MediaManager.getFileExtension(pinRequest.file().getOriginalFilename());
-
-      CompletableFuture.runAsync(
-              () -> FileManager.delete(existingMedia.getUrl(), extensionOfExistingMedia))
-          .thenRunAsync(() -> FileManager.save(pinRequest.file(), filename, extension));
 
-      mediaDao.update(
-          existingPin.getMediaId(),
-          Media.builder().url(filename).mediaType(MediaType.fromExtension(extension)).build());
+      mediaDao.update(existingPin.getMediaId(), mediaUploadService.upload(pinRequest.file()));
+      mediaUploadService.release(existingMedia.getUrl());
     }
 
     Set<String> tagsToFind = pinRequest.hashtags();
@@ -158,6 +157,17 @@ public class PinServiceImpl implements PinService {
     return pinDao.findById(id, fetchDetails);
   }
 
+  /**
+   * Retrieves the basic details of several pins with one query.
+   *
+   * @param ids The ids of the pins to be found.
+   * @return The pins found, ordered by id. Ids without a pin are left out.
+   */
+  @Override
+  public List<Pin> findByIds(Collection<Long> ids) {
+    return pinDao.findByIds(ids);
+  }
+
   /**
    * Retrieves a list of pin associated with specific user, using both database and cache.
    *
@@ -187,8 +197,8 @@ public class PinServiceImpl implements PinService {
     }
 
     Media media = mediaDao.findById(pin.getMediaId());
-    FileManager.delete(media.getUrl(), media.getMediaType().toString());
     mediaDao.deleteById(media.getId());
+    mediaUploadService.release(media.getUrl());
 
     pinDao.deleteById(id);
   }
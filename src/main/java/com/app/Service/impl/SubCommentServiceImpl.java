@@ -7,16 +7,14 @@ import com.app.DAO.UserDao;
 import com.app.DTO.request.CreateSubCommentRequest;
 import com.app.DTO.request.UpdatedCommentRequest;
 import com.app.Model.*;
+import com.app.Service.MediaUploadService;
 import com.app.Service.SubCommentService;
 import com.app.exception.sub.CommentIsEmptyException;
 import com.app.exception.sub.CommentNotFoundException;
 import com.app.exception.sub.SubCommentNotFoundException;
 import com.app.exception.sub.UserNotMatchException;
 import com.app.message.producer.NotificationEventProducer;
-import com.app.storage.FileManager;
-import com.app.storage.MediaManager;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.Authentication;
@@ -32,6 +30,7 @@ public class SubCommentServiceImpl implements SubCommentService {
   private final CommentDao commentDao;
   private final UserDao userDao;
   private final MediaDao mediaDao;
+  private final MediaUploadService mediaUploadService;
   private final NotificationEventProducer notificationEventProducer;
 
   private User getAuthenticationUser() {
@@ -42,13 +41,7 @@ public class SubCommentServiceImpl implements SubCommentService {
   @Override
   public SubComment save(CreateSubCommentRequest request) {
 
-    String filename = MediaManager.generateUniqueFilename(request.file().getOriginalFilename());
-    String extension = MediaManager.getFileExtension(request.file().getOriginalFilename());
-
-    FileManager.save(request.file(), filename, extension);
-    Media media =
-        mediaDao.save(
-            Media.builder().url(filename).mediaType(MediaType.fromExtension(extension)).build());
+    Media media = mediaDao.save(mediaUploadService.upload(request.file()));
 
     Comment comment = commentDao.findById(request.commentId(), false);
     if (comment == null) {
@@ -95,19 +88,8 @@ public class SubCommentServiceImpl implements SubCommentService {
     }
 
     if (request.media() != null && !request.media().isEmpty()) {
-      String extensionOfMedia = MediaManager.getFileExtension(subComment.getMedia().getUrl());
-
-      String filename = MediaManager.generateUniqueFilename(request.media().getOriginalFilename());
-      String extension = MediaManager.getFileExtension(request.media().getOriginalFilename());
-
-      CompletableFuture.runAsync(
-          () ->
-              FileManager.delete(subComment.getMedia().getUrl(), extensionOfMedia)
-                  .thenRunAsync(() -> FileManager.save(request.media(), filename, extension)));
-
-      mediaDao.update(
-          subComment.getMedia().getId(),
-          Media.builder().url(filename).mediaType(MediaType.fromExtension(extension)).build());
+      mediaDao.update(subComment.getMedia().getId(), mediaUploadService.upload(request.media()));
+      mediaUploadService.release(subComment.getMedia().getUrl());
     }
 
     if (request.content() != null && !request.content().trim().isEmpty()) {
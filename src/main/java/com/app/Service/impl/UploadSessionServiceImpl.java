@@ -0,0 +1,279 @@
+package com.app.Service.impl;
+
+import com.app.DAO.MediaDao;
+import com.app.DAO.UploadSessionDao;
+import com.app.DAO.UserDao;
+import com.app.Model.Media;
+import com.app.Model.UploadSession;
+import com.app.Service.MediaUploadService;
+import com.app.Service.UploadSessionService;
+import com.app.exception.sub.MediaNotSupportException;
+import com.app.exception.sub.UploadConflictException;
+import com.app.exception.sub.UploadSessionNotFoundException;
+import com.app.storage.FileManager;
+import com.app.storage.MediaManager;
+import com.app.storage.MediaStorage;
+import com.app.storage.StagedFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Writes the chunks of a resumable upload straight into a file in the staging directory of the
+ * storage, each at its offset, so finalizing the upload commits that file without copying it.
+ * Sessions neither finalized nor used by a pin before they expire are deleted with their file.
+ */
+@Log4j2
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int CLEANUP_BATCH_SIZE = 100;
+
+  private final UploadSessionDao uploadSessionDao;
+  private final MediaDao mediaDao;
+  private final UserDao userDao;
+  private final MediaUploadService mediaUploadService;
+  private final MediaStorage mediaStorage;
+  private final long maxLength;
+  private final Duration expiration;
+
+  /** Sessions receiving a chunk or being finalized, a session takes one request at a time. */
+  private final Set<String> busy = ConcurrentHashMap.newKeySet();
+
+  public UploadSessionServiceImpl(
+      UploadSessionDao uploadSessionDao,
+      MediaDao mediaDao,
+      UserDao userDao,
+      MediaUploadService mediaUploadService,
+      MediaStorage mediaStorage,
+      @Value("${media.uploads.max-length:2GB}") DataSize maxLength,
+      @Value("${media.uploads.expiration:24h}") Duration expiration) {
+    this.uploadSessionDao = uploadSessionDao;
+    this.mediaDao = mediaDao;
+    this.userDao = userDao;
+    this.mediaUploadService = mediaUploadService;
+    this.mediaStorage = mediaStorage;
+    this.maxLength = maxLength.toBytes();
+    this.expiration = expiration;
+  }
+
+  @Override
+  public UploadSession create(long length, String filename) {
+    String extension = MediaManager.getFileExtension(filename);
+    if (!MediaManager.isValidFormat(extension)) {
+      throw new MediaNotSupportException("Media format not supported");
+    }
+    if (length <= 0 || length > maxLength) {
+      throw new MediaNotSupportException("Upload length must be between 1 and " + maxLength);
+    }
+
+    UploadSession session =
+        UploadSession.builder()
+            .id(UUID.randomUUID().toString())
+            .userId(getAuthenticatedUserId())
+            .extension(extension)
+            .length(length)
+            .build();
+    return uploadSessionDao.save(session);
+  }
+
+  @Override
+  public UploadSession findById(String id) {
+    UploadSession session = uploadSessionDao.findById(id);
+    if (!Objects.equals(session.getUserId(), getAuthenticatedUserId())) {
+      throw new UploadSessionNotFoundException("Upload not found with a id: " + id);
+    }
+    return session;
+  }
+
+  @Override
+  public UploadSession append(String id, long offset, InputStream content) {
+    UploadSession session = findById(id);
+    if (session.getMediaId() != null) {
+      throw new UploadConflictException("Upload is already finalized");
+    }
+    if (offset != session.getOffset()) {
+      throw new UploadConflictException("Upload offset is " + session.getOffset());
+    }
+
+    lock(id);
+    try {
+      long position = write(session, content);
+      if (uploadSessionDao.updateOffset(id, offset, position) == 0) {
+        throw new UploadConflictException("Upload was written concurrently");
+      }
+      session.setOffset(position);
+      return session;
+    } finally {
+      busy.remove(id);
+    }
+  }
+
+  @Transactional
+  @Override
+  public Media complete(String id) {
+    UploadSession session = findById(id);
+    if (session.getMediaId() != null) {
+      return mediaDao.findById(session.getMediaId());
+    }
+    if (session.getOffset() != session.getLength()) {
+      throw new UploadConflictException(
+          "Upload is incomplete, " + session.getOffset() + " of " + session.getLength() + " bytes");
+    }
+
+    lock(id);
+    try {
+      StagedFile staged = FileManager.identify(stagingFile(session), session.getExtension());
+      Media uploaded = mediaUploadService.upload(staged);
+      Media media;
+      try {
+        media = mediaDao.save(uploaded);
+      } catch (RuntimeException e) {
+        // The reference taken on the stored file is given back with the failed save.
+        mediaUploadService.release(uploaded.getUrl());
+        throw e;
+      }
+      if (uploadSessionDao.complete(id, media.getId()) == 0) {
+        throw new UploadConflictException("Upload is already finalized");
+      }
+      return media;
+    } catch (IOException e) {
+      log.error("Error reading upload: {}", id, e);
+      throw new RuntimeException("Error reading upload: " + e.getMessage(), e);
+    } finally {
+      busy.remove(id);
+    }
+  }
+
+  @Override
+  public Media claim(Long mediaId) {
+    if (uploadSessionDao.claim(mediaId, getAuthenticatedUserId()) == 0) {
+      throw new UploadSessionNotFoundException("No finished upload for media: " + mediaId);
+    }
+    return mediaDao.findById(mediaId);
+  }
+
+  @Override
+  public void delete(String id) {
+    UploadSession session = findById(id);
+    if (session.getMediaId() != null) {
+      throw new UploadConflictException("Upload is already finalized");
+    }
+
+    lock(id);
+    try {
+      uploadSessionDao.deleteById(id);
+      Files.deleteIfExists(stagingFile(session));
+    } catch (IOException e) {
+      log.warn("Could not delete upload file of session: {}", id, e);
+    } finally {
+      busy.remove(id);
+    }
+  }
+
+  /** Deletes expired sessions, releasing the media of those finalized but never used. */
+  @Scheduled(
+      initialDelayString = "${media.uploads.cleanup-delay-ms:3600000}",
+      fixedDelayString = "${media.uploads.cleanup-delay-ms:3600000}")
+  public void expireSessions() {
+    List<UploadSession> expired =
+        uploadSessionDao.findCreatedBefore(
+            LocalDateTime.now().minus(expiration), CLEANUP_BATCH_SIZE);
+    for (UploadSession session : expired) {
+      // Deleting the row first, a pin claiming the media in between keeps it.
+      if (busy.contains(session.getId()) || uploadSessionDao.deleteById(session.getId()) == 0) {
+        continue;
+      }
+      try {
+        if (session.getMediaId() == null) {
+          Files.deleteIfExists(stagingFile(session));
+        } else {
+          Media media = mediaDao.findById(session.getMediaId());
+          mediaDao.deleteById(media.getId());
+          mediaUploadService.release(media.getUrl());
+        }
+      } catch (IOException | RuntimeException e) {
+        log.warn("Could not clean up expired upload {}: {}", session.getId(), e.getMessage());
+      }
+    }
+    if (!expired.isEmpty()) {
+      log.info("Expired {} upload sessions", expired.size());
+    }
+  }
+
+  /** Writes the content at the offset of the session, up to its length. */
+  private long write(UploadSession session, InputStream content) {
+    long position = session.getOffset();
+    try (FileChannel channel =
+        FileChannel.open(
+            stagingFile(session), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      ReadableByteChannel input = Channels.newChannel(content);
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      while (position < session.getLength()) {
+        buffer.clear().limit((int) Math.min(BUFFER_SIZE, session.getLength() - position));
+        if (!read(session, input, buffer)) {
+          break;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          position += channel.write(buffer, position);
+        }
+      }
+      // Flushed before the offset is recorded, so a resumed upload never skips lost bytes.
+      channel.force(false);
+      return position;
+    } catch (IOException e) {
+      log.error("Error writing upload: {}", session.getId(), e);
+      throw new RuntimeException("Error writing upload: " + e.getMessage(), e);
+    }
+  }
+
+  /** Reads the next bytes of a chunk, false once it ended or the client went away. */
+  private boolean read(UploadSession session, ReadableByteChannel input, ByteBuffer buffer) {
+    try {
+      return input.read(buffer) != -1;
+    } catch (IOException e) {
+      log.info("Upload {} interrupted: {}", session.getId(), e.getMessage());
+      return false;
+    }
+  }
+
+  private Path stagingFile(UploadSession session) throws IOException {
+    return mediaStorage
+        .stagingDirectory(session.getExtension())
+        .resolve("upload-" + session.getId() + ".tmp");
+  }
+
+  private void lock(String id) {
+    if (!busy.add(id)) {
+      throw new UploadConflictException("Upload is already being written");
+    }
+  }
+
+  private Long getAuthenticatedUserId() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return userDao.findUserByUsername(authentication.getName()).getId();
+  }
+}
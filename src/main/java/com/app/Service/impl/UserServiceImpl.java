@@ -7,6 +7,7 @@ import com.app.DTO.request.LoginUserRequest;
 import com.app.DTO.request.RegisterUserRequest;
 import com.app.DTO.request.UpdateUserRequest;
 import com.app.Model.*;
+import com.app.Service.MediaUploadService;
 import com.app.Service.UserService;
 import com.app.Service.VerificationTokenService;
 import com.app.annotations.NoLogging;
@@ -14,7 +15,6 @@ import com.app.exception.sub.FileNotFoundException;
 import com.app.exception.sub.UserAlreadyExistsException;
 import com.app.exception.sub.UserNotFoundException;
 import com.app.message.producer.EmailEventProducer;
-import com.app.storage.FileManager;
 import com.app.storage.MediaManager;
 import java.time.Instant;
 import java.util.Arrays;
@@ -46,6 +46,7 @@ public class UserServiceImpl implements UserService {
   private final UserDao userDao;
   private final RoleDao roleDao;
   private final MediaDao mediaDao;
+  private final MediaUploadService mediaUploadService;
   private final VerificationTokenService verificationTokenService;
   private final PasswordEncoder passwordEncoder;
   private final AuthenticationManager authenticationManager;
@@ -172,28 +173,14 @@ public class UserServiceImpl implements UserService {
   private void saveProfilePicture(User user, MultipartFile profilePicture) {
     Media existingMedia = mediaDao.findById(user.getMedia().getId());
 
-    String filename = MediaManager.generateUniqueFilename(profilePicture.getOriginalFilename());
-    String extension = MediaManager.getFileExtension(profilePicture.getOriginalFilename());
+    Media media = mediaUploadService.upload(profilePicture);
 
-    Media media;
-
-    FileManager.save(profilePicture, filename, extension);
     if (Objects.equals(existingMedia.getUrl(), getDefaultProfilePicturePath().getUrl())) {
-      media =
-          mediaDao.save(
-              Media.builder().url(filename).mediaType(MediaType.fromExtension(extension)).build());
+      media = mediaDao.save(media);
     } else {
-      String oldExtension = MediaManager.getFileExtension(existingMedia.getUrl());
-      FileManager.delete(existingMedia.getUrl(), oldExtension);
-
-      media =
-          mediaDao.update(
-              existingMedia.getId(),
-              Media.builder()
-                  .id(existingMedia.getId())
-                  .url(filename)
-                  .mediaType(MediaType.fromExtension(extension))
-                  .build());
+      media.setId(existingMedia.getId());
+      media = mediaDao.update(existingMedia.getId(), media);
+      mediaUploadService.release(existingMedia.getUrl());
     }
     user.setMedia(media);
   }
@@ -209,7 +196,8 @@ public class UserServiceImpl implements UserService {
   }
 
   private Media getDefaultProfilePicturePath() {
-    Resource defaultProfilePic = new FileSystemResource("image/default_profile_picture.png");
+    Resource defaultProfilePic =
+        new FileSystemResource("image/" + MediaManager.DEFAULT_PROFILE_PICTURE);
     if (defaultProfilePic.exists()) {
       return Media.builder().id(1L).url(defaultProfilePic.getFilename()).build();
     } else {
@@ -48,6 +48,21 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
   }
 
+  @ExceptionHandler(UploadSessionNotFoundException.class)
+  public ResponseEntity<ErrorResponse> handleUploadSessionNotFoundException(
+      UploadSessionNotFoundException ex) {
+    ErrorResponse response =
+        new ErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND.value(), LocalDateTime.now());
+    return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+  }
+
+  @ExceptionHandler(UploadConflictException.class)
+  public ResponseEntity<ErrorResponse> handleUploadConflictException(UploadConflictException e) {
+    ErrorResponse response =
+        new ErrorResponse(e.getMessage(), HttpStatus.CONFLICT.value(), LocalDateTime.now());
+    return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+  }
+
   @ExceptionHandler(UserNotMatchException.class)
   public ResponseEntity<ErrorResponse> handleUserNotMatchException(UserNotMatchException ex) {
     ErrorResponse response =
@@ -0,0 +1,7 @@
+package com.app.exception.sub;
+
+public class UploadConflictException extends RuntimeException {
+  public UploadConflictException(String message) {
+    super(message);
+  }
+}
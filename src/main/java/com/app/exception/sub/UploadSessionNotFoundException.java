@@ -0,0 +1,7 @@
+package com.app.exception.sub;
+
+public class UploadSessionNotFoundException extends RuntimeException {
+  public UploadSessionNotFoundException(String message) {
+    super(message);
+  }
+}
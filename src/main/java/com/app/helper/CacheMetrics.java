@@ -0,0 +1,153 @@
+package com.app.helper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records how the Redis caches of the cached services perform, tagged with the cache a key belongs
+ * to: {@code cache.requests} counts reads by whether they were served from the cache, {@code
+ * cache.loads} times the loads of missing entries, {@code cache.payload.size} records the size of
+ * serialized values written and {@code cache.invalidations} counts entries evicted by changes.
+ * The near caches in front of Redis report through their own Caffeine metrics.
+ *
+ * <p>The cache of a key is its first segment, followed by its third when the second is an ID, so
+ * {@code pin:42:details} belongs to {@code pin:details}, {@code user:7:pins} to {@code user:pins}
+ * and {@code pins_hashtag:cats:limit:10:offset:0} to {@code pins_hashtag}.
+ */
+public class CacheMetrics {
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+  /** The meters of one cache. */
+  private record Meters(
+      Counter hits,
+      Counter misses,
+      Timer loads,
+      Timer failedLoads,
+      DistributionSummary payloads,
+      Counter invalidations) {}
+
+  /**
+   * Creates the instrumentation.
+   *
+   * @param meterRegistry the registry to record in
+   */
+  public CacheMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /** Records in the global registry, used when no instance is configured. */
+  public static CacheMetrics global() {
+    return new CacheMetrics(Metrics.globalRegistry);
+  }
+
+  /**
+   * Counts a read.
+   *
+   * @param key the key read
+   * @param hit whether the read was answered by the cache, including a remembered miss
+   */
+  public void request(String key, boolean hit) {
+    Meters cache = metersOf(key);
+    (hit ? cache.hits() : cache.misses()).increment();
+  }
+
+  /**
+   * Runs a load and times it.
+   *
+   * @param key the key loaded
+   * @param loader loads the entry
+   * @param <V> the entry
+   * @return the loaded entry
+   */
+  public <V> V timeLoad(String key, Supplier<V> loader) {
+    Meters cache = metersOf(key);
+    long start = System.nanoTime();
+    try {
+      V value = loader.get();
+      cache.loads().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return value;
+    } catch (RuntimeException e) {
+      cache.failedLoads().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
+  }
+
+  /**
+   * Records the size of a value written.
+   *
+   * @param key the key written
+   * @param bytes the size of the serialized value
+   */
+  public void payload(String key, int bytes) {
+    metersOf(key).payloads().record(bytes);
+  }
+
+  /**
+   * Counts an entry evicted because what it holds changed.
+   *
+   * @param key the key evicted
+   */
+  public void invalidation(String key) {
+    metersOf(key).invalidations().increment();
+  }
+
+  private Meters metersOf(String key) {
+    return meters.computeIfAbsent(cacheOf(key), this::register);
+  }
+
+  private Meters register(String cache) {
+    return new Meters(
+        requestCounter(cache, "hit"),
+        requestCounter(cache, "miss"),
+        loadTimer(cache, "success"),
+        loadTimer(cache, "failure"),
+        DistributionSummary.builder("cache.payload.size")
+            .description("Size of serialized values written to the cache")
+            .baseUnit("bytes")
+            .tag("cache", cache)
+            .publishPercentileHistogram()
+            .register(meterRegistry),
+        Counter.builder("cache.invalidations")
+            .description("Cache entries evicted by changes")
+            .tag("cache", cache)
+            .register(meterRegistry));
+  }
+
+  private Counter requestCounter(String cache, String result) {
+    return Counter.builder("cache.requests")
+        .description("Cache reads by whether they were answered without a load")
+        .tag("cache", cache)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private Timer loadTimer(String cache, String result) {
+    return Timer.builder("cache.loads")
+        .description("Loads of entries missing from the cache")
+        .tag("cache", cache)
+        .tag("result", result)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  static String cacheOf(String key) {
+    String[] segments = key.split(":", 4);
+    if (segments.length > 2 && isId(segments[1])) {
+      return segments[0] + ":" + segments[2];
+    }
+    return segments[0];
+  }
+
+  private static boolean isId(String segment) {
+    return !segment.isEmpty() && segment.chars().allMatch(Character::isDigit);
+  }
+}
@@ -1,46 +1,575 @@
 package com.app.helper;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
 
+@Log4j2
 public abstract class CachedServiceHelper<T> {
 
+  private static final String TAG_PREFIX = "tag:";
+
+  /** Tombstones of missing entities, see {@link NegativeCache}. */
+  private static final String MISSING_PREFIX = "missing:";
+
+  private static final byte[] TOMBSTONE = {1};
+
+  /**
+   * Deletes KEYS, which are tag sets and tombstones, and the keys in the tag sets. Returns the
+   * keys deleted from the sets.
+   */
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> INVALIDATE_TAGS =
+      new DefaultRedisScript<>(
+          """
+          local deleted = {}
+          for _, tag in ipairs(KEYS) do
+            if redis.call('type', tag).ok == 'set' then
+              for _, key in ipairs(redis.call('smembers', tag)) do
+                redis.call('del', key)
+                deleted[#deleted + 1] = key
+              end
+            end
+            redis.call('del', tag)
+          end
+          return deleted
+          """,
+          List.class);
+
+  /** Keeps timelines apart from the lists that were cached under the same keys before. */
+  private static final String TIMELINE_PREFIX = "timeline:";
+
+  /**
+   * Reads ranks ARGV[1] to ARGV[2] of a timeline, newest first when ARGV[3] is 1. Returns nil
+   * when the set ends before the page and does not hold the whole timeline.
+   */
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> READ_TIMELINE =
+      new DefaultRedisScript<>(
+          """
+          local complete = redis.call('exists', KEYS[2]) == 1
+          if not complete and redis.call('exists', KEYS[1]) == 0 then return false end
+          local command = ARGV[3] == '1' and 'zrevrange' or 'zrange'
+          local page = redis.call(command, KEYS[1], ARGV[1], ARGV[2])
+          if not complete and #page < tonumber(ARGV[2]) - tonumber(ARGV[1]) + 1 then
+            return false
+          end
+          return page
+          """,
+          List.class);
+
+  /**
+   * Adds a page loaded at offset ARGV[1] to a timeline unless it would leave a gap, marks the
+   * timeline complete when ARGV[3] is 1 and keeps both for ARGV[2] milliseconds. ARGV[4] on are
+   * pairs of ID and entity; an entity already held under the ID is replaced.
+   */
+  private static final RedisScript<Long> EXTEND_TIMELINE =
+      new DefaultRedisScript<>(
+          """
+          if redis.call('zcard', KEYS[1]) < tonumber(ARGV[1]) then return 0 end
+          for i = 4, #ARGV, 2 do
+            redis.call('zremrangebyscore', KEYS[1], ARGV[i], ARGV[i])
+            redis.call('zadd', KEYS[1], ARGV[i], ARGV[i + 1])
+          end
+          if ARGV[3] == '1' then redis.call('set', KEYS[2], '1') end
+          redis.call('pexpire', KEYS[1], ARGV[2])
+          redis.call('pexpire', KEYS[2], ARGV[2])
+          return 1
+          """,
+          Long.class);
+
+  /**
+   * Adds entity ARGV[3] with ID ARGV[2] to a cached timeline, which is newest first when ARGV[1]
+   * is 1. A set created by the addition expires with the complete marker.
+   */
+  private static final RedisScript<Long> ADD_TO_TIMELINE =
+      new DefaultRedisScript<>(
+          """
+          local complete = redis.call('exists', KEYS[2]) == 1
+          if not complete and (ARGV[1] == '0' or redis.call('exists', KEYS[1]) == 0) then
+            return 0
+          end
+          redis.call('zremrangebyscore', KEYS[1], ARGV[2], ARGV[2])
+          redis.call('zadd', KEYS[1], ARGV[2], ARGV[3])
+          if redis.call('pttl', KEYS[1]) < 0 then
+            redis.call('pexpire', KEYS[1], math.max(redis.call('pttl', KEYS[2]), 1))
+          end
+          return 1
+          """,
+          Long.class);
+
+  /** Replaces the entity with ID ARGV[1] of a timeline with ARGV[2], if the timeline holds it. */
+  private static final RedisScript<Long> REPLACE_IN_TIMELINE =
+      new DefaultRedisScript<>(
+          """
+          if redis.call('zremrangebyscore', KEYS[1], ARGV[1], ARGV[1]) == 0 then return 0 end
+          redis.call('zadd', KEYS[1], ARGV[1], ARGV[2])
+          return 1
+          """,
+          Long.class);
+
   protected final RedisTemplate<String, T> redisTemplate;
 
+  /** Values of single keys are also kept in process, lists are only kept in Redis. */
+  private NearCache nearCache;
+
+  private SingleFlight singleFlight = SingleFlight.local();
+
+  private EarlyRefresh earlyRefresh = EarlyRefresh.none();
+
+  private NegativeCache negativeCache = NegativeCache.none();
+
+  private CacheMetrics metrics = CacheMetrics.global();
+
   protected CachedServiceHelper(RedisTemplate<String, T> redisTemplate) {
     this.redisTemplate = redisTemplate;
   }
 
+  /**
+   * Puts a near cache in front of Redis, set by Spring on every cached service.
+   *
+   * @param nearCache the near cache, values are only cached in Redis without it
+   */
+  @Autowired(required = false)
+  public void setNearCache(NearCache nearCache) {
+    this.nearCache = nearCache;
+  }
+
+  /**
+   * Coalesces the loads of missing entries, set by Spring on every cached service.
+   *
+   * @param singleFlight the coalescing, loads are only coalesced within this node without it
+   */
+  @Autowired(required = false)
+  public void setSingleFlight(SingleFlight singleFlight) {
+    this.singleFlight = singleFlight;
+  }
+
+  /**
+   * Jitters TTLs and reloads entries before they expire, set by Spring on every cached service.
+   *
+   * @param earlyRefresh the policy, entries expire after exactly their TTL without it
+   */
+  @Autowired(required = false)
+  public void setEarlyRefresh(EarlyRefresh earlyRefresh) {
+    this.earlyRefresh = earlyRefresh;
+  }
+
+  /**
+   * Remembers reads of missing entities, set by Spring on every cached service.
+   *
+   * @param negativeCache the policy, every read of a missing entity goes to the loader without it
+   */
+  @Autowired(required = false)
+  public void setNegativeCache(NegativeCache negativeCache) {
+    this.negativeCache = negativeCache;
+  }
+
+  /**
+   * Records hits, loads, payload sizes and invalidations, set by Spring on every cached service.
+   *
+   * @param metrics the instrumentation, metrics go to the global registry without it
+   */
+  @Autowired(required = false)
+  public void setCacheMetrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Wraps a loader reporting a missing entity with an exception into one returning {@code null},
+   * so {@link #getOrLoad} can remember the miss.
+   *
+   * @param loader the loader
+   * @param missing the exception the loader throws for a missing entity
+   * @param <V> the entity
+   * @return the wrapped loader
+   */
+  protected static <V> Supplier<V> orNullIfMissing(
+      Supplier<V> loader, Class<? extends RuntimeException> missing) {
+    return () -> {
+      try {
+        return loader.get();
+      } catch (RuntimeException e) {
+        if (missing.isInstance(e)) {
+          return null;
+        }
+        throw e;
+      }
+    };
+  }
+
   // --- Value Operations ---
   protected Optional<T> get(String key) {
-    return Optional.ofNullable(redisTemplate.opsForValue().get(key));
+    T local = getNear(key);
+    if (local != null) {
+      return Optional.of(local);
+    }
+
+    Optional<T> value;
+    try {
+      value = Optional.ofNullable(redisTemplate.opsForValue().get(key));
+    } catch (SerializationException e) {
+      // Written by an older version of the class, treated as a miss and overwritten on reload.
+      log.warn("Discarding cached value of {}: {}", key, e.getMessage());
+      return Optional.empty();
+    }
+    value.ifPresent(t -> putNear(key, t));
+    return value;
   }
 
   protected void set(String key, T value, Duration ttl) {
-    redisTemplate.opsForValue().set(key, value, ttl);
+    write(key, value, ttl, List.of());
+    if (nearCache != null) {
+      nearCache.invalidate(key);
+      putNear(key, value);
+    }
   }
 
   protected boolean delete(String key) {
-    return redisTemplate.delete(key);
+    boolean deleted = redisTemplate.delete(key);
+    if (deleted) {
+      metrics.invalidation(key);
+    }
+    if (nearCache != null) {
+      nearCache.invalidate(key);
+    }
+    return deleted;
   }
 
   protected Optional<T> getOrLoad(String key, Supplier<T> supplier, Duration ttl) {
-    Optional<T> value = get(key);
-    if (value.isEmpty()) {
-      value = Optional.ofNullable(supplier.get());
-      value.ifPresent(t -> redisTemplate.opsForValue().set(key, t, ttl));
+    return getOrLoad(key, supplier, ttl, loaded -> List.of());
+  }
+
+  /**
+   * Reads a value, loading and caching it on a miss under the tags the loaded value depends on.
+   * When the loader finds nothing, the entity of the key, its first two segments as in {@code
+   * pin:42} for {@code pin:42:details}, is remembered as missing until its tag is invalidated.
+   *
+   * @param key the cache key
+   * @param supplier loads the value from the database
+   * @param ttl how long the value is cached
+   * @param tagsOf the tags of a loaded value, see {@link #invalidateTags}
+   * @return the value, empty when the loader found nothing
+   */
+  protected Optional<T> getOrLoad(
+      String key, Supplier<T> supplier, Duration ttl, Function<T, Collection<String>> tagsOf) {
+    Supplier<T> load =
+        () -> {
+          T loaded = timeLoad(key, supplier);
+          if (loaded != null) {
+            write(key, loaded, ttl, tagsOf.apply(loaded));
+            putNear(key, loaded);
+          } else {
+            markMissing(key);
+          }
+          return loaded;
+        };
+
+    Optional<T> value = earlyRefresh.isEnabled() ? getRefreshing(key, load) : get(key);
+    boolean hit = value.isPresent() || isMarkedMissing(key);
+    metrics.request(key, hit);
+    if (hit) {
+      return value;
+    }
+    return Optional.ofNullable(singleFlight.load(key, () -> get(key).orElse(null), load));
+  }
+
+  /** Reads a value like {@link #get}, reloading it in the background when it expires soon. */
+  @SuppressWarnings("unchecked")
+  private Optional<T> getRefreshing(String key, Supplier<T> load) {
+    T local = getNear(key);
+    if (local != null) {
+      return Optional.of(local);
+    }
+
+    List<Object> results;
+    try {
+      results = withExpiry(key, operations -> operations.opsForValue().get(key));
+    } catch (SerializationException e) {
+      log.warn("Discarding cached value of {}: {}", key, e.getMessage());
+      return Optional.empty();
+    }
+    T value = (T) results.get(0);
+    if (value == null) {
+      return Optional.empty();
+    }
+    putNear(key, value);
+    earlyRefresh.refreshIfDue(
+        key, (Long) results.get(1), () -> singleFlight.load(key, () -> value, load));
+    return Optional.of(value);
+  }
+
+  /** Writes a value and registers it under its tags in one round trip. */
+  private void write(String key, T value, Duration ttl, Collection<String> tags) {
+    byte[] raw = serialize(key, value);
+    Expiration expiration = Expiration.from(earlyRefresh.jitter(ttl));
+    redisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              connection
+                  .stringCommands()
+                  .set(key.getBytes(StandardCharsets.UTF_8), raw, expiration, SetOption.upsert());
+              tag(connection, key, tags, ttl);
+              return null;
+            });
+  }
+
+  private void markMissing(String key) {
+    if (!negativeCache.isEnabled()) {
+      return;
+    }
+    byte[] tombstone = (MISSING_PREFIX + entityOf(key)).getBytes(StandardCharsets.UTF_8);
+    redisTemplate.execute(
+        (RedisCallback<Boolean>)
+            connection ->
+                connection
+                    .stringCommands()
+                    .set(
+                        tombstone,
+                        TOMBSTONE,
+                        Expiration.from(negativeCache.ttl()),
+                        SetOption.upsert()));
+  }
+
+  private boolean isMarkedMissing(String key) {
+    if (!negativeCache.isEnabled()
+        || !Boolean.TRUE.equals(redisTemplate.hasKey(MISSING_PREFIX + entityOf(key)))) {
+      return false;
+    }
+    negativeCache.hit();
+    return true;
+  }
+
+  private static String entityOf(String key) {
+    int first = key.indexOf(':');
+    int second = first < 0 ? -1 : key.indexOf(':', first + 1);
+    return second < 0 ? key : key.substring(0, second);
+  }
+
+  /** Runs a read and the remaining TTL of its key in one round trip. */
+  @SuppressWarnings("unchecked")
+  private List<Object> withExpiry(String key, Consumer<RedisOperations<String, T>> read) {
+    return redisTemplate.executePipelined(
+        new SessionCallback<>() {
+          @Override
+          public <K, V> Object execute(RedisOperations<K, V> operations) {
+            read.accept((RedisOperations<String, T>) operations);
+            operations.getExpire((K) key, TimeUnit.MILLISECONDS);
+            return null;
+          }
+        });
+  }
+
+  /**
+   * Reads a value from the near cache. Values are kept serialized there and read back as a new
+   * copy, so a caller modifying its entity cannot change what the next caller reads.
+   */
+  private T getNear(String key) {
+    if (nearCache == null || !(nearCache.get(key) instanceof byte[] raw)) {
+      return null;
+    }
+    return valueSerializer().deserialize(raw);
+  }
+
+  private void putNear(String key, T value) {
+    if (nearCache != null) {
+      nearCache.put(key, valueSerializer().serialize(value));
+    }
+  }
+
+  // --- Multi-Value Operations ---
+
+  /**
+   * Reads the entities of several IDs with one {@code MGET}, loading the ones not cached with a
+   * single call of the loader and caching them in one pipeline, instead of a round trip and a
+   * query per ID. Entities remembered as missing are neither returned nor loaded, and IDs the
+   * loader leaves out are remembered as missing.
+   *
+   * @param ids the IDs to read
+   * @param keyOf the cache key of an ID
+   * @param idOf the ID of a loaded entity
+   * @param loader loads the entities of the given IDs, leaving out the ones that do not exist
+   * @param ttl how long loaded entities are cached
+   * @param tagsOf the tags of a loaded entity, see {@link #invalidateTags}
+   * @param <K> the ID
+   * @return the entities found by their ID, in the order of {@code ids}
+   */
+  protected <K> Map<K, T> getAllOrLoad(
+      Collection<K> ids,
+      Function<K, String> keyOf,
+      Function<T, K> idOf,
+      Function<Collection<K>, Collection<T>> loader,
+      Duration ttl,
+      Function<T, Collection<String>> tagsOf) {
+    Map<K, T> found = new HashMap<>();
+    List<K> remote = new ArrayList<>();
+    for (K id : new LinkedHashSet<>(ids)) {
+      T local = getNear(keyOf.apply(id));
+      if (local != null) {
+        found.put(id, local);
+      } else {
+        remote.add(id);
+      }
+    }
+
+    List<K> missing = getAll(remote, keyOf, found);
+    Set<K> loading = new HashSet<>(missing);
+    for (K id : new LinkedHashSet<>(ids)) {
+      metrics.request(keyOf.apply(id), !loading.contains(id));
+    }
+    if (!missing.isEmpty()) {
+      Map<K, T> loaded = new HashMap<>();
+      for (T entity : timeLoad(keyOf.apply(missing.getFirst()), () -> loader.apply(missing))) {
+        loaded.put(idOf.apply(entity), entity);
+      }
+      setAll(missing, keyOf, loaded, ttl, tagsOf);
+      found.putAll(loaded);
+    }
+
+    Map<K, T> result = new LinkedHashMap<>();
+    for (K id : ids) {
+      T value = found.get(id);
+      if (value != null) {
+        result.put(id, value);
+      }
+    }
+    return result;
+  }
+
+  /** Reads IDs from Redis into {@code found}, returns the IDs neither cached nor missing. */
+  @SuppressWarnings("unchecked")
+  private <K> List<K> getAll(List<K> ids, Function<K, String> keyOf, Map<K, T> found) {
+    if (ids.isEmpty()) {
+      return ids;
+    }
+    List<String> keys = ids.stream().map(keyOf).toList();
+    // Raw results, a multi get with a miss first would not be deserialized by the template.
+    List<Object> results =
+        redisTemplate.executePipelined(
+            (RedisCallback<Object>)
+                connection -> {
+                  connection
+                      .stringCommands()
+                      .mGet(
+                          keys.stream()
+                              .map(key -> key.getBytes(StandardCharsets.UTF_8))
+                              .toArray(byte[][]::new));
+                  if (negativeCache.isEnabled()) {
+                    for (String key : keys) {
+                      byte[] tombstone =
+                          (MISSING_PREFIX + entityOf(key)).getBytes(StandardCharsets.UTF_8);
+                      connection.keyCommands().exists(tombstone);
+                    }
+                  }
+                  return null;
+                },
+            null);
+
+    List<byte[]> values = (List<byte[]>) results.get(0);
+    List<K> missing = new ArrayList<>();
+    for (int i = 0; i < ids.size(); i++) {
+      T value = deserialize(keys.get(i), values.get(i));
+      if (value != null) {
+        found.put(ids.get(i), value);
+        putNear(keys.get(i), value);
+      } else if (negativeCache.isEnabled() && Boolean.TRUE.equals(results.get(i + 1))) {
+        negativeCache.hit();
+      } else {
+        missing.add(ids.get(i));
+      }
+    }
+    return missing;
+  }
+
+  /** Caches loaded entities and remembers the IDs the loader left out as missing. */
+  private <K> void setAll(
+      List<K> ids,
+      Function<K, String> keyOf,
+      Map<K, T> loaded,
+      Duration ttl,
+      Function<T, Collection<String>> tagsOf) {
+    redisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              for (K id : ids) {
+                String key = keyOf.apply(id);
+                T value = loaded.get(id);
+                if (value != null) {
+                  connection
+                      .stringCommands()
+                      .set(
+                          key.getBytes(StandardCharsets.UTF_8),
+                          serialize(key, value),
+                          Expiration.from(earlyRefresh.jitter(ttl)),
+                          SetOption.upsert());
+                  tag(connection, key, tagsOf.apply(value), ttl);
+                } else if (negativeCache.isEnabled()) {
+                  connection
+                      .stringCommands()
+                      .set(
+                          (MISSING_PREFIX + entityOf(key)).getBytes(StandardCharsets.UTF_8),
+                          TOMBSTONE,
+                          Expiration.from(negativeCache.ttl()),
+                          SetOption.upsert());
+                }
+              }
+              return null;
+            });
+    loaded.forEach((id, value) -> putNear(keyOf.apply(id), value));
+  }
+
+  private T deserialize(String key, byte[] value) {
+    try {
+      return valueSerializer().deserialize(value);
+    } catch (SerializationException e) {
+      log.warn("Discarding cached value of {}: {}", key, e.getMessage());
+      return null;
     }
-    return value;
   }
 
   // --- List Operations ---
 
   protected void pushToList(String key, List<T> value, Duration ttl) {
-    redisTemplate.opsForList().rightPushAll(key, value);
-    redisTemplate.expire(key, ttl);
+    byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+    byte[][] rawValues =
+        value.stream().map(entity -> serialize(key, entity)).toArray(byte[][]::new);
+    long millis = earlyRefresh.jitter(ttl).toMillis();
+    redisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              connection.listCommands().rPush(rawKey, rawValues);
+              connection.keyCommands().pExpire(rawKey, millis);
+              return null;
+            });
   }
 
   protected List<T> getListRange(String key, int limit, int offset) {
@@ -53,13 +582,342 @@ public abstract class CachedServiceHelper<T> {
 
   protected List<T> getListOrLoad(
       String key, Supplier<List<T>> suppliers, int limit, int offset, Duration ttl) {
-    List<T> value = getListRange(key, limit, offset);
-    if (value.isEmpty()) {
-      value = suppliers.get();
+    return getListOrLoad(key, suppliers, limit, offset, ttl, loaded -> List.of());
+  }
+
+  /**
+   * Reads a page of a list, loading and caching it on a miss under the tags the loaded entities
+   * depend on. Each page is cached under its own key, so the key must identify the page; feeds
+   * paged through by readers belong in a timeline, see {@link #getTimelineOrLoad}.
+   *
+   * @param key the key of the page
+   * @param suppliers loads the page from the database
+   * @param limit the page size
+   * @param offset the number of entities before the page, which only tells pages apart
+   * @param ttl how long the list is cached
+   * @param tagsOf the tags of a loaded page, see {@link #invalidateTags}
+   * @return the page
+   */
+  @SuppressWarnings("unchecked")
+  protected List<T> getListOrLoad(
+      String key,
+      Supplier<List<T>> suppliers,
+      int limit,
+      int offset,
+      Duration ttl,
+      Function<List<T>, Collection<String>> tagsOf) {
+    // Pages of the same list are loaded separately.
+    String flightKey = key + ":limit:" + limit + ":offset:" + offset;
+    Supplier<List<T>> lookup =
+        () -> {
+          List<T> cached = getListRange(key, limit, 0);
+          return cached.isEmpty() ? null : cached;
+        };
+
+    List<T> value;
+    if (earlyRefresh.isEnabled()) {
+      List<Object> results =
+          withExpiry(key, operations -> operations.opsForList().range(key, 0, limit - 1));
+      value = (List<T>) results.get(0);
       if (!value.isEmpty()) {
-        pushToList(key, value, ttl);
+        earlyRefresh.refreshIfDue(
+            key,
+            (Long) results.get(1),
+            () ->
+                singleFlight.load(flightKey, lookup, () -> loadList(key, suppliers, ttl, tagsOf)));
       }
+    } else {
+      value = getListRange(key, limit, 0);
     }
-    return value;
+    metrics.request(key, !value.isEmpty());
+    if (!value.isEmpty()) {
+      return value;
+    }
+    return singleFlight.load(flightKey, lookup, () -> loadList(key, suppliers, ttl, tagsOf));
+  }
+
+  /**
+   * Loads a page and replaces the cached one at once, so a reload after a lost lease or a refresh
+   * never appends the page to itself.
+   */
+  private List<T> loadList(
+      String key,
+      Supplier<List<T>> suppliers,
+      Duration ttl,
+      Function<List<T>, Collection<String>> tagsOf) {
+    List<T> loaded = timeLoad(key, suppliers);
+    if (loaded.isEmpty()) {
+      return loaded;
+    }
+    tag(key, tagsOf.apply(loaded), ttl);
+    String staging = key + ":refresh:" + UUID.randomUUID();
+    pushToList(staging, loaded, ttl);
+    redisTemplate.rename(staging, key);
+    return loaded;
+  }
+
+  // --- Tag Operations ---
+
+  /**
+   * Deletes every key cached under the given tags, on all nodes, in one round trip. Keys are
+   * registered under tags as they are loaded, e.g. a pin and every page listing it under {@code
+   * pin:<id>}, so a change invalidates exactly the entries depending on it. An entity remembered
+   * as missing is forgotten with its tag.
+   *
+   * @param tags the tags of the changed entities
+   */
+  protected void invalidateTags(String... tags) {
+    invalidateTags(List.of(tags));
+  }
+
+  /**
+   * Deletes every key cached under the given tags, see {@link #invalidateTags(String...)}.
+   *
+   * @param tags the tags of the changed entities
+   */
+  @SuppressWarnings("unchecked")
+  protected void invalidateTags(Collection<String> tags) {
+    if (tags.isEmpty()) {
+      return;
+    }
+    List<String> keys =
+        redisTemplate.execute(
+            INVALIDATE_TAGS,
+            RedisSerializer.byteArray(),
+            resultSerializer(RedisSerializer.string()),
+            tags.stream()
+                .flatMap(tag -> Stream.of(TAG_PREFIX + tag, MISSING_PREFIX + tag))
+                .toList());
+    if (keys == null) {
+      return;
+    }
+    keys.forEach(metrics::invalidation);
+    if (nearCache != null) {
+      nearCache.invalidate(keys);
+    }
+  }
+
+  private void tag(String key, Collection<String> tags, Duration ttl) {
+    if (tags.isEmpty()) {
+      return;
+    }
+    redisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              tag(connection, key, tags, ttl);
+              return null;
+            });
+  }
+
+  /** Registers a key under tags, which are kept twice as long as the key to outlive its jitter. */
+  private static void tag(
+      RedisConnection connection, String key, Collection<String> tags, Duration ttl) {
+    byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+    long seconds = ttl.multipliedBy(2).toSeconds();
+    for (String tag : tags) {
+      byte[] rawTag = (TAG_PREFIX + tag).getBytes(StandardCharsets.UTF_8);
+      connection.setCommands().sAdd(rawTag, rawKey);
+      connection.keyCommands().expire(rawTag, seconds);
+    }
+  }
+
+  // --- Timeline Operations ---
+
+  /**
+   * Reads a page of a timeline, falling back to the loader when the page is not cached.
+   *
+   * <p>A timeline is cached as a sorted set of its entities scored by their ID, which grows in
+   * the same order as their creation time. The set holds the timeline from its first entry on
+   * without gaps: loaded pages extend it when they start within it, created entities are added as
+   * they are saved, and a {@code :complete} marker records that it holds the whole timeline. So
+   * any page within the set is served from Redis, however far the reader pages.
+   *
+   * @param key the key of the timeline
+   * @param newestFirst whether the timeline lists the newest entities first
+   * @param idOf the ID of an entity
+   * @param suppliers loads the requested page from the database
+   * @param limit the page size
+   * @param offset the number of entities before the page
+   * @param ttl how long the timeline is kept after it was last extended
+   * @return the page
+   */
+  protected List<T> getTimelineOrLoad(
+      String key,
+      boolean newestFirst,
+      ToLongFunction<T> idOf,
+      Supplier<List<T>> suppliers,
+      int limit,
+      int offset,
+      Duration ttl) {
+    return getTimelineOrLoad(
+        key, newestFirst, idOf, suppliers, limit, offset, ttl, loaded -> List.of());
+  }
+
+  /**
+   * Reads a page of a timeline like {@link #getTimelineOrLoad(String, boolean, ToLongFunction,
+   * Supplier, int, int, Duration)}, registering the timeline under the tags of each loaded page, so
+   * invalidating any of them drops the whole timeline.
+   *
+   * @param key the key of the timeline
+   * @param newestFirst whether the timeline lists the newest entities first
+   * @param idOf the ID of an entity
+   * @param suppliers loads the requested page from the database
+   * @param limit the page size
+   * @param offset the number of entities before the page
+   * @param ttl how long the timeline is kept after it was last extended
+   * @param tagsOf the tags of a loaded page
+   * @return the page
+   */
+  protected List<T> getTimelineOrLoad(
+      String key,
+      boolean newestFirst,
+      ToLongFunction<T> idOf,
+      Supplier<List<T>> suppliers,
+      int limit,
+      int offset,
+      Duration ttl,
+      Function<List<T>, Collection<String>> tagsOf) {
+    List<T> cached = readTimeline(key, newestFirst, limit, offset);
+    metrics.request(key, cached != null);
+    if (cached != null) {
+      return cached;
+    }
+    return singleFlight.load(
+        key + ":limit:" + limit + ":offset:" + offset,
+        () -> readTimeline(key, newestFirst, limit, offset),
+        () -> {
+          List<T> loaded = timeLoad(key, suppliers);
+          List<Object> args = new ArrayList<>();
+          args.add(argOf(offset));
+          args.add(argOf(earlyRefresh.jitter(ttl).toMillis()));
+          args.add(argOf(loaded.size() < limit));
+          for (T entity : loaded) {
+            args.add(argOf(idOf.applyAsLong(entity)));
+            args.add(serialize(key, entity));
+          }
+          Long extended = runScript(EXTEND_TIMELINE, key, args.toArray());
+          if (Long.valueOf(1).equals(extended)) {
+            tagTimeline(key, tagsOf.apply(loaded), ttl);
+          }
+          return loaded;
+        });
+  }
+
+  /**
+   * Adds a created entity to a cached timeline. A timeline listing the newest entities first
+   * gets it at its start, one listing the oldest first only when the whole timeline is cached.
+   *
+   * @param key the key of the timeline
+   * @param newestFirst whether the timeline lists the newest entities first
+   * @param id the ID of the entity
+   * @param entity the entity, as the loaded pages of the timeline list it
+   */
+  protected void addToTimeline(String key, boolean newestFirst, long id, T entity) {
+    runScript(
+        ADD_TO_TIMELINE,
+        key,
+        argOf(newestFirst),
+        argOf(id),
+        serialize(key, entity));
+  }
+
+  /**
+   * Replaces a changed entity in a cached timeline, if the timeline holds it.
+   *
+   * @param key the key of the timeline
+   * @param id the ID of the entity
+   * @param entity the changed entity, as the loaded pages of the timeline list it
+   */
+  protected void replaceInTimeline(String key, long id, T entity) {
+    runScript(REPLACE_IN_TIMELINE, key, argOf(id), serialize(key, entity));
+  }
+
+  /**
+   * Removes a deleted entity from a cached timeline.
+   *
+   * @param key the key of the timeline
+   * @param id the ID of the entity
+   */
+  protected void removeFromTimeline(String key, long id) {
+    redisTemplate.opsForZSet().removeRangeByScore(TIMELINE_PREFIX + key, id, id);
+  }
+
+  /**
+   * Registers a cached timeline under tags, so invalidating any of them drops the whole timeline.
+   * Used for entities put into a timeline that embed other entities.
+   *
+   * @param key the key of the timeline
+   * @param tags the tags
+   * @param ttl how long the timeline is kept after it was last extended
+   */
+  protected void tagTimeline(String key, Collection<String> tags, Duration ttl) {
+    if (tags.isEmpty()) {
+      return;
+    }
+    redisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              tag(connection, TIMELINE_PREFIX + key, tags, ttl);
+              tag(connection, TIMELINE_PREFIX + key + ":complete", tags, ttl);
+              return null;
+            });
+  }
+
+  /** Reads a page of a cached timeline, null when the set does not reach the page. */
+  @SuppressWarnings("unchecked")
+  private List<T> readTimeline(String key, boolean newestFirst, int limit, int offset) {
+    try {
+      return (List<T>)
+          runScript(
+              READ_TIMELINE, key, argOf(offset), argOf(offset + limit - 1), argOf(newestFirst));
+    } catch (SerializationException e) {
+      log.warn("Discarding cached timeline {}: {}", key, e.getMessage());
+      redisTemplate.delete(List.of(TIMELINE_PREFIX + key, TIMELINE_PREFIX + key + ":complete"));
+      return null;
+    }
+  }
+
+  private <R> R runScript(RedisScript<R> script, String key, Object... args) {
+    return redisTemplate.execute(
+        script,
+        RedisSerializer.byteArray(),
+        resultSerializer(valueSerializer()),
+        List.of(TIMELINE_PREFIX + key, TIMELINE_PREFIX + key + ":complete"),
+        args);
+  }
+
+  /**
+   * Reads the result of a script with a serializer of its elements, as scripts returning several
+   * values are declared with a raw {@link List} result.
+   */
+  @SuppressWarnings("unchecked")
+  private static <R> RedisSerializer<R> resultSerializer(RedisSerializer<?> serializer) {
+    return (RedisSerializer<R>) serializer;
+  }
+
+  /** Runs a load, timing it for the metrics and for early refreshes. */
+  private <V> V timeLoad(String key, Supplier<V> loader) {
+    return metrics.timeLoad(key, () -> earlyRefresh.timeLoad(key, loader));
+  }
+
+  /** Serializes a value to be written, recording its size. */
+  private byte[] serialize(String key, T value) {
+    byte[] raw = valueSerializer().serialize(value);
+    if (raw != null) {
+      metrics.payload(key, raw.length);
+    }
+    return raw;
+  }
+
+  @SuppressWarnings("unchecked")
+  private RedisSerializer<T> valueSerializer() {
+    return (RedisSerializer<T>) redisTemplate.getValueSerializer();
+  }
+
+  private static byte[] argOf(Object value) {
+    if (value instanceof Boolean flag) {
+      value = flag ? 1 : 0;
+    }
+    return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
   }
 }
@@ -0,0 +1,136 @@
+package com.app.helper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Spreads out the expiry of cached entries. TTLs get a random jitter, so keys written together do
+ * not expire together, and a read close to the expiry of its entry may reload it in the background
+ * while the current value is still served.
+ *
+ * <p>Whether to reload follows XFetch: an entry is reloaded when {@code -delta * beta * ln(random)}
+ * reaches its remaining TTL, where {@code delta} is how long a load takes. Reloads get likelier
+ * the closer the expiry and the slower the load, and a larger {@code beta} starts them earlier.
+ * Load times are averaged per key prefix, the part of the key before the first {@code :}.
+ */
+@Log4j2
+public class EarlyRefresh {
+
+  private final double beta;
+  private final double jitter;
+  private final Executor executor;
+  private final Map<String, Long> loadNanos = new ConcurrentHashMap<>();
+  private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+  private final Counter refreshes;
+
+  /**
+   * Creates the policy.
+   *
+   * @param meterRegistry the registry early reloads are counted in
+   * @param beta how early entries are reloaded, 0 to only reload expired entries
+   * @param jitter the fraction a TTL is randomly shortened or lengthened by
+   * @param executor runs the reloads
+   */
+  public EarlyRefresh(MeterRegistry meterRegistry, double beta, double jitter, Executor executor) {
+    this.beta = beta;
+    this.jitter = jitter;
+    this.executor = executor;
+    this.refreshes =
+        Counter.builder("cache.refresh.early")
+            .description("Cache entries reloaded before they expired")
+            .register(meterRegistry);
+  }
+
+  /** Neither jitters TTLs nor reloads early, used when no instance is configured. */
+  public static EarlyRefresh none() {
+    return new EarlyRefresh(Metrics.globalRegistry, 0, 0, Runnable::run);
+  }
+
+  /** Whether reads have to look at the remaining TTL of their entry. */
+  public boolean isEnabled() {
+    return beta > 0;
+  }
+
+  /**
+   * Randomizes a TTL within the jitter.
+   *
+   * @param ttl the TTL requested by the caller
+   * @return the TTL to write the entry with
+   */
+  public Duration jitter(Duration ttl) {
+    long spread = (long) (ttl.toMillis() * jitter);
+    if (spread <= 0) {
+      return ttl;
+    }
+    return ttl.plusMillis(ThreadLocalRandom.current().nextLong(-spread, spread + 1));
+  }
+
+  /**
+   * Runs a load and records how long it took.
+   *
+   * @param key the key loaded
+   * @param loader loads the entry
+   * @param <V> the entry
+   * @return the loaded entry
+   */
+  public <V> V timeLoad(String key, Supplier<V> loader) {
+    long start = System.nanoTime();
+    V value = loader.get();
+    long elapsed = System.nanoTime() - start;
+    loadNanos.merge(prefixOf(key), elapsed, (average, latest) -> average + (latest - average) / 4);
+    return value;
+  }
+
+  /**
+   * Reloads an entry in the background when its expiry is close enough, at most once at a time
+   * per key.
+   *
+   * @param key the key read
+   * @param ttlMillis the remaining TTL of the entry in milliseconds, negative when it has none
+   * @param reload reloads the entry and stores it in the cache
+   */
+  public void refreshIfDue(String key, long ttlMillis, Runnable reload) {
+    if (!isDue(key, ttlMillis) || !refreshing.add(key)) {
+      return;
+    }
+    refreshes.increment();
+    try {
+      executor.execute(
+          () -> {
+            try {
+              reload.run();
+            } catch (RuntimeException e) {
+              log.warn("Could not refresh cache entry {}: {}", key, e.getMessage());
+            } finally {
+              refreshing.remove(key);
+            }
+          });
+    } catch (RuntimeException e) {
+      refreshing.remove(key);
+      log.warn("Could not schedule refresh of cache entry {}: {}", key, e.getMessage());
+    }
+  }
+
+  boolean isDue(String key, long ttlMillis) {
+    Long delta = loadNanos.get(prefixOf(key));
+    if (beta <= 0 || ttlMillis < 0 || delta == null) {
+      return false;
+    }
+    double random = 1 - ThreadLocalRandom.current().nextDouble();
+    return -delta / 1_000_000.0 * beta * Math.log(random) >= ttlMillis;
+  }
+
+  private static String prefixOf(String key) {
+    int separator = key.indexOf(':');
+    return separator < 0 ? key : key.substring(0, separator);
+  }
+}
@@ -0,0 +1,142 @@
+package com.app.helper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * In-process cache in front of Redis for the cached services. Entries are kept per key prefix, the
+ * part of the key before the first {@code :}, each prefix in its own Caffeine cache sized with
+ * {@code cache.near.<prefix>.max-size} and expiring after {@code cache.near.<prefix>.ttl}.
+ *
+ * <p>Writes and deletes are announced on a Redis channel so every other node drops its copy; the
+ * TTL bounds how long a node serves a value whose announcement it missed. Cached values are shared
+ * between requests, so mutable entities are cached in their serialized form and read back as a
+ * new copy on every hit.
+ */
+@Log4j2
+public class NearCache {
+
+  /** Channel keys written or deleted on one node are announced on. */
+  public static final String CHANNEL = "cache:invalidate";
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Map<String, Cache<String, Object>> caches = new ConcurrentHashMap<>();
+  private final StringRedisTemplate redisTemplate;
+  private final Environment environment;
+  private final MeterRegistry meterRegistry;
+  private final long defaultMaxSize;
+  private final Duration defaultTtl;
+
+  public NearCache(
+      StringRedisTemplate redisTemplate,
+      Environment environment,
+      MeterRegistry meterRegistry,
+      long defaultMaxSize,
+      Duration defaultTtl) {
+    this.redisTemplate = redisTemplate;
+    this.environment = environment;
+    this.meterRegistry = meterRegistry;
+    this.defaultMaxSize = defaultMaxSize;
+    this.defaultTtl = defaultTtl;
+  }
+
+  /**
+   * Looks up a value cached on this node.
+   *
+   * @param key the cache key
+   * @return the value, or null on a miss
+   */
+  public Object get(String key) {
+    return cacheOf(key).getIfPresent(key);
+  }
+
+  /**
+   * Caches a value read from or written to Redis on this node.
+   *
+   * @param key the cache key
+   * @param value the value
+   */
+  public void put(String key, Object value) {
+    cacheOf(key).put(key, value);
+  }
+
+  /**
+   * Drops a key on this node and announces it, so the other nodes drop it as well.
+   *
+   * @param key the cache key written or deleted, a trailing {@code *} drops every key it prefixes
+   */
+  public void invalidate(String key) {
+    invalidate(List.of(key));
+  }
+
+  /**
+   * Drops keys on this node and announces them together in one message.
+   *
+   * @param keys the cache keys written or deleted, see {@link #invalidate(String)}
+   */
+  public void invalidate(Collection<String> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    keys.forEach(this::drop);
+    try {
+      redisTemplate.convertAndSend(CHANNEL, nodeId + " " + String.join("\n", keys));
+    } catch (RuntimeException e) {
+      // The other nodes serve the old values until they expire.
+      log.warn("Could not announce invalidation of {} keys: {}", keys.size(), e.getMessage());
+    }
+  }
+
+  /**
+   * Handles an announcement of another node.
+   *
+   * @param message the announcement, the node ID and the keys separated by a space, the keys one
+   *     per line
+   */
+  public void onInvalidation(String message) {
+    int separator = message.indexOf(' ');
+    if (separator < 0 || message.substring(0, separator).equals(nodeId)) {
+      return;
+    }
+    message.substring(separator + 1).lines().forEach(this::drop);
+  }
+
+  /** Drops a key, or every key starting with the text before the {@code *} of a pattern. */
+  private void drop(String key) {
+    int wildcard = key.indexOf('*');
+    if (wildcard < 0) {
+      cacheOf(key).invalidate(key);
+      return;
+    }
+    String stem = key.substring(0, wildcard);
+    cacheOf(key).asMap().keySet().removeIf(cached -> cached.startsWith(stem));
+  }
+
+  private Cache<String, Object> cacheOf(String key) {
+    int separator = key.indexOf(':');
+    String prefix = separator < 0 ? key : key.substring(0, separator);
+    return caches.computeIfAbsent(prefix, this::createCache);
+  }
+
+  private Cache<String, Object> createCache(String prefix) {
+    long maxSize =
+        environment.getProperty("cache.near." + prefix + ".max-size", Long.class, defaultMaxSize);
+    Duration ttl =
+        environment.getProperty("cache.near." + prefix + ".ttl", Duration.class, defaultTtl);
+    Cache<String, Object> cache =
+        Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "near." + prefix);
+    return cache;
+  }
+}
@@ -0,0 +1,52 @@
+package com.app.helper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.time.Duration;
+
+/**
+ * Remembers for a short time that an entity does not exist, so repeated reads of a missing or
+ * deleted ID are answered by Redis instead of the database. A miss is kept as a tombstone next to
+ * the key that was read and is dropped with the other entries of its entity, so creating the
+ * entity under a remembered ID makes it visible at once.
+ */
+public class NegativeCache {
+
+  private final Duration ttl;
+  private final Counter hits;
+
+  /**
+   * Creates the policy.
+   *
+   * @param meterRegistry the registry reads answered by a tombstone are counted in
+   * @param ttl how long a miss is remembered, zero to not remember misses
+   */
+  public NegativeCache(MeterRegistry meterRegistry, Duration ttl) {
+    this.ttl = ttl;
+    this.hits =
+        Counter.builder("cache.negative.hits")
+            .description("Reads of missing entities answered by a cached miss")
+            .register(meterRegistry);
+  }
+
+  /** Does not remember misses, used when no instance is configured. */
+  public static NegativeCache none() {
+    return new NegativeCache(Metrics.globalRegistry, Duration.ZERO);
+  }
+
+  /** Whether misses are remembered. */
+  public boolean isEnabled() {
+    return ttl.isPositive();
+  }
+
+  /** How long a miss is remembered. */
+  public Duration ttl() {
+    return ttl;
+  }
+
+  /** Counts a read answered by a tombstone. */
+  public void hit() {
+    hits.increment();
+  }
+}
@@ -0,0 +1,176 @@
+package com.app.helper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Lets one caller per key load a missing cache entry while the others wait for its result, so an
+ * expired hot key costs one database query instead of one per concurrent request.
+ *
+ * <p>Callers on the same node share the loader's result directly. With a lease, the loader also
+ * takes a short Redis lock on the key; callers on other nodes then poll the cache until the entry
+ * appears and only load themselves when the lease runs out first, which covers a loader that died.
+ */
+@Log4j2
+public class SingleFlight {
+
+  private static final RedisScript<Long> RELEASE =
+      new DefaultRedisScript<>(
+          "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end"
+              + " return 0",
+          Long.class);
+
+  private final Map<String, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+  private final String nodeId = UUID.randomUUID().toString();
+  private final StringRedisTemplate redisTemplate;
+  private final Duration lease;
+  private final Duration pollInterval;
+  private final Counter localWaits;
+  private final Counter remoteWaits;
+  private final Timer waitTime;
+
+  /**
+   * Creates the coalescing of loads.
+   *
+   * @param meterRegistry the registry coalesced waits are counted in
+   * @param redisTemplate the Redis the lease is taken in, null to coalesce within this node only
+   * @param lease how long a loader holds the lock on a key, zero to coalesce within this node only
+   * @param pollInterval how often callers of other nodes look for the loaded entry
+   */
+  public SingleFlight(
+      MeterRegistry meterRegistry,
+      StringRedisTemplate redisTemplate,
+      Duration lease,
+      Duration pollInterval) {
+    this.redisTemplate = lease.isPositive() ? redisTemplate : null;
+    this.lease = lease;
+    this.pollInterval = pollInterval;
+    this.localWaits =
+        Counter.builder("cache.load.coalesced")
+            .description("Cache misses that waited for a load of the same key")
+            .tag("scope", "local")
+            .register(meterRegistry);
+    this.remoteWaits =
+        Counter.builder("cache.load.coalesced")
+            .description("Cache misses that waited for a load of the same key")
+            .tag("scope", "remote")
+            .register(meterRegistry);
+    this.waitTime =
+        Timer.builder("cache.load.wait")
+            .description("Time cache misses waited for a load of the same key")
+            .register(meterRegistry);
+  }
+
+  /** Coalesces loads within this node only, used when no instance is configured. */
+  public static SingleFlight local() {
+    return new SingleFlight(Metrics.globalRegistry, null, Duration.ZERO, Duration.ZERO);
+  }
+
+  /**
+   * Loads a missing entry once per key.
+   *
+   * @param key the cache key, or the key and page of a list
+   * @param lookup reads the entry from the cache, null when it is still missing
+   * @param loader loads the entry and stores it in the cache
+   * @param <V> the entry
+   * @return the entry, null when the loader found nothing
+   */
+  @SuppressWarnings("unchecked")
+  public <V> V load(String key, Supplier<V> lookup, Supplier<V> loader) {
+    CompletableFuture<Object> flight = new CompletableFuture<>();
+    CompletableFuture<Object> running = flights.putIfAbsent(key, flight);
+    if (running != null) {
+      localWaits.increment();
+      return (V) waitTime.record(() -> join(running));
+    }
+
+    try {
+      V value = redisTemplate == null ? loader.get() : loadLeased(key, lookup, loader);
+      flight.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      flights.remove(key, flight);
+    }
+  }
+
+  private <V> V loadLeased(String key, Supplier<V> lookup, Supplier<V> loader) {
+    String lockKey = "lock:" + key;
+    Boolean acquired;
+    try {
+      acquired = redisTemplate.opsForValue().setIfAbsent(lockKey, nodeId, lease);
+    } catch (RuntimeException e) {
+      log.warn("Could not take load lease of {}: {}", key, e.getMessage());
+      return loader.get();
+    }
+
+    if (Boolean.TRUE.equals(acquired)) {
+      try {
+        return loader.get();
+      } finally {
+        release(lockKey);
+      }
+    }
+
+    remoteWaits.increment();
+    V value = waitTime.record(() -> poll(lookup));
+    return value != null ? value : loader.get();
+  }
+
+  /** Looks for the entry until the lease of the other node runs out. */
+  private <V> V poll(Supplier<V> lookup) {
+    long deadline = System.nanoTime() + lease.toNanos();
+    while (System.nanoTime() < deadline) {
+      try {
+        Thread.sleep(pollInterval.toMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      V value = lookup.get();
+      if (value != null) {
+        return value;
+      }
+    }
+    return null;
+  }
+
+  private void release(String lockKey) {
+    try {
+      redisTemplate.execute(RELEASE, List.of(lockKey), nodeId);
+    } catch (RuntimeException e) {
+      // The lease expires on its own.
+      log.warn("Could not release load lease {}: {}", lockKey, e.getMessage());
+    }
+  }
+
+  private static Object join(CompletableFuture<Object> flight) {
+    try {
+      return flight.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
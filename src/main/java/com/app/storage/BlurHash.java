@@ -0,0 +1,114 @@
+package com.app.storage;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Encodes images as <a href="https://blurha.sh">BlurHash</a> strings: a few cosine components of
+ * the image packed into about 30 base 83 characters, which clients decode into a blurred preview.
+ */
+public class BlurHash {
+
+  private static final String CHARACTERS =
+      "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+  /**
+   * Encodes an image. The image should already be small, every component visits every pixel.
+   *
+   * @param image the image to encode
+   * @param componentsX the number of horizontal components, 1 to 9
+   * @param componentsY the number of vertical components, 1 to 9
+   * @return the BlurHash string
+   */
+  public static String encode(BufferedImage image, int componentsX, int componentsY) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+    double[][] factors = new double[componentsX * componentsY][];
+    for (int j = 0; j < componentsY; j++) {
+      for (int i = 0; i < componentsX; i++) {
+        factors[j * componentsX + i] = factor(pixels, width, height, i, j);
+      }
+    }
+
+    StringBuilder hash = new StringBuilder();
+    encode83(hash, (componentsX - 1) + (componentsY - 1) * 9, 1);
+
+    double maximumValue;
+    if (factors.length > 1) {
+      double actualMaximum = 0;
+      for (int i = 1; i < factors.length; i++) {
+        for (double value : factors[i]) {
+          actualMaximum = Math.max(actualMaximum, Math.abs(value));
+        }
+      }
+      int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(actualMaximum * 166 - 0.5)));
+      maximumValue = (quantisedMaximum + 1) / 166.0;
+      encode83(hash, quantisedMaximum, 1);
+    } else {
+      maximumValue = 1;
+      encode83(hash, 0, 1);
+    }
+
+    double[] dc = factors[0];
+    encode83(
+        hash, (linearToSrgb(dc[0]) << 16) + (linearToSrgb(dc[1]) << 8) + linearToSrgb(dc[2]), 4);
+    for (int i = 1; i < factors.length; i++) {
+      encode83(hash, encodeAc(factors[i], maximumValue), 2);
+    }
+    return hash.toString();
+  }
+
+  private static double[] factor(int[] pixels, int width, int height, int i, int j) {
+    double r = 0;
+    double g = 0;
+    double b = 0;
+    for (int y = 0; y < height; y++) {
+      double basisY = Math.cos(Math.PI * j * y / height);
+      for (int x = 0; x < width; x++) {
+        double basis = Math.cos(Math.PI * i * x / width) * basisY;
+        int pixel = pixels[y * width + x];
+        r += basis * srgbToLinear((pixel >> 16) & 0xff);
+        g += basis * srgbToLinear((pixel >> 8) & 0xff);
+        b += basis * srgbToLinear(pixel & 0xff);
+      }
+    }
+    double scale = (i == 0 && j == 0 ? 1.0 : 2.0) / (width * height);
+    return new double[] {r * scale, g * scale, b * scale};
+  }
+
+  private static int encodeAc(double[] value, double maximumValue) {
+    int r = quantise(value[0] / maximumValue);
+    int g = quantise(value[1] / maximumValue);
+    int b = quantise(value[2] / maximumValue);
+    return r * 19 * 19 + g * 19 + b;
+  }
+
+  private static int quantise(double value) {
+    double signPow = Math.copySign(Math.pow(Math.abs(value), 0.5), value);
+    return (int) Math.max(0, Math.min(18, Math.floor(signPow * 9 + 9.5)));
+  }
+
+  private static double srgbToLinear(int value) {
+    double v = value / 255.0;
+    return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+  }
+
+  private static int linearToSrgb(double value) {
+    double v = Math.max(0, Math.min(1, value));
+    return v <= 0.0031308
+        ? (int) (v * 12.92 * 255 + 0.5)
+        : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+  }
+
+  private static void encode83(StringBuilder hash, int value, int length) {
+    int divisor = 1;
+    for (int i = 1; i < length; i++) {
+      divisor *= 83;
+    }
+    for (int i = 0; i < length; i++) {
+      hash.append(CHARACTERS.charAt((value / divisor) % 83));
+      divisor /= 83;
+    }
+  }
+}
@@ -0,0 +1,258 @@
+package com.app.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Builds byte serving responses for stored media as described by RFC 7233: full responses, single
+ * and suffix ranges, {@code multipart/byteranges} for multiple ranges and {@code If-Range}
+ * validation. Bodies are written by a {@link RangeSource}, so a range is never buffered in memory.
+ */
+public class ByteRangeResponse {
+
+  /** Writes a byte range of a stored media to an output stream. */
+  @FunctionalInterface
+  public interface RangeSource {
+    long transfer(long position, long length, OutputStream out) throws IOException;
+  }
+
+  private record Range(long start, long end) {
+    long length() {
+      return end - start + 1;
+    }
+
+    String contentRange(long size) {
+      return "bytes " + start + "-" + end + "/" + size;
+    }
+  }
+
+  /**
+   * Creates the response for a media, honoring the {@code Range} and {@code If-Range} headers of
+   * the request.
+   *
+   * @param request the request headers
+   * @param size the size of the media in bytes
+   * @param contentType the content type of the media
+   * @param etag the strong entity tag of the media, quoted
+   * @param lastModified the last modification time of the media in epoch milliseconds
+   * @param cacheControl the caching directives of the media
+   * @param source the source the body is streamed from
+   * @return a 200, 206 or 416 response
+   */
+  public static ResponseEntity<StreamingResponseBody> of(
+      HttpHeaders request,
+      long size,
+      String contentType,
+      String etag,
+      long lastModified,
+      CacheControl cacheControl,
+      RangeSource source) {
+    List<Range> ranges =
+        isRangeApplicable(request, etag, lastModified) ? parse(request, size) : List.of();
+
+    if (ranges == null) {
+      return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+          .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+          .build();
+    }
+
+    if (ranges.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.OK)
+          .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+          .header(HttpHeaders.CONTENT_TYPE, contentType)
+          .cacheControl(cacheControl)
+          .eTag(etag)
+          .lastModified(lastModified)
+          .contentLength(size)
+          .body(out -> source.transfer(0, size, out));
+    }
+
+    if (ranges.size() == 1) {
+      Range range = ranges.getFirst();
+      // Oversized ranges are truncated, the player requests the rest as it needs it.
+      Range capped =
+          new Range(
+              range.start(),
+              Math.min(range.end(), range.start() + MediaManager.MAX_RANGE_LENGTH - 1));
+      return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+          .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+          .header(HttpHeaders.CONTENT_TYPE, contentType)
+          .header(HttpHeaders.CONTENT_RANGE, capped.contentRange(size))
+          .cacheControl(cacheControl)
+          .eTag(etag)
+          .lastModified(lastModified)
+          .contentLength(capped.length())
+          .body(out -> source.transfer(capped.start(), capped.length(), out));
+    }
+
+    String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+    List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+    long contentLength = 0;
+    for (Range range : ranges) {
+      byte[] partHeader =
+          ("\r\n--"
+                  + boundary
+                  + "\r\n"
+                  + HttpHeaders.CONTENT_TYPE
+                  + ": "
+                  + contentType
+                  + "\r\n"
+                  + HttpHeaders.CONTENT_RANGE
+                  + ": "
+                  + range.contentRange(size)
+                  + "\r\n\r\n")
+              .getBytes(StandardCharsets.US_ASCII);
+      partHeaders.add(partHeader);
+      contentLength += partHeader.length + range.length();
+    }
+    byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    contentLength += closing.length;
+
+    return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+        .header(HttpHeaders.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary)
+        .cacheControl(cacheControl)
+        .eTag(etag)
+        .lastModified(lastModified)
+        .contentLength(contentLength)
+        .body(
+            out -> {
+              for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                source.transfer(ranges.get(i).start(), ranges.get(i).length(), out);
+              }
+              out.write(closing);
+            });
+  }
+
+  /**
+   * Evaluates the {@code If-None-Match} and {@code If-Modified-Since} headers of a request as
+   * described by RFC 7232, {@code If-Modified-Since} is ignored when {@code If-None-Match} is
+   * present.
+   *
+   * @param request the request headers
+   * @param etag the strong entity tag of the media, quoted
+   * @param lastModified the last modification time of the media in epoch milliseconds, null when
+   *     only the entity tag is known
+   * @return true if the client already has the media
+   */
+  public static boolean isNotModified(HttpHeaders request, String etag, Long lastModified) {
+    if (request.containsKey(HttpHeaders.IF_NONE_MATCH)) {
+      for (String tag : request.getIfNoneMatch()) {
+        // If-None-Match uses the weak comparison.
+        if (tag.equals("*") || opaqueTag(tag).equals(opaqueTag(etag))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    if (lastModified == null) {
+      return false;
+    }
+    try {
+      long ifModifiedSince = request.getIfModifiedSince();
+      return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Creates the 304 response for a media the client already has.
+   *
+   * @param etag the strong entity tag of the media, quoted
+   * @param lastModified the last modification time of the media in epoch milliseconds, null when
+   *     unknown
+   * @param cacheControl the caching directives of the media
+   * @return a 304 response without body
+   */
+  public static ResponseEntity<StreamingResponseBody> notModified(
+      String etag, Long lastModified, CacheControl cacheControl) {
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).eTag(etag);
+    if (lastModified != null) {
+      response.lastModified(lastModified);
+    }
+    return response.build();
+  }
+
+  private static String opaqueTag(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+
+  /**
+   * A range is only served when the request has a {@code Range} header and, if it also has an
+   * {@code If-Range} header, the validator still matches the stored media.
+   */
+  private static boolean isRangeApplicable(HttpHeaders request, String etag, long lastModified) {
+    if (request.getFirst(HttpHeaders.RANGE) == null) {
+      return false;
+    }
+
+    String ifRange = request.getFirst(HttpHeaders.IF_RANGE);
+    if (ifRange == null) {
+      return true;
+    }
+
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+      // If-Range requires a strong comparison, a weak tag never matches.
+      return ifRange.equals(etag);
+    }
+
+    try {
+      return request.getFirstDate(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Parses the {@code Range} header into the satisfiable ranges.
+   *
+   * @return the ranges, an empty list when the header is malformed and must be ignored, or null
+   *     when no range can be satisfied.
+   */
+  private static List<Range> parse(HttpHeaders request, long size) {
+    List<HttpRange> httpRanges;
+    try {
+      httpRanges = HttpRange.parseRanges(request.getFirst(HttpHeaders.RANGE));
+    } catch (IllegalArgumentException e) {
+      return List.of();
+    }
+
+    List<Range> ranges = new ArrayList<>(httpRanges.size());
+    long total = 0;
+    for (HttpRange httpRange : httpRanges) {
+      long start;
+      long end;
+      try {
+        start = httpRange.getRangeStart(size);
+        end = httpRange.getRangeEnd(size);
+      } catch (IllegalArgumentException e) {
+        continue;
+      }
+      if (end < start) {
+        continue;
+      }
+      ranges.add(new Range(start, end));
+      total += end - start + 1;
+    }
+
+    // Overlapping ranges that add up to more than the whole media are refused.
+    if (ranges.isEmpty() || (ranges.size() > 1 && total > size)) {
+      return null;
+    }
+    return ranges;
+  }
+}
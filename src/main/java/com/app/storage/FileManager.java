@@ -1,113 +1,268 @@
 package com.app.storage;
 
 import com.app.Model.MediaType;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.concurrent.CompletableFuture;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.web.multipart.MultipartFile;
 
+/** File system primitives shared by the storage backends keeping media on a local volume. */
 @Log4j2
 public class FileManager {
 
   /**
-   * Check if the directory for media type exists based on the provided file extension. If the
-   * directory does not exist, it is created
+   * Resolves the directory of the media type based on the provided file extension under the given
+   * root. If the directory does not exist, it is created
    *
+   * @param root the volume the media is stored on
    * @param extension the file extension
    * @return Path the directory path where the file will be stored.
    * @throws IOException If an I/O error occurs while checking or creating the directory.
    */
-  private static Path checkFolderExistsAndCreate(String extension) throws IOException {
-    Path path;
-    if (MediaType.IMAGE.isFormatValid(extension)) {
-      path = Paths.get("image");
-      log.info("Media type identified as IMAGE. Path: {}", path);
-    } else if (MediaType.VIDEO.isFormatValid(extension)) {
-      path = Paths.get("video");
-      log.info("Media type identified as VIDEO. Path: {}", path);
-    } else {
-      log.error("Invalid media type for extension: {}", extension);
-      throw new IllegalArgumentException("Invalid media type.");
-    }
-
+  public static Path checkFolderExistsAndCreate(Path root, String extension) throws IOException {
+    Path path = root.resolve(folderOf(extension));
     if (!Files.exists(path)) {
       log.info("Directory does not exist. Creating directory: {}", path);
       Files.createDirectories(path);
       log.info("Directory created successfully: {}", path);
-    } else {
-      log.info("Directory already exists: {}", path);
     }
     return path;
   }
 
   /**
-   * Saves the provided file to the appropriate directory based on its extension.
+   * Resolves the location of a stored file. Files are spread over two levels of directories named
+   * after the SHA-256 of the filename, {@code image/ab/cd/<filename>}, so no directory grows beyond
+   * a few hundred entries.
    *
-   * @param file The file to be saved
-   * @param filename The name of the file to be saved.
+   * @param root the volume the media is stored on
+   * @param filename the stored filename
+   * @return the path of the file
+   */
+  public static Path resolve(Path root, String filename) {
+    String hash = sha256Hex(filename.getBytes(StandardCharsets.UTF_8));
+    return resolveFlat(root, filename)
+        .resolveSibling(hash.substring(0, 2))
+        .resolve(hash.substring(2, 4))
+        .resolve(filename);
+  }
+
+  /**
+   * Resolves the location a file had in the original flat layout, {@code image/<filename>}.
+   *
+   * @param root the volume the media is stored on
+   * @param filename the stored filename
+   * @return the legacy path of the file
+   */
+  public static Path resolveFlat(Path root, String filename) {
+    return root.resolve(folderOf(MediaManager.getFileExtension(filename))).resolve(filename);
+  }
+
+  /**
+   * Name of the directory holding the media of the given extension.
+   *
+   * @param extension the file extension
+   * @return {@code image} or {@code video}
+   * @throws IllegalArgumentException If the extension is not a supported media format.
+   */
+  public static String folderOf(String extension) {
+    if (MediaType.IMAGE.isFormatValid(extension)) {
+      return "image";
+    } else if (MediaType.VIDEO.isFormatValid(extension)) {
+      return "video";
+    }
+    log.error("Invalid media type for extension: {}", extension);
+    throw new IllegalArgumentException("Invalid media type.");
+  }
+
+  /**
+   * Copies the provided content to a temporary file in the given directory, inspecting the content
+   * while it streams through. Its SHA-256 names the final location, so identical uploads resolve
+   * to the same file. An MP4 is rewritten with its {@code moov} box first before it is named.
+   *
+   * @param folder The directory the temporary file is created in.
+   * @param content The content to be staged, it is closed once copied. Passing a strict {@link
+   *     UploadInspector} rejects content not matching the extension before it is fully copied.
    * @param extension The file extension used to determine the media type.
-   * @return A CompletableFuture that runs the save operation asynchronously.
+   * @return The staged file.
    * @throws IllegalArgumentException If any of the input parameters are null.
    */
-  @Async
-  public static CompletableFuture<Void> save(
-      MultipartFile file, String filename, String extension) {
-    if (file == null || filename == null || extension == null) {
-      throw new IllegalArgumentException("File, filename, and extension must not be null.");
+  public static StagedFile stage(Path folder, InputStream content, String extension) {
+    if (content == null || extension == null) {
+      throw new IllegalArgumentException("Content and extension must not be null.");
     }
 
-    return CompletableFuture.runAsync(
-        () -> {
-          try {
-            Path folder = checkFolderExistsAndCreate(extension);
-            Path filePath = folder.resolve(filename);
-            try (InputStream inputStream = file.getInputStream()) {
-              Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-              log.info("File saved successfully to path: {}", filePath);
-            }
-          } catch (IOException e) {
-            log.error("Error saving media file", e);
-            throw new RuntimeException("Error saving media file: " + e.getMessage(), e);
-          }
-        });
+    try {
+      Files.createDirectories(folder);
+      Path temp = Files.createTempFile(folder, "upload-", ".tmp");
+      UploadInspector inspector = UploadInspector.of(content, extension);
+      UploadInspector.Inspection inspection;
+      try (InputStream inputStream = inspector) {
+        Files.copy(inputStream, temp, StandardCopyOption.REPLACE_EXISTING);
+        inspection = faststart(temp, inspector.inspection());
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(temp);
+        throw e;
+      }
+
+      String filename = inspection.sha256() + "." + extension.toLowerCase();
+      log.info("File staged to path: {} for: {}", temp, filename);
+      return new StagedFile(temp, filename, inspection);
+    } catch (IOException e) {
+      log.error("Error staging media file", e);
+      throw new RuntimeException("Error staging media file: " + e.getMessage(), e);
+    }
   }
 
   /**
-   * Deletes the file with the given filename from the appropriate directory based on its extension.
+   * Inspects a file the caller wrote to a staging directory and names it after the SHA-256 of its
+   * content, the way {@link #stage} does for the files it copies.
    *
-   * @param filename The name of the file to be deleted.
+   * @param temp The file written to a staging directory.
    * @param extension The file extension used to determine the media type.
-   * @return A CompletableFuture that runs the delete operation asynchronously.
-   * @throws IllegalArgumentException If any of the input parameters are null.
+   * @return The staged file.
+   * @throws com.app.exception.sub.MediaNotSupportException If the content is not of the format of
+   *     the extension.
    */
-  @Async
-  public static CompletableFuture<Void> delete(String filename, String extension) {
-    if (filename == null || extension == null) {
-      throw new IllegalArgumentException("File, filename, and extension must not be null.");
+  public static StagedFile identify(Path temp, String extension) {
+    try (UploadInspector content =
+        new UploadInspector(Files.newInputStream(temp), extension, true)) {
+      content.transferTo(OutputStream.nullOutputStream());
+      UploadInspector.Inspection inspection = faststart(temp, content.inspection());
+      String filename = inspection.sha256() + "." + extension.toLowerCase();
+      return new StagedFile(temp, filename, inspection);
+    } catch (IOException e) {
+      log.error("Error hashing staged file: {}", temp, e);
+      throw new RuntimeException("Error hashing staged file: " + e.getMessage(), e);
     }
+  }
 
-    return CompletableFuture.runAsync(
-        () -> {
-          try {
-            Path folder = checkFolderExistsAndCreate(extension);
-            Path filePath = folder.resolve(filename);
-
-            if (Files.exists(filePath)) {
-              Files.delete(filePath);
-              log.info("File deleted successfully: {}", filePath);
-            } else {
-              log.warn("File not found for deletion: {}", filePath);
-            }
-          } catch (IOException e) {
-            log.error("Error deleting media file: {}", filename, e);
-            throw new RuntimeException("Error deleting media file: " + filename, e);
-          }
-        });
+  /**
+   * Rewrites a staged MP4 with its {@code moov} box first, so playback starts without fetching the
+   * end of the file. The rewrite goes through a sibling file that replaces the staged one, and the
+   * content is hashed again while it is written.
+   *
+   * @param temp The staged file.
+   * @param inspection The inspection of the staged content.
+   * @return The inspection of the rewritten content, the given one when nothing was rewritten.
+   * @throws IOException If an I/O error occurs while rewriting the file.
+   */
+  static UploadInspector.Inspection faststart(Path temp, UploadInspector.Inspection inspection)
+      throws IOException {
+    if (!"video/mp4".equals(inspection.mimeType())) {
+      return inspection;
+    }
+    Mp4Faststart faststart = Mp4Faststart.of(temp);
+    if (faststart == null) {
+      return inspection;
+    }
+
+    Path rewritten = Files.createTempFile(temp.getParent(), "upload-", ".tmp");
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      try (OutputStream out =
+          new DigestOutputStream(
+              new BufferedOutputStream(Files.newOutputStream(rewritten)), digest)) {
+        faststart.writeTo(out);
+      }
+      Files.move(rewritten, temp, StandardCopyOption.REPLACE_EXISTING);
+      log.info("Moved moov box to the front of: {}", temp);
+      return new UploadInspector.Inspection(
+          inspection.sizeBytes(),
+          HexFormat.of().formatHex(digest.digest()),
+          inspection.mimeType(),
+          inspection.width(),
+          inspection.height());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    } finally {
+      Files.deleteIfExists(rewritten);
+    }
+  }
+
+  /**
+   * Moves a staged file to the given location. When a file with identical content is already
+   * stored there the staged copy is discarded. When the staged file lives on another file system
+   * it is first copied next to the target, so readers never observe a partially written file.
+   *
+   * @param staged The staged file.
+   * @param target The content-addressed location of the file.
+   */
+  public static void commit(StagedFile staged, Path target) {
+    try {
+      if (Files.exists(target)) {
+        Files.delete(staged.temp());
+        log.info("Identical file already stored: {}", target);
+        return;
+      }
+      Files.createDirectories(target.getParent());
+      try {
+        Files.move(staged.temp(), target, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Path sibling = Files.createTempFile(target.getParent(), "upload-", ".tmp");
+        Files.move(staged.temp(), sibling, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(sibling, target, StandardCopyOption.ATOMIC_MOVE);
+      }
+      log.info("File saved successfully to path: {}", target);
+    } catch (FileAlreadyExistsException e) {
+      discard(staged);
+    } catch (IOException e) {
+      log.error("Error saving media file", e);
+      throw new RuntimeException("Error saving media file: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Deletes a staged file that will not be committed.
+   *
+   * @param staged The staged file.
+   */
+  public static void discard(StagedFile staged) {
+    try {
+      Files.deleteIfExists(staged.temp());
+    } catch (IOException e) {
+      log.warn("Could not delete staged file: {}", staged.temp(), e);
+    }
+  }
+
+  /**
+   * Deletes the file at the given location.
+   *
+   * @param filePath The file to be deleted.
+   * @throws IllegalArgumentException If the path is null.
+   */
+  public static void delete(Path filePath) {
+    if (filePath == null) {
+      throw new IllegalArgumentException("Path must not be null.");
+    }
+
+    try {
+      if (Files.deleteIfExists(filePath)) {
+        log.info("File deleted successfully: {}", filePath);
+      } else {
+        log.warn("File not found for deletion: {}", filePath);
+      }
+    } catch (IOException e) {
+      log.error("Error deleting media file: {}", filePath, e);
+      throw new RuntimeException("Error deleting media file: " + filePath.getFileName(), e);
+    }
+  }
+
+  private static String sha256Hex(byte[] bytes) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
   }
 }
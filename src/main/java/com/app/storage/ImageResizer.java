@@ -0,0 +1,115 @@
+package com.app.storage;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/** Downscales images with the JDK image codecs. */
+public class ImageResizer {
+
+  private static final float JPEG_QUALITY = 0.85f;
+
+  /**
+   * Decodes an image, subsampling rows and columns while decoding when the image is much larger
+   * than needed, so large uploads never have to be held in memory at full resolution.
+   *
+   * @param source the image file
+   * @param minWidth the smallest width the decoded image may have
+   * @return the decoded image
+   * @throws IOException If the file is not a readable image.
+   */
+  public static BufferedImage read(Path source, int minWidth) throws IOException {
+    try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+      if (!readers.hasNext()) {
+        throw new IOException("No image reader for " + source.getFileName());
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        int subsampling = Math.max(1, reader.getWidth(0) / minWidth);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        return reader.read(0, param);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Scales an image to the given width, keeping its aspect ratio. The image is halved until it is
+   * close to the target, bilinear filtering of each step then keeps the result sharp.
+   *
+   * @param image the image to scale
+   * @param width the target width, smaller than the width of the image
+   * @param alpha whether the transparency of the image must be kept
+   * @return the scaled image
+   */
+  public static BufferedImage resize(BufferedImage image, int width, boolean alpha) {
+    int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+    BufferedImage current = image;
+    while (current.getWidth() / 2 >= width) {
+      current =
+          draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2), alpha);
+    }
+    return draw(current, width, height, alpha);
+  }
+
+  /**
+   * Encodes an image.
+   *
+   * @param image the image to encode
+   * @param format the ImageIO format name, {@code jpg} or {@code png}
+   * @return the encoded image
+   * @throws IOException If no writer supports the format.
+   */
+  public static byte[] encode(BufferedImage image, String format) throws IOException {
+    Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+    if (!writers.hasNext()) {
+      throw new IOException("No image writer for " + format);
+    }
+    ImageWriter writer = writers.next();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+      writer.setOutput(output);
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      if (param.canWriteCompressed() && format.equals("jpg")) {
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+      }
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    return out.toByteArray();
+  }
+
+  private static BufferedImage draw(BufferedImage image, int width, int height, boolean alpha) {
+    BufferedImage scaled =
+        new BufferedImage(
+            width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = scaled.createGraphics();
+    try {
+      graphics.setRenderingHint(
+          RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.drawImage(image, 0, 0, width, height, null);
+    } finally {
+      graphics.dispose();
+    }
+    return scaled;
+  }
+}
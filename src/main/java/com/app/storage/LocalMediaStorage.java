@@ -0,0 +1,280 @@
+package com.app.storage;
+
+import com.app.exception.sub.MediaNotFoundException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Keeps media on a single local volume, images and videos in their own directory under the root,
+ * spread over the hashed layout of {@link FileManager#resolve}. Uploads are staged on the same
+ * volume, so committing is an atomic rename. Files still in the original flat layout stay readable
+ * until {@link #migrateLayout} has moved them.
+ */
+@Log4j2
+public class LocalMediaStorage implements MediaStorage {
+
+  private final Path root;
+  private final Executor executor;
+
+  public LocalMediaStorage(Path root, Executor executor) {
+    this.root = root;
+    this.executor = executor;
+  }
+
+  /** The volume this storage keeps its files on. */
+  public Path getRoot() {
+    return root;
+  }
+
+  /**
+   * Resolves the location of a file on this volume in the hashed layout, whether or not it exists.
+   *
+   * @param filename the stored filename
+   * @return the path of the file
+   */
+  public Path resolve(String filename) {
+    return FileManager.resolve(root, filename);
+  }
+
+  /**
+   * Resolves the current location of a file, its flat location while it has not been migrated.
+   *
+   * @param filename the stored filename
+   * @return the path of the file, the hashed location when the file does not exist
+   */
+  public Path locate(String filename) {
+    Path path = resolve(filename);
+    if (Files.exists(path)) {
+      return path;
+    }
+    Path flat = FileManager.resolveFlat(root, filename);
+    // Checked after the hashed location, a file migrated in between is found there.
+    return Files.exists(flat) ? flat : path;
+  }
+
+  /**
+   * Checks whether a file is stored on this volume, in either layout.
+   *
+   * @param filename the stored filename
+   * @return true if the file exists
+   */
+  public boolean exists(String filename) {
+    return Files.exists(locate(filename));
+  }
+
+  /**
+   * Moves files of the flat layout to the hashed layout. Files are moved with an atomic rename, so
+   * readers resolve each file in one of the two layouts at any time.
+   *
+   * @param limit the maximum number of files to move
+   * @return the number of files moved
+   */
+  @Override
+  public int migrateLayout(int limit) {
+    int moved = 0;
+    for (String folder : List.of("image", "video")) {
+      Path dir = root.resolve(folder);
+      if (!Files.isDirectory(dir)) {
+        continue;
+      }
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, Files::isRegularFile)) {
+        for (Path flat : files) {
+          if (moved >= limit) {
+            return moved;
+          }
+          if (migrate(flat)) {
+            moved++;
+          }
+        }
+      } catch (IOException e) {
+        log.error("Error listing media directory: {}", dir, e);
+      }
+    }
+    return moved;
+  }
+
+  private boolean migrate(Path flat) {
+    String filename = flat.getFileName().toString();
+    if (filename.endsWith(".tmp") || filename.equals(MediaManager.DEFAULT_PROFILE_PICTURE)) {
+      return false;
+    }
+
+    Path target;
+    try {
+      target = resolve(filename);
+    } catch (IllegalArgumentException e) {
+      log.warn("Skipping file that is not a media: {}", flat);
+      return false;
+    }
+
+    try {
+      if (Files.exists(target)) {
+        Files.deleteIfExists(flat);
+      } else {
+        Files.createDirectories(target.getParent());
+        Files.move(flat, target, StandardCopyOption.ATOMIC_MOVE);
+      }
+      return true;
+    } catch (NoSuchFileException e) {
+      // Deleted while the directory was being listed.
+      return false;
+    } catch (IOException e) {
+      log.error("Error migrating media file: {}", flat, e);
+      return false;
+    }
+  }
+
+  @Override
+  public CompletableFuture<StagedFile> stage(InputStream content, String extension) {
+    return CompletableFuture.supplyAsync(
+        () -> FileManager.stage(root.resolve(FileManager.folderOf(extension)), content, extension),
+        executor);
+  }
+
+  @Override
+  public Path stagingDirectory(String extension) throws IOException {
+    return FileManager.checkFolderExistsAndCreate(root, extension);
+  }
+
+  @Override
+  public CompletableFuture<Void> commit(StagedFile staged) {
+    return CompletableFuture.runAsync(
+        () -> {
+          if (Files.exists(FileManager.resolveFlat(root, staged.filename()))) {
+            FileManager.discard(staged);
+            log.info("Identical file already stored: {}", staged.filename());
+            return;
+          }
+          FileManager.commit(staged, resolve(staged.filename()));
+        },
+        executor);
+  }
+
+  @Override
+  public void discard(StagedFile staged) {
+    FileManager.discard(staged);
+  }
+
+  @Override
+  public CompletableFuture<Void> delete(String filename) {
+    return CompletableFuture.runAsync(
+        () -> {
+          try {
+            // The flat location first, a file migrated in between is then deleted from the hashed
+            // location.
+            if (Files.deleteIfExists(FileManager.resolveFlat(root, filename))) {
+              log.info("File deleted successfully: {}", filename);
+              return;
+            }
+          } catch (IOException e) {
+            log.error("Error deleting media file: {}", filename, e);
+            throw new RuntimeException("Error deleting media file: " + filename, e);
+          }
+          FileManager.delete(resolve(filename));
+        },
+        executor);
+  }
+
+  @Override
+  public StoredMedia stat(String filename) {
+    try {
+      return read(
+          filename,
+          path -> new StoredMedia(Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+    } catch (NoSuchFileException e) {
+      throw new MediaNotFoundException("Media file not found: " + filename);
+    } catch (IOException e) {
+      log.error("Error reading media file: {}", filename, e);
+      throw new RuntimeException("Error reading media file: " + filename, e);
+    }
+  }
+
+  @Override
+  public InputStream openStream(String filename) throws IOException {
+    return read(filename, Files::newInputStream);
+  }
+
+  @Override
+  public long transferRange(String filename, long position, long length, OutputStream out)
+      throws IOException {
+    return read(filename, path -> MediaManager.transferRange(path, position, length, out));
+  }
+
+  @Override
+  public Stream<StoredFile> list() {
+    return Stream.of("image", "video")
+        .map(root::resolve)
+        .filter(Files::isDirectory)
+        .flatMap(LocalMediaStorage::walk);
+  }
+
+  @Override
+  public Optional<String> relativePath(String filename) {
+    Path path = locate(filename);
+    if (!Files.exists(path)) {
+      return Optional.empty();
+    }
+    return Optional.of(root.relativize(path).toString().replace(File.separatorChar, '/'));
+  }
+
+  /** Lists the media files under a directory of both layouts, skipping staged files. */
+  private static Stream<StoredFile> walk(Path dir) {
+    try {
+      return Files.walk(dir)
+          .filter(Files::isRegularFile)
+          .filter(path -> MediaManager.isStoredMedia(path.getFileName().toString()))
+          .map(LocalMediaStorage::describe)
+          .filter(Objects::nonNull);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static StoredFile describe(Path path) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      return new StoredFile(
+          path.getFileName().toString(),
+          attributes.size(),
+          attributes.lastModifiedTime().toMillis());
+    } catch (IOException e) {
+      // Deleted or moved to the hashed layout while being listed.
+      return null;
+    }
+  }
+
+  @FunctionalInterface
+  private interface PathReader<T> {
+    T read(Path path) throws IOException;
+  }
+
+  /** Reads a file, following it to the hashed layout when it is migrated while being opened. */
+  private <T> T read(String filename, PathReader<T> reader) throws IOException {
+    Path path = locate(filename);
+    try {
+      return reader.read(path);
+    } catch (NoSuchFileException e) {
+      Path hashed = resolve(filename);
+      if (path.equals(hashed)) {
+        throw e;
+      }
+      return reader.read(hashed);
+    }
+  }
+}
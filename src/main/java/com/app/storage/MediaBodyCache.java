@@ -0,0 +1,173 @@
+package com.app.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Keeps the bodies of small, frequently read files in direct buffers, off the heap so a full cache
+ * does not weigh on garbage collection. Entries are weighed by their size and evicted with
+ * Caffeine's W-TinyLFU policy, which only lets a file in when it is read more often than the one it
+ * would evict. Stored files are never rewritten, so entries are never stale, and a deleted file is
+ * no longer reachable once its media row is gone.
+ *
+ * <p>The memory of an evicted body is only freed once a garbage collection finds its buffer
+ * unreachable, so direct memory in use can exceed the size of the cache. The JVM collects and
+ * retries before failing a direct allocation past {@code -XX:MaxDirectMemorySize}, which bounds the
+ * overshoot as long as the cache fits well within that limit; {@link #fitToDirectMemory(long)}
+ * keeps it to half of it, leaving the rest to evicted bodies and the I/O buffers of the
+ * application. This relies on {@code System.gc()}, so it does not hold with {@code
+ * -XX:+DisableExplicitGC}.
+ */
+@Log4j2
+public class MediaBodyCache {
+
+  private final MediaStorage mediaStorage;
+  private final long maxEntrySize;
+  private final Cache<String, ByteBuffer> cache;
+
+  /**
+   * Creates the cache.
+   *
+   * @param mediaStorage the storage bodies are loaded from
+   * @param maxSize the total size of the cached bodies in bytes
+   * @param maxEntrySize the size in bytes above which a file is not cached, nothing is cached
+   *     when the total size is 0
+   */
+  public MediaBodyCache(MediaStorage mediaStorage, long maxSize, long maxEntrySize) {
+    this.mediaStorage = mediaStorage;
+    this.maxEntrySize = Math.min(Math.min(maxEntrySize, maxSize), Integer.MAX_VALUE);
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxSize)
+            .<String, ByteBuffer>weigher((filename, body) -> body.capacity())
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Caps the size of the cache to half of the direct memory the JVM may allocate, see the class
+   * comment.
+   *
+   * @param maxSize the configured total size of the cached bodies in bytes
+   * @return the size the cache may use
+   */
+  public static long fitToDirectMemory(long maxSize) {
+    HotSpotDiagnosticMXBean hotSpot =
+        ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+    long maxDirectMemory = 0;
+    if (hotSpot != null) {
+      maxDirectMemory = Long.parseLong(hotSpot.getVMOption("MaxDirectMemorySize").getValue());
+      if (Boolean.parseBoolean(hotSpot.getVMOption("DisableExplicitGC").getValue())) {
+        log.warn(
+            "Explicit GC is disabled, memory of evicted media bodies is only freed by regular "
+                + "collections and direct allocations may fail");
+      }
+    }
+    // Without the option the JVM allows as much direct memory as heap.
+    return fitToDirectMemory(
+        maxSize, maxDirectMemory > 0 ? maxDirectMemory : Runtime.getRuntime().maxMemory());
+  }
+
+  static long fitToDirectMemory(long maxSize, long maxDirectMemory) {
+    long limit = maxDirectMemory / 2;
+    if (maxSize > limit) {
+      log.warn(
+          "Media body cache limited to {} bytes, half of the {} bytes of direct memory; raise "
+              + "-XX:MaxDirectMemorySize to cache more",
+          limit,
+          maxDirectMemory);
+      return limit;
+    }
+    return maxSize;
+  }
+
+  /**
+   * Publishes the hit ratio, load times and evictions of the cache.
+   *
+   * @param registry the registry to publish to
+   * @param name the name of the cache in the metrics
+   */
+  public void bindTo(MeterRegistry registry, String name) {
+    CaffeineCacheMetrics.monitor(registry, cache, name);
+  }
+
+  /**
+   * Whether a file of the given size is admitted to the cache.
+   *
+   * @param size the size of the file in bytes
+   * @return true if the file is small enough
+   */
+  public boolean admits(long size) {
+    return size > 0 && size <= maxEntrySize;
+  }
+
+  /**
+   * Reads a stored file from the cache, loading it on a miss.
+   *
+   * @param filename the stored filename
+   * @param size the size of the file in bytes
+   * @return a read-only view of the body, or null when the file is too large to be cached
+   * @throws IOException If the file cannot be read.
+   */
+  public ByteBuffer get(String filename, long size) throws IOException {
+    if (!admits(size)) {
+      return null;
+    }
+    try {
+      return cache.get(filename, key -> load(key, (int) size)).asReadOnlyBuffer();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Writes a byte range of a cached body to an output stream.
+   *
+   * @param body the cached body
+   * @param position the offset of the first byte to send
+   * @param length the number of bytes to send
+   * @param out the stream to write to, it is left open
+   * @return the number of bytes written
+   * @throws IOException If an I/O error occurs while writing the stream.
+   */
+  public static long transferRange(ByteBuffer body, long position, long length, OutputStream out)
+      throws IOException {
+    int start = (int) Math.min(position, body.limit());
+    int end = (int) Math.min(start + length, body.limit());
+    ByteBuffer range = body.duplicate().limit(end).position(start);
+    WritableByteChannel target = Channels.newChannel(out);
+    while (range.hasRemaining()) {
+      target.write(range);
+    }
+    return end - start;
+  }
+
+  private ByteBuffer load(String filename, int size) {
+    ByteBuffer body = ByteBuffer.allocateDirect(size);
+    try (InputStream in = mediaStorage.openStream(filename)) {
+      ReadableByteChannel source = Channels.newChannel(in);
+      while (body.hasRemaining()) {
+        if (source.read(body) == -1) {
+          throw new IOException("File is shorter than its recorded size: " + filename);
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Could not cache media body {}: {}", filename, e.getMessage());
+      throw new UncheckedIOException(e);
+    }
+    return body.flip();
+  }
+}
@@ -0,0 +1,201 @@
+package com.app.storage;
+
+import com.app.Model.MediaType;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.MediaTypeFactory;
+
+/**
+ * Reads the metadata served with a media from its headers only: image dimensions from the image
+ * header, video dimensions and duration from the MP4 {@code moov} box. Pixel data is never decoded.
+ */
+@Log4j2
+public class MediaInspector {
+
+  /** Largest {@code moov} box read into memory, larger ones are skipped. */
+  private static final long MAX_MOOV_SIZE = 64L * 1024 * 1024;
+
+  /**
+   * Metadata recorded for a stored media.
+   *
+   * @param sizeBytes the size of the file in bytes
+   * @param mimeType the MIME type of the file
+   * @param width the width in pixels, null when unknown
+   * @param height the height in pixels, null when unknown
+   * @param durationMs the duration of a video in milliseconds, null for images
+   */
+  public record MediaMetadata(
+      long sizeBytes, String mimeType, Integer width, Integer height, Long durationMs) {}
+
+  /**
+   * Inspects a media file. A header that cannot be parsed leaves the dimensions unknown rather
+   * than failing.
+   *
+   * @param content the content of the file, it is left open
+   * @param filename the name of the file, its extension decides how the content is read
+   * @param size the size of the file in bytes
+   * @return the metadata of the file
+   */
+  public static MediaMetadata inspect(InputStream content, String filename, long size) {
+    String mimeType =
+        MediaTypeFactory.getMediaType(filename)
+            .orElse(org.springframework.http.MediaType.APPLICATION_OCTET_STREAM)
+            .toString();
+    MediaType mediaType = MediaType.fromExtension(MediaManager.getFileExtension(filename));
+
+    try {
+      if (mediaType == MediaType.IMAGE) {
+        int[] dimensions = readImageDimensions(content);
+        if (dimensions != null) {
+          return new MediaMetadata(size, mimeType, dimensions[0], dimensions[1], null);
+        }
+      } else {
+        MediaMetadata video = readMp4(content, size, mimeType);
+        if (video != null) {
+          return video;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      log.warn("Could not read the header of media: {}", filename, e);
+    }
+    return new MediaMetadata(size, mimeType, null, null, null);
+  }
+
+  /**
+   * Reads the dimensions of an image from its header.
+   *
+   * @param content the content of the image, from its first byte
+   * @return the width and height, null when no reader recognizes the image
+   * @throws IOException If the header cannot be read.
+   */
+  static int[] readImageDimensions(InputStream content) throws IOException {
+    // A memory cache only holds the header bytes the reader consumes.
+    try (ImageInputStream input = new MemoryCacheImageInputStream(content)) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+      if (!readers.hasNext()) {
+        return null;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        return new int[] {reader.getWidth(0), reader.getHeight(0)};
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /** Walks the top-level boxes up to the {@code moov} box, skipping the media data. */
+  private static MediaMetadata readMp4(InputStream content, long size, String mimeType)
+      throws IOException {
+    DataInputStream input = new DataInputStream(content);
+    long offset = 0;
+    while (offset < size) {
+      long boxSize;
+      int type;
+      try {
+        boxSize = Integer.toUnsignedLong(input.readInt());
+        type = input.readInt();
+      } catch (EOFException e) {
+        return null;
+      }
+      long header = 8;
+      if (boxSize == 1) {
+        boxSize = input.readLong();
+        header = 16;
+      } else if (boxSize == 0) {
+        boxSize = size - offset;
+      }
+      if (boxSize < header) {
+        return null;
+      }
+
+      if (type == box("moov") && boxSize <= MAX_MOOV_SIZE) {
+        byte[] moov = new byte[(int) (boxSize - header)];
+        input.readFully(moov);
+        return readMoov(ByteBuffer.wrap(moov), size, mimeType);
+      }
+      input.skipNBytes(boxSize - header);
+      offset += boxSize;
+    }
+    return null;
+  }
+
+  private static MediaMetadata readMoov(ByteBuffer moov, long size, String mimeType) {
+    Long durationMs = null;
+    Integer width = null;
+    Integer height = null;
+
+    while (moov.remaining() >= 8) {
+      int start = moov.position();
+      int boxSize = moov.getInt();
+      int type = moov.getInt();
+      if (boxSize < 8 || boxSize > moov.remaining() + 8) {
+        break;
+      }
+      ByteBuffer body = moov.slice(start + 8, boxSize - 8);
+
+      if (type == box("mvhd")) {
+        int version = body.get(0);
+        long timescale;
+        long duration;
+        if (version == 1) {
+          timescale = Integer.toUnsignedLong(body.getInt(20));
+          duration = body.getLong(24);
+        } else {
+          timescale = Integer.toUnsignedLong(body.getInt(12));
+          duration = Integer.toUnsignedLong(body.getInt(16));
+        }
+        if (timescale > 0) {
+          durationMs = duration * 1000 / timescale;
+        }
+      } else if (type == box("trak") && width == null) {
+        int[] dimensions = readTrackDimensions(body);
+        if (dimensions != null) {
+          width = dimensions[0];
+          height = dimensions[1];
+        }
+      }
+      moov.position(start + boxSize);
+    }
+    return new MediaMetadata(size, mimeType, width, height, durationMs);
+  }
+
+  /** Reads the presentation size from the {@code tkhd} box, audio tracks have none. */
+  private static int[] readTrackDimensions(ByteBuffer trak) {
+    while (trak.remaining() >= 8) {
+      int start = trak.position();
+      int boxSize = trak.getInt();
+      int type = trak.getInt();
+      if (boxSize < 8 || boxSize > trak.remaining() + 8) {
+        return null;
+      }
+      if (type == box("tkhd")) {
+        int version = trak.get(start + 8);
+        // Width and height are the last two 16.16 fixed point fields of the box.
+        int fields = start + 8 + (version == 1 ? 88 : 76);
+        if (fields + 8 > start + boxSize) {
+          return null;
+        }
+        int width = trak.getInt(fields) >>> 16;
+        int height = trak.getInt(fields + 4) >>> 16;
+        return width > 0 && height > 0 ? new int[] {width, height} : null;
+      }
+      trak.position(start + boxSize);
+    }
+    return null;
+  }
+
+  private static int box(String type) {
+    return (type.charAt(0) << 24) | (type.charAt(1) << 16) | (type.charAt(2) << 8) | type.charAt(3);
+  }
+}
@@ -1,24 +1,22 @@
 package com.app.storage;
 
 import com.app.Model.MediaType;
-import com.app.exception.sub.MediaNotSupportException;
-import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.channels.SeekableByteChannel;
-import java.nio.file.Files;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Optional;
-import java.util.UUID;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 
 public class MediaManager {
 
+  /** Maximum number of bytes sent by a single range response, larger ranges are truncated. */
+  public static final long MAX_RANGE_LENGTH = 2L * 1024 * 1024;
+
+  /** Bundled picture given to users without a profile picture, it is not reference counted. */
+  public static final String DEFAULT_PROFILE_PICTURE = "default_profile_picture.png";
+
   /**
    * Extracts the extension from the filename.
    *
@@ -51,6 +49,23 @@ public class MediaManager {
     return MediaType.IMAGE.isFormatValid(extension) || MediaType.VIDEO.isFormatValid(extension);
   }
 
+  /**
+   * Checks whether a file found in a storage holds a media, rather than a staged upload or the
+   * bundled default profile picture.
+   *
+   * @param filename the name of the file
+   * @return true if the file is a stored media or a variant of one
+   */
+  public static boolean isStoredMedia(String filename) {
+    if (filename.equals(DEFAULT_PROFILE_PICTURE)) {
+      return false;
+    }
+    int lastDotIndex = filename.lastIndexOf(".");
+    return lastDotIndex > 0
+        && lastDotIndex < filename.length() - 1
+        && isValidFormat(filename.substring(lastDotIndex + 1).toLowerCase());
+  }
+
   /**
    * Extracts the filename without the extension
    *
@@ -70,54 +85,41 @@ public class MediaManager {
   }
 
   /**
-   * Generate unique name for file
+   * Name of the variant of an image downscaled to the given width, stored next to the image.
    *
-   * @param originFilename the full filename
-   * @return the unique name
+   * @param filename the filename of the image
+   * @param width the width of the variant in pixels
+   * @return the filename of the variant
    */
-  public static String generateUniqueFilename(String originFilename) {
-    String extension = getFileExtension(originFilename);
-    if (!isValidFormat(extension)) {
-      throw new MediaNotSupportException("Media format not supported");
-    }
-
-    String uniqueId = UUID.randomUUID().toString();
-    String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-    return uniqueId + "_" + timestamp + "." + extension;
+  public static String getVariantFilename(String filename, int width) {
+    return getBaseFilename(filename) + "_w" + width + "." + getFileExtension(filename);
   }
 
-  public static Long sizeFromFile(Path path) {
-    try {
-      return Files.size(path);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  public static String getFilePath() {
-    try {
-      Resource resource = new FileSystemResource("video/");
-      return new File(String.valueOf(resource.getFile())).getAbsolutePath();
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  public static byte[] readByRange(Path path, long start, long end) {
-    try (SeekableByteChannel byteChannel = Files.newByteChannel(path, StandardOpenOption.READ)) {
-      ByteBuffer buffer = ByteBuffer.allocate((int) (end - start + 1));
-      byteChannel.position(start);
-      byteChannel.read(buffer);
-      return buffer.array();
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+  /**
+   * Streams a byte range of the file to the given output stream through {@link
+   * FileChannel#transferTo}, so the range is never materialised on the heap and the memory used per
+   * request stays constant regardless of the range length.
+   *
+   * @param path the file to read from
+   * @param position the offset of the first byte to send
+   * @param length the number of bytes to send
+   * @param out the stream to write to, it is left open
+   * @return the number of bytes written
+   * @throws IOException If an I/O error occurs while reading the file or writing the stream.
+   */
+  public static long transferRange(Path path, long position, long length, OutputStream out)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      WritableByteChannel target = Channels.newChannel(out);
+      long transferred = 0;
+      while (transferred < length) {
+        long count = channel.transferTo(position + transferred, length - transferred, target);
+        if (count <= 0) {
+          break;
+        }
+        transferred += count;
+      }
+      return transferred;
     }
   }
-
-  public static Long getFileSize(String filename) {
-    return Optional.of(filename)
-        .map(file -> Paths.get(getFilePath(), file))
-        .map(MediaManager::sizeFromFile)
-        .orElse(0L);
-  }
 }
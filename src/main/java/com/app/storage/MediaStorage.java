@@ -0,0 +1,134 @@
+package com.app.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Backend the media files are kept in. Files are addressed by their stored filename, writes go
+ * through a staging step so the content-addressed name is known before the file becomes visible.
+ * The backend in use is selected with the {@code media.storage.type} property.
+ */
+public interface MediaStorage {
+
+  /**
+   * Streams the content to a temporary location while hashing it.
+   *
+   * @param content the content to store, closed once copied
+   * @param extension the file extension, it decides whether the file is an image or a video
+   * @return a future completed with the staged file
+   */
+  CompletableFuture<StagedFile> stage(InputStream content, String extension);
+
+  /**
+   * The local directory uploads of the given type are staged in. A file written there by the
+   * caller can be committed as a {@link StagedFile} without being copied again.
+   *
+   * @param extension the file extension
+   * @return the staging directory, created if missing
+   * @throws IOException If the directory cannot be created.
+   */
+  Path stagingDirectory(String extension) throws IOException;
+
+  /**
+   * Makes a staged file visible under its filename. Committing content that is already stored
+   * keeps the stored copy and discards the staged one.
+   *
+   * @param staged the staged file
+   * @return a future completed once the file is readable
+   */
+  CompletableFuture<Void> commit(StagedFile staged);
+
+  /**
+   * Stores content under a given filename rather than its content hash, for files derived from a
+   * stored media.
+   *
+   * @param filename the filename to store the content under
+   * @param content the content to store, closed once copied
+   * @return a future completed once the file is readable
+   */
+  default CompletableFuture<Void> write(String filename, InputStream content) {
+    return stage(content, MediaManager.getFileExtension(filename))
+        .thenCompose(staged -> commit(new StagedFile(staged.temp(), filename)));
+  }
+
+  /**
+   * Drops a staged file that will not be committed.
+   *
+   * @param staged the staged file
+   */
+  void discard(StagedFile staged);
+
+  /**
+   * Deletes a stored file, deleting a missing file is not an error.
+   *
+   * @param filename the stored filename
+   * @return a future completed once the file is deleted
+   */
+  CompletableFuture<Void> delete(String filename);
+
+  /**
+   * Looks up the size and modification time of a stored file.
+   *
+   * @param filename the stored filename
+   * @return the metadata of the file
+   * @throws com.app.exception.sub.MediaNotFoundException If the file is not stored.
+   */
+  StoredMedia stat(String filename);
+
+  /**
+   * Opens the stored file for reading.
+   *
+   * @param filename the stored filename
+   * @return a stream over the whole file, to be closed by the caller
+   * @throws IOException If the file cannot be opened.
+   */
+  InputStream openStream(String filename) throws IOException;
+
+  /**
+   * Streams a byte range of the stored file to the given output stream without buffering it.
+   *
+   * @param filename the stored filename
+   * @param position the offset of the first byte to send
+   * @param length the number of bytes to send
+   * @param out the stream to write to, it is left open
+   * @return the number of bytes written
+   * @throws IOException If an I/O error occurs while reading the file or writing the stream.
+   */
+  long transferRange(String filename, long position, long length, OutputStream out)
+      throws IOException;
+
+  /**
+   * Lists every stored file, derived files such as variants included, so the storage can be
+   * reconciled with the media that point at it. Staged files and the default profile picture are
+   * not listed.
+   *
+   * @return a lazy stream of the files, to be closed by the caller
+   */
+  Stream<StoredFile> list();
+
+  /**
+   * The path of a stored file relative to the root of its volume, for a web server that serves
+   * the volume itself. Backends whose files are not on a single local volume have none.
+   *
+   * @param filename the stored filename
+   * @return the relative path with forward slashes, empty when the file cannot be served directly
+   */
+  default Optional<String> relativePath(String filename) {
+    return Optional.empty();
+  }
+
+  /**
+   * Moves files written in an older layout of the backend to its current layout.
+   *
+   * @param limit the maximum number of files to move
+   * @return the number of files moved, 0 once every file uses the current layout
+   */
+  default int migrateLayout(int limit) {
+    return 0;
+  }
+}
@@ -0,0 +1,253 @@
+package com.app.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Moves the {@code moov} box of an MP4 in front of its media data, so a player can start playback
+ * from the first bytes instead of fetching the end of the file first. Only the top-level boxes are
+ * read from the file; the {@code moov} box is held in memory while its chunk offset tables, {@code
+ * stco} and {@code co64}, are shifted by its size.
+ */
+@Log4j2
+public class Mp4Faststart {
+
+  /** Larger {@code moov} boxes are left in place rather than held in memory. */
+  private static final int MAX_MOOV_SIZE = 64 * 1024 * 1024;
+
+  private record Box(String type, long offset, long size, int headerSize) {}
+
+  private final Path source;
+  private final List<Box> boxes;
+  private final Box mdat;
+  private final Box moov;
+  private final ByteBuffer relocatedMoov;
+
+  private Mp4Faststart(Path source, List<Box> boxes, Box mdat, Box moov, ByteBuffer relocated) {
+    this.source = source;
+    this.boxes = boxes;
+    this.mdat = mdat;
+    this.moov = moov;
+    this.relocatedMoov = relocated;
+  }
+
+  /**
+   * Plans the rewrite of an MP4 file.
+   *
+   * @param source the MP4 file
+   * @return the rewrite, or null when the file already starts with its {@code moov} box or cannot
+   *     be rewritten safely
+   * @throws IOException If the file cannot be read.
+   */
+  public static Mp4Faststart of(Path source) throws IOException {
+    try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+      List<Box> boxes = readBoxes(channel);
+      if (boxes == null) {
+        log.warn("Not an MP4 box structure, left as is: {}", source);
+        return null;
+      }
+
+      Box mdat = null;
+      Box moov = null;
+      for (Box box : boxes) {
+        switch (box.type()) {
+          case "mdat" -> mdat = mdat == null ? box : mdat;
+          case "moov" -> moov = box;
+          // Fragmented files keep offsets in every fragment, they are left alone.
+          case "moof" -> {
+            return null;
+          }
+          default -> {}
+        }
+      }
+      if (mdat == null || moov == null || moov.offset() < mdat.offset()) {
+        return null;
+      }
+      if (moov.size() > MAX_MOOV_SIZE) {
+        log.warn("moov box of {} bytes is too large to relocate: {}", moov.size(), source);
+        return null;
+      }
+
+      ByteBuffer relocated = ByteBuffer.allocate((int) moov.size());
+      while (relocated.hasRemaining()) {
+        if (channel.read(relocated, moov.offset() + relocated.position()) == -1) {
+          return null;
+        }
+      }
+      if (!shiftChunkOffsets(
+          relocated, moov.headerSize(), relocated.capacity(), mdat.offset(), moov)) {
+        log.warn("Chunk offsets cannot be relocated, left as is: {}", source);
+        return null;
+      }
+      return new Mp4Faststart(source, boxes, mdat, moov, relocated);
+    }
+  }
+
+  /**
+   * Writes the file with its {@code moov} box moved in front of the media data. The output has
+   * the size of the source.
+   *
+   * @param out the stream to write to, it is left open
+   * @throws IOException If the file cannot be read or the stream written.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+      WritableByteChannel target = Channels.newChannel(out);
+      for (Box box : boxes) {
+        if (box == mdat) {
+          ByteBuffer moovBytes = relocatedMoov.duplicate().rewind();
+          while (moovBytes.hasRemaining()) {
+            target.write(moovBytes);
+          }
+        }
+        if (box == moov) {
+          continue;
+        }
+        long transferred = 0;
+        while (transferred < box.size()) {
+          long count =
+              channel.transferTo(box.offset() + transferred, box.size() - transferred, target);
+          if (count <= 0) {
+            throw new IOException("File shrank while being rewritten: " + source);
+          }
+          transferred += count;
+        }
+      }
+    }
+  }
+
+  /** Lists the top-level boxes, null when they do not tile the whole file. */
+  private static List<Box> readBoxes(FileChannel channel) throws IOException {
+    long fileSize = channel.size();
+    List<Box> boxes = new ArrayList<>();
+    ByteBuffer header = ByteBuffer.allocate(16);
+    long offset = 0;
+    while (offset < fileSize) {
+      header.clear().limit((int) Math.min(16, fileSize - offset));
+      while (header.hasRemaining()) {
+        if (channel.read(header, offset + header.position()) == -1) {
+          return null;
+        }
+      }
+      if (header.position() < 8) {
+        return null;
+      }
+      long size = Integer.toUnsignedLong(header.getInt(0));
+      int headerSize = 8;
+      if (size == 1) {
+        if (header.position() < 16) {
+          return null;
+        }
+        size = header.getLong(8);
+        headerSize = 16;
+      } else if (size == 0) {
+        size = fileSize - offset;
+      }
+      if (size < headerSize || size > fileSize - offset) {
+        return null;
+      }
+      boxes.add(new Box(type(header, 4), offset, size, headerSize));
+      offset += size;
+    }
+    return boxes;
+  }
+
+  /**
+   * Shifts the chunk offsets inside a box range of the {@code moov} box. Media data between the
+   * first {@code mdat} box and the {@code moov} box moves forward by the size of the {@code moov}
+   * box, data after it keeps its offset.
+   *
+   * @return false when the box structure is not understood or an offset no longer fits in a
+   *     {@code stco} entry
+   */
+  private static boolean shiftChunkOffsets(
+      ByteBuffer buffer, int position, int end, long mdatOffset, Box moov) {
+    while (position + 8 <= end) {
+      long size = Integer.toUnsignedLong(buffer.getInt(position));
+      int headerSize = 8;
+      if (size == 1) {
+        if (position + 16 > end) {
+          return false;
+        }
+        size = buffer.getLong(position + 8);
+        headerSize = 16;
+      } else if (size == 0) {
+        size = end - position;
+      }
+      if (size < headerSize || size > end - position) {
+        return false;
+      }
+      int boxEnd = (int) (position + size);
+      int body = position + headerSize;
+      switch (type(buffer, position + 4)) {
+        case "trak", "mdia", "minf", "stbl" -> {
+          if (!shiftChunkOffsets(buffer, body, boxEnd, mdatOffset, moov)) {
+            return false;
+          }
+        }
+        case "stco" -> {
+          if (!shiftEntries(buffer, body, boxEnd, 4, mdatOffset, moov)) {
+            return false;
+          }
+        }
+        case "co64" -> {
+          if (!shiftEntries(buffer, body, boxEnd, 8, mdatOffset, moov)) {
+            return false;
+          }
+        }
+        // A compressed moov box hides its offsets.
+        case "cmov" -> {
+          return false;
+        }
+        default -> {}
+      }
+      position = boxEnd;
+    }
+    return position == end;
+  }
+
+  private static boolean shiftEntries(
+      ByteBuffer buffer, int body, int end, int entrySize, long mdatOffset, Box moov) {
+    // Version and flags, then the entry count.
+    if (body + 8 > end) {
+      return false;
+    }
+    long count = Integer.toUnsignedLong(buffer.getInt(body + 4));
+    if (count > (end - body - 8) / entrySize) {
+      return false;
+    }
+    for (int i = 0; i < count; i++) {
+      int entry = body + 8 + i * entrySize;
+      long offset =
+          entrySize == 4 ? Integer.toUnsignedLong(buffer.getInt(entry)) : buffer.getLong(entry);
+      if (offset >= mdatOffset && offset < moov.offset()) {
+        offset += moov.size();
+      }
+      if (entrySize == 4) {
+        if (offset > 0xFFFFFFFFL) {
+          return false;
+        }
+        buffer.putInt(entry, (int) offset);
+      } else {
+        buffer.putLong(entry, offset);
+      }
+    }
+    return true;
+  }
+
+  private static String type(ByteBuffer buffer, int position) {
+    byte[] type = new byte[4];
+    buffer.get(position, type);
+    return new String(type, StandardCharsets.ISO_8859_1);
+  }
+}
@@ -0,0 +1,175 @@
+package com.app.storage;
+
+import com.app.exception.sub.MediaNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import lombok.extern.log4j.Log4j2;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Keeps media in an S3 compatible bucket under the {@code image/} and {@code video/} prefixes.
+ * Uploads are spooled to a local staging directory while they are hashed, then put to the bucket
+ * in one request, so a partially uploaded object is never visible.
+ */
+@Log4j2
+public class S3MediaStorage implements MediaStorage {
+
+  private final S3Client s3Client;
+  private final String bucket;
+  private final Path stagingDir;
+  private final Executor executor;
+
+  public S3MediaStorage(S3Client s3Client, String bucket, Path stagingDir, Executor executor) {
+    this.s3Client = s3Client;
+    this.bucket = bucket;
+    this.stagingDir = stagingDir;
+    this.executor = executor;
+  }
+
+  /** Creates the bucket when it does not exist yet. */
+  public void createBucketIfMissing() {
+    try {
+      s3Client.headBucket(builder -> builder.bucket(bucket));
+    } catch (S3Exception e) {
+      if (e.statusCode() != 404) {
+        throw e;
+      }
+      log.info("Creating media bucket: {}", bucket);
+      s3Client.createBucket(builder -> builder.bucket(bucket));
+    }
+  }
+
+  /**
+   * Key of a stored file in the bucket.
+   *
+   * @param filename the stored filename
+   * @return the object key
+   */
+  public String keyOf(String filename) {
+    return FileManager.folderOf(MediaManager.getFileExtension(filename)) + "/" + filename;
+  }
+
+  @Override
+  public CompletableFuture<StagedFile> stage(InputStream content, String extension) {
+    return CompletableFuture.supplyAsync(
+        () -> FileManager.stage(stagingDir, content, extension), executor);
+  }
+
+  @Override
+  public Path stagingDirectory(String extension) throws IOException {
+    return Files.createDirectories(stagingDir);
+  }
+
+  @Override
+  public CompletableFuture<Void> commit(StagedFile staged) {
+    return CompletableFuture.runAsync(
+        () -> {
+          try {
+            String key = keyOf(staged.filename());
+            if (head(key) != null) {
+              log.info("Identical object already stored: {}", key);
+              return;
+            }
+            s3Client.putObject(
+                builder -> builder.bucket(bucket).key(key), RequestBody.fromFile(staged.temp()));
+            log.info("Object saved successfully: {}", key);
+          } finally {
+            FileManager.discard(staged);
+          }
+        },
+        executor);
+  }
+
+  @Override
+  public void discard(StagedFile staged) {
+    FileManager.discard(staged);
+  }
+
+  @Override
+  public CompletableFuture<Void> delete(String filename) {
+    return CompletableFuture.runAsync(
+        () -> {
+          s3Client.deleteObject(builder -> builder.bucket(bucket).key(keyOf(filename)));
+          log.info("Object deleted successfully: {}", keyOf(filename));
+        },
+        executor);
+  }
+
+  @Override
+  public StoredMedia stat(String filename) {
+    HeadObjectResponse head = head(keyOf(filename));
+    if (head == null) {
+      throw new MediaNotFoundException("Media file not found: " + filename);
+    }
+    return new StoredMedia(head.contentLength(), head.lastModified().toEpochMilli());
+  }
+
+  @Override
+  public InputStream openStream(String filename) throws IOException {
+    try {
+      return s3Client.getObject(builder -> builder.bucket(bucket).key(keyOf(filename)));
+    } catch (S3Exception e) {
+      throw new IOException("Error reading object: " + keyOf(filename), e);
+    }
+  }
+
+  @Override
+  public long transferRange(String filename, long position, long length, OutputStream out)
+      throws IOException {
+    if (length <= 0) {
+      return 0;
+    }
+
+    GetObjectRequest request =
+        GetObjectRequest.builder()
+            .bucket(bucket)
+            .key(keyOf(filename))
+            .range("bytes=" + position + "-" + (position + length - 1))
+            .build();
+    try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(request)) {
+      return in.transferTo(out);
+    } catch (S3Exception e) {
+      throw new IOException("Error reading object: " + keyOf(filename), e);
+    }
+  }
+
+  @Override
+  public Stream<StoredFile> list() {
+    // Pages of up to 1000 keys are requested as the stream is consumed.
+    return s3Client
+        .listObjectsV2Paginator(builder -> builder.bucket(bucket))
+        .contents()
+        .stream()
+        .map(
+            object ->
+                new StoredFile(
+                    object.key().substring(object.key().lastIndexOf('/') + 1),
+                    object.size(),
+                    object.lastModified().toEpochMilli()))
+        .filter(file -> MediaManager.isStoredMedia(file.filename()));
+  }
+
+  /** The metadata of an object, or null when it does not exist. */
+  private HeadObjectResponse head(String key) {
+    try {
+      return s3Client.headObject(builder -> builder.bucket(bucket).key(key));
+    } catch (S3Exception e) {
+      if (e.statusCode() == 404) {
+        return null;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package com.app.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Spreads media over several local volumes. The volume of a file is chosen by rendezvous hashing
+ * of its filename, so adding a volume only moves the files that now rank it first; reads of such
+ * files fall back to the other volumes until they are moved.
+ */
+@Log4j2
+public class ShardedMediaStorage implements MediaStorage {
+
+  private final List<LocalMediaStorage> volumes;
+
+  public ShardedMediaStorage(List<LocalMediaStorage> volumes) {
+    if (volumes.isEmpty()) {
+      throw new IllegalArgumentException("At least one volume is required.");
+    }
+    this.volumes = List.copyOf(volumes);
+  }
+
+  /**
+   * The volume a file is written to.
+   *
+   * @param filename the stored filename
+   * @return the volume ranking highest for the filename
+   */
+  LocalMediaStorage volumeFor(String filename) {
+    LocalMediaStorage best = null;
+    long bestWeight = Long.MIN_VALUE;
+    for (LocalMediaStorage volume : volumes) {
+      long weight = mix(volume.getRoot().toString().hashCode() * 31L + filename.hashCode());
+      if (best == null || weight > bestWeight) {
+        best = volume;
+        bestWeight = weight;
+      }
+    }
+    return best;
+  }
+
+  /** The volume currently holding a file, the preferred volume when no volume has it. */
+  private LocalMediaStorage locate(String filename) {
+    LocalMediaStorage preferred = volumeFor(filename);
+    if (preferred.exists(filename)) {
+      return preferred;
+    }
+    for (LocalMediaStorage volume : volumes) {
+      if (volume != preferred && volume.exists(filename)) {
+        return volume;
+      }
+    }
+    return preferred;
+  }
+
+  @Override
+  public CompletableFuture<StagedFile> stage(InputStream content, String extension) {
+    // The target volume depends on the content hash, which is only known once the upload is
+    // staged, so staging happens on the first volume and the commit moves it across if needed.
+    return volumes.getFirst().stage(content, extension);
+  }
+
+  @Override
+  public Path stagingDirectory(String extension) throws IOException {
+    return volumes.getFirst().stagingDirectory(extension);
+  }
+
+  @Override
+  public CompletableFuture<Void> commit(StagedFile staged) {
+    LocalMediaStorage located = locate(staged.filename());
+    if (located.exists(staged.filename())) {
+      discard(staged);
+      log.info("Identical file already stored: {}", staged.filename());
+      return CompletableFuture.completedFuture(null);
+    }
+    return located.commit(staged);
+  }
+
+  @Override
+  public void discard(StagedFile staged) {
+    FileManager.discard(staged);
+  }
+
+  @Override
+  public CompletableFuture<Void> delete(String filename) {
+    return CompletableFuture.allOf(
+        volumes.stream()
+            .filter(volume -> volume.exists(filename))
+            .map(volume -> volume.delete(filename))
+            .toArray(CompletableFuture[]::new));
+  }
+
+  @Override
+  public StoredMedia stat(String filename) {
+    return locate(filename).stat(filename);
+  }
+
+  @Override
+  public InputStream openStream(String filename) throws IOException {
+    return locate(filename).openStream(filename);
+  }
+
+  @Override
+  public long transferRange(String filename, long position, long length, OutputStream out)
+      throws IOException {
+    return locate(filename).transferRange(filename, position, length, out);
+  }
+
+  @Override
+  public Stream<StoredFile> list() {
+    return volumes.stream().flatMap(LocalMediaStorage::list);
+  }
+
+  @Override
+  public int migrateLayout(int limit) {
+    int moved = 0;
+    for (LocalMediaStorage volume : volumes) {
+      moved += volume.migrateLayout(limit - moved);
+    }
+    return moved;
+  }
+
+  /** SplitMix64 finalizer, spreads the combined hash over the whole long range. */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,17 @@
+package com.app.storage;
+
+import java.nio.file.Path;
+
+/**
+ * An upload copied to a temporary file, waiting to be committed to its storage.
+ *
+ * @param temp the temporary file holding the upload
+ * @param filename the content-addressed name the upload is stored under
+ * @param inspection what was learned about the content while staging it, null when not inspected
+ */
+public record StagedFile(Path temp, String filename, UploadInspector.Inspection inspection) {
+
+  public StagedFile(Path temp, String filename) {
+    this(temp, filename, null);
+  }
+}
@@ -0,0 +1,10 @@
+package com.app.storage;
+
+/**
+ * A file found while listing a {@link MediaStorage}.
+ *
+ * @param filename the stored filename
+ * @param size the size of the file in bytes
+ * @param lastModified the last modification time in epoch milliseconds
+ */
+public record StoredFile(String filename, long size, long lastModified) {}
@@ -0,0 +1,9 @@
+package com.app.storage;
+
+/**
+ * Metadata of a file kept by a {@link MediaStorage}.
+ *
+ * @param size the size of the file in bytes
+ * @param lastModified the last modification time in epoch milliseconds
+ */
+public record StoredMedia(long size, long lastModified) {}
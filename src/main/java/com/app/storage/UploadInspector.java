@@ -0,0 +1,228 @@
+package com.app.storage;
+
+import com.app.exception.sub.MediaNotSupportException;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Inspects an upload while it streams through, so the content is read only once: the format is
+ * sniffed from the magic bytes of the first chunk, the bytes are counted and hashed, and the
+ * image header is kept to read the dimensions from. Only the header is held in memory.
+ */
+public class UploadInspector extends FilterInputStream {
+
+  /** Bytes needed to recognize every supported format. */
+  private static final int SNIFF_LENGTH = 12;
+
+  /** Bytes kept for the image header, enough for a JPEG with a full EXIF segment before SOF. */
+  private static final int HEADER_LIMIT = 128 * 1024;
+
+  private final String extension;
+  private final boolean strict;
+  private final MessageDigest digest;
+  private final byte[] header = new byte[HEADER_LIMIT];
+  private int headerLength;
+  private long count;
+  private Format format;
+  private boolean sniffed;
+  private Inspection inspection;
+
+  /**
+   * Result of the inspection of an upload.
+   *
+   * @param sizeBytes the number of bytes read
+   * @param sha256 the hex encoded SHA-256 of the content
+   * @param mimeType the MIME type sniffed from the content, null when not recognized
+   * @param width the width of an image in pixels, null when unknown
+   * @param height the height of an image in pixels, null when unknown
+   */
+  public record Inspection(
+      long sizeBytes, String sha256, String mimeType, Integer width, Integer height) {}
+
+  private enum Format {
+    JPEG("image/jpeg", "jpg", "jpeg"),
+    PNG("image/png", "png"),
+    GIF("image/gif", "gif"),
+    MP4("video/mp4", "mp4");
+
+    private final String mimeType;
+    private final String[] extensions;
+
+    Format(String mimeType, String... extensions) {
+      this.mimeType = mimeType;
+      this.extensions = extensions;
+    }
+
+    private boolean matches(String extension) {
+      return Arrays.asList(extensions).contains(extension.toLowerCase());
+    }
+  }
+
+  /**
+   * Wraps an upload.
+   *
+   * @param in the content of the upload
+   * @param extension the extension the upload claims to have
+   * @param strict whether reading fails as soon as the content is not of the claimed format
+   */
+  public UploadInspector(InputStream in, String extension, boolean strict) {
+    super(in);
+    this.extension = extension;
+    this.strict = strict;
+    try {
+      this.digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * Inspects content unless it is already being inspected, in which case the caller's inspector
+   * and its strictness are kept.
+   *
+   * @param content the content to inspect
+   * @param extension the extension the content claims to have
+   * @return an inspector reading the content
+   */
+  public static UploadInspector of(InputStream content, String extension) {
+    return content instanceof UploadInspector inspector
+        ? inspector
+        : new UploadInspector(content, extension, false);
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = in.read();
+    if (b == -1) {
+      sniff();
+      return -1;
+    }
+    update(new byte[] {(byte) b}, 0, 1);
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int n = in.read(b, off, len);
+    if (n == -1) {
+      sniff();
+      return -1;
+    }
+    update(b, off, n);
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    // Skipped bytes still have to be hashed.
+    byte[] scratch = new byte[(int) Math.min(n, 8192)];
+    long skipped = 0;
+    while (skipped < n) {
+      int read = read(scratch, 0, (int) Math.min(scratch.length, n - skipped));
+      if (read == -1) {
+        break;
+      }
+      skipped += read;
+    }
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  /**
+   * The result of the inspection, once the content was read to its end.
+   *
+   * @return the inspection
+   */
+  public Inspection inspection() {
+    if (inspection != null) {
+      return inspection;
+    }
+    sniff();
+    Integer width = null;
+    Integer height = null;
+    if (format != null && format != Format.MP4) {
+      try {
+        int[] dimensions =
+            MediaInspector.readImageDimensions(new ByteArrayInputStream(header, 0, headerLength));
+        if (dimensions != null) {
+          width = dimensions[0];
+          height = dimensions[1];
+        }
+      } catch (IOException | RuntimeException e) {
+        // The header did not fit in the kept bytes, the dimensions stay unknown.
+      }
+    }
+    inspection =
+        new Inspection(
+            count,
+            HexFormat.of().formatHex(digest.digest()),
+            format != null ? format.mimeType : null,
+            width,
+            height);
+    return inspection;
+  }
+
+  private void update(byte[] b, int off, int n) {
+    digest.update(b, off, n);
+    count += n;
+    if (headerLength < HEADER_LIMIT) {
+      int kept = Math.min(n, HEADER_LIMIT - headerLength);
+      System.arraycopy(b, off, header, headerLength, kept);
+      headerLength += kept;
+    }
+    if (!sniffed && headerLength >= SNIFF_LENGTH) {
+      sniff();
+    }
+  }
+
+  /** Recognizes the format from the magic bytes, rejecting a mismatch when strict. */
+  private void sniff() {
+    if (sniffed) {
+      return;
+    }
+    sniffed = true;
+    format = detect();
+    if (strict && (format == null || !format.matches(extension))) {
+      throw new MediaNotSupportException("Content is not a valid " + extension + " file");
+    }
+  }
+
+  private Format detect() {
+    if (startsWith(0xFF, 0xD8, 0xFF)) {
+      return Format.JPEG;
+    } else if (startsWith(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+      return Format.PNG;
+    } else if (startsWith('G', 'I', 'F', '8') && headerLength >= 6 && header[5] == 'a') {
+      return Format.GIF;
+    } else if (headerLength >= 8
+        && header[4] == 'f'
+        && header[5] == 't'
+        && header[6] == 'y'
+        && header[7] == 'p') {
+      return Format.MP4;
+    }
+    return null;
+  }
+
+  private boolean startsWith(int... magic) {
+    if (headerLength < magic.length) {
+      return false;
+    }
+    for (int i = 0; i < magic.length; i++) {
+      if ((header[i] & 0xFF) != magic[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -2,5 +2,14 @@ CREATE TABLE IF NOT EXISTS media(
     id INT AUTO_INCREMENT PRIMARY KEY,
     url VARCHAR(500) NOT NULL,
     media_type ENUM('VIDEO', 'IMAGE') NOT NULL,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    size_bytes BIGINT,
+    mime_type VARCHAR(100),
+    width INT,
+    height INT,
+    duration_ms BIGINT,
+    placeholder VARCHAR(64),
+    checksum CHAR(64),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_media_url (url(255))
 );
\ No newline at end of file
@@ -0,0 +1,5 @@
+CREATE TABLE IF NOT EXISTS media_blobs(
+    url VARCHAR(255) PRIMARY KEY,
+    ref_count INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
\ No newline at end of file
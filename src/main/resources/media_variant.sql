@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS media_variants(
+    media_id INT NOT NULL,
+    width INT NOT NULL,
+    height INT NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    url VARCHAR(255) NOT NULL,
+    PRIMARY KEY (media_id, width),
+    INDEX idx_media_variants_url (url),
+    FOREIGN KEY (media_id) REFERENCES media(id) ON DELETE CASCADE
+);
\ No newline at end of file
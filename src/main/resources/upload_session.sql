@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS upload_sessions(
+    id CHAR(36) PRIMARY KEY,
+    user_id INT NOT NULL,
+    extension VARCHAR(10) NOT NULL,
+    upload_length BIGINT NOT NULL,
+    upload_offset BIGINT NOT NULL DEFAULT 0,
+    media_id INT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (media_id) REFERENCES media(id) ON DELETE CASCADE
+);
\ No newline at end of file
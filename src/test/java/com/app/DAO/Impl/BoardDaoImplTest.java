@@ -182,11 +182,12 @@ class BoardDaoImplTest {
                     "SELECT b.id AS board_id, b.board_name, b.create_at, "
                         + "u.id AS user_id, u.username, "
                         + "p.id AS pin_id, p.media_id, p.user_id AS pin_user_id "
-                        + "FROM boards b "
+                        + "FROM (SELECT id, board_name, create_at, user_id FROM boards "
+                        + "WHERE user_id = ? ORDER BY id DESC LIMIT ? OFFSET ?) b "
                         + "JOIN users u ON b.user_id = u.id "
                         + "LEFT JOIN board_pin bp ON b.id = bp.board_id "
                         + "LEFT JOIN pins p ON p.id = bp.pin_id "
-                        + "WHERE b.user_id = ? limit ? offset ?"),
+                        + "ORDER BY b.id DESC"),
                 Mockito.any(BoardResultSetExtractor.class),
                 Mockito.eq(1L),
                 Mockito.eq(10),
@@ -203,11 +204,12 @@ class BoardDaoImplTest {
                 "SELECT b.id AS board_id, b.board_name, b.create_at, "
                     + "u.id AS user_id, u.username, "
                     + "p.id AS pin_id, p.media_id, p.user_id AS pin_user_id "
-                    + "FROM boards b "
+                    + "FROM (SELECT id, board_name, create_at, user_id FROM boards "
+                    + "WHERE user_id = ? ORDER BY id DESC LIMIT ? OFFSET ?) b "
                     + "JOIN users u ON b.user_id = u.id "
                     + "LEFT JOIN board_pin bp ON b.id = bp.board_id "
                     + "LEFT JOIN pins p ON p.id = bp.pin_id "
-                    + "WHERE b.user_id = ? limit ? offset ?"),
+                    + "ORDER BY b.id DESC"),
             Mockito.any(BoardResultSetExtractor.class),
             Mockito.eq(1L),
             Mockito.eq(10),
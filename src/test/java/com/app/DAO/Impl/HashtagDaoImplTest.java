@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 
 import com.app.Model.Hashtag;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -90,4 +91,17 @@ class HashtagDaoImplTest {
     var result = hashtagDao.save(hashtag);
     assertNull(result);
   }
+
+  @Test
+  void findTopTags_shouldCountPinsCreatedSince() {
+    LocalDateTime since = LocalDateTime.now().minusDays(7);
+    when(jdbcTemplate.queryForList(
+            contains("WHERE p.created_at > ?"),
+            eq(String.class),
+            eq(Timestamp.valueOf(since)),
+            eq(10)))
+        .thenReturn(List.of("java", "spring"));
+
+    assertEquals(List.of("java", "spring"), hashtagDao.findTopTags(since, 10));
+  }
 }
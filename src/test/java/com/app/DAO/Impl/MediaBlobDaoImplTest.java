@@ -0,0 +1,100 @@
+package com.app.DAO.Impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class MediaBlobDaoImplTest {
+
+  @InjectMocks private MediaBlobDaoImpl mediaBlobDao;
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void acquire_shouldInsertOrIncrementReference() {
+    Mockito.when(
+            jdbcTemplate.update(
+                Mockito.eq(
+                    "INSERT INTO media_blobs(url, ref_count) VALUES(?, 1) "
+                        + "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1"),
+                Mockito.eq("hash.jpg")))
+        .thenReturn(1);
+
+    assertEquals(1, mediaBlobDao.acquire("hash.jpg"));
+  }
+
+  @Test
+  void release_shouldDecrementReference_whenStillShared() {
+    Mockito.when(
+            jdbcTemplate.queryForList(
+                "SELECT ref_count FROM media_blobs WHERE url = ? FOR UPDATE",
+                Integer.class,
+                "hash.jpg"))
+        .thenReturn(List.of(3));
+
+    var result = mediaBlobDao.release("hash.jpg");
+
+    assertEquals(2, result);
+    Mockito.verify(jdbcTemplate)
+        .update("UPDATE media_blobs SET ref_count = ? WHERE url = ?", 2, "hash.jpg");
+  }
+
+  @Test
+  void release_shouldDeleteRow_whenLastReference() {
+    Mockito.when(
+            jdbcTemplate.queryForList(
+                "SELECT ref_count FROM media_blobs WHERE url = ? FOR UPDATE",
+                Integer.class,
+                "hash.jpg"))
+        .thenReturn(List.of(1));
+
+    var result = mediaBlobDao.release("hash.jpg");
+
+    assertEquals(0, result);
+    Mockito.verify(jdbcTemplate).update("DELETE FROM media_blobs WHERE url = ?", "hash.jpg");
+  }
+
+  @Test
+  void release_shouldReturnZero_whenFileNotCounted() {
+    Mockito.when(
+            jdbcTemplate.queryForList(
+                "SELECT ref_count FROM media_blobs WHERE url = ? FOR UPDATE",
+                Integer.class,
+                "legacy.jpg"))
+        .thenReturn(List.of());
+
+    assertEquals(0, mediaBlobDao.release("legacy.jpg"));
+  }
+
+  @Test
+  void deleteUnreferenced_shouldDeleteRow_whenNoMediaPointsAtFile() {
+    Mockito.when(
+            jdbcTemplate.update(
+                "DELETE FROM media_blobs WHERE url = ?"
+                    + " AND NOT EXISTS (SELECT 1 FROM media m WHERE m.url = ?)"
+                    + " AND NOT EXISTS (SELECT 1 FROM media_variants v WHERE v.url = ?)",
+                "hash.jpg",
+                "hash.jpg",
+                "hash.jpg"))
+        .thenReturn(1);
+
+    assertEquals(1, mediaBlobDao.deleteUnreferenced("hash.jpg"));
+  }
+
+  @Test
+  void deleteReleased_shouldOnlyDeleteUnreferencedCount() {
+    Mockito.when(
+            jdbcTemplate.update(
+                "DELETE FROM media_blobs WHERE url = ? AND ref_count = 0", "hash.jpg"))
+        .thenReturn(0);
+
+    assertEquals(0, mediaBlobDao.deleteReleased("hash.jpg"));
+  }
+}
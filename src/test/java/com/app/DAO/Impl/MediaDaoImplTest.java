@@ -3,8 +3,14 @@ package com.app.DAO.Impl;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.app.Model.Media;
+import com.app.Model.MediaChangedEvent;
 import com.app.Model.MediaType;
+import com.app.Model.MediaVariant;
 import com.app.exception.sub.MediaNotFoundException;
+import com.app.storage.MediaManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,8 +19,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
@@ -25,6 +33,7 @@ class MediaDaoImplTest {
 
   @InjectMocks private MediaDaoImpl mediaDao;
   @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private ApplicationEventPublisher eventPublisher;
 
   private Media media;
 
@@ -52,24 +61,28 @@ class MediaDaoImplTest {
 
     assertNotNull(result);
     assertEquals(media, result);
+    Mockito.verify(eventPublisher).publishEvent(new MediaChangedEvent(1L));
   }
 
   @Test
-  void save_shouldReturnNull_whenInsertFails() {
+  void save_shouldThrow_whenInsertFails() {
     Mockito.when(
             jdbcTemplate.update(
                 Mockito.any(PreparedStatementCreator.class), Mockito.any(KeyHolder.class)))
         .thenReturn(0);
 
-    var result = mediaDao.save(media);
-    assertNull(result);
+    assertThrows(RuntimeException.class, () -> mediaDao.save(media));
+    Mockito.verifyNoInteractions(eventPublisher);
   }
 
   @Test
   void findById_shouldReturnMedia_whenMediaExists() {
     Mockito.when(
             jdbcTemplate.queryForObject(
-                Mockito.eq("SELECT id, url, media_type FROM media WHERE id = ?"),
+                Mockito.eq(
+                    "SELECT id, url, media_type, size_bytes, mime_type, width, height, "
+                        + "duration_ms, placeholder, checksum, created_at, updated_at "
+                        + "FROM media WHERE id = ?"),
                 Mockito.any(RowMapper.class),
                 Mockito.eq(1L)))
         .thenReturn(media);
@@ -80,7 +93,10 @@ class MediaDaoImplTest {
 
     Mockito.verify(jdbcTemplate)
         .queryForObject(
-            Mockito.eq("SELECT id, url, media_type FROM media WHERE id = ?"),
+            Mockito.eq(
+                "SELECT id, url, media_type, size_bytes, mime_type, width, height, "
+                    + "duration_ms, placeholder, checksum, created_at, updated_at "
+                    + "FROM media WHERE id = ?"),
             Mockito.any(RowMapper.class),
             Mockito.eq(1L));
   }
@@ -99,7 +115,9 @@ class MediaDaoImplTest {
     Mockito.when(
             jdbcTemplate.queryForObject(
                 Mockito.eq(
-                    "SELECT m.id, m.url, m.media_type FROM media m "
+                    "SELECT m.id, m.url, m.media_type, m.size_bytes, m.mime_type, m.width, "
+                        + "m.height, m.duration_ms, m.placeholder, m.checksum, m.created_at, "
+                        + "m.updated_at FROM media m "
                         + "INNER JOIN comments c ON m.id = c.media_id "
                         + "WHERE c.id = ?"),
                 Mockito.any(RowMapper.class),
@@ -113,7 +131,9 @@ class MediaDaoImplTest {
     Mockito.verify(jdbcTemplate)
         .queryForObject(
             Mockito.eq(
-                "SELECT m.id, m.url, m.media_type FROM media m "
+                "SELECT m.id, m.url, m.media_type, m.size_bytes, m.mime_type, m.width, "
+                    + "m.height, m.duration_ms, m.placeholder, m.checksum, m.created_at, "
+                    + "m.updated_at FROM media m "
                     + "INNER JOIN comments c ON m.id = c.media_id "
                     + "WHERE c.id = ?"),
             Mockito.any(RowMapper.class),
@@ -129,6 +149,117 @@ class MediaDaoImplTest {
     assertThrows(MediaNotFoundException.class, () -> mediaDao.findByCommentId(1L));
   }
 
+  @Test
+  void update_shouldReplaceVariants() {
+    media.setVariants(
+        List.of(
+            MediaVariant.builder().width(236).height(177).sizeBytes(100L).url("url_w236").build()));
+    Mockito.when(jdbcTemplate.update(Mockito.anyString(), Mockito.any(Object[].class)))
+        .thenReturn(1);
+
+    var result = mediaDao.update(1L, media);
+
+    assertEquals(media, result);
+    // The row keeps its creation date, the change is dated separately for Last-Modified.
+    Mockito.verify(jdbcTemplate)
+        .update(Mockito.contains("updated_at = CURRENT_TIMESTAMP"), Mockito.any(Object[].class));
+    Mockito.verify(jdbcTemplate).update("DELETE FROM media_variants WHERE media_id = ?", 1L);
+    Mockito.verify(jdbcTemplate)
+        .batchUpdate(
+            Mockito.eq(
+                "INSERT INTO media_variants(media_id, width, height, size_bytes, url) "
+                    + "VALUES(?,?,?,?,?)"),
+            Mockito.eq(media.getVariants()),
+            Mockito.eq(1),
+            Mockito.any(ParameterizedPreparedStatementSetter.class));
+    Mockito.verify(eventPublisher).publishEvent(new MediaChangedEvent(1L));
+  }
+
+  @Test
+  void update_shouldNotAnnounceChange_whenMediaDoesNotExist() {
+    Mockito.when(jdbcTemplate.update(Mockito.anyString(), Mockito.any(Object[].class)))
+        .thenReturn(0);
+
+    assertNull(mediaDao.update(1L, media));
+    Mockito.verifyNoInteractions(eventPublisher);
+  }
+
+  @Test
+  void updateMetadata_shouldOnlyUpdateSameFile() {
+    media.setSizeBytes(1024L);
+    media.setMimeType("image/png");
+    media.setWidth(640);
+    media.setHeight(480);
+    Mockito.when(
+            jdbcTemplate.update(
+                "UPDATE media SET size_bytes = ?, mime_type = ?, width = ?, height = ?, "
+                    + "duration_ms = ?, placeholder = ? WHERE id = ? AND url = ?",
+                1024L,
+                "image/png",
+                640,
+                480,
+                null,
+                null,
+                1L,
+                "url"))
+        .thenReturn(1);
+
+    var result = mediaDao.updateMetadata(1L, media);
+
+    assertEquals(1, result);
+    Mockito.verify(eventPublisher).publishEvent(new MediaChangedEvent(1L));
+  }
+
+  @Test
+  void findMissingMetadata_shouldReturnMediaWithoutSize() {
+    Mockito.when(
+            jdbcTemplate.query(
+                Mockito.eq(
+                    "SELECT id, url, media_type, size_bytes, mime_type, width, height, "
+                        + "duration_ms, placeholder, checksum, created_at, updated_at "
+                        + "FROM media "
+                        + "WHERE (size_bytes IS NULL "
+                        + "OR (media_type = 'IMAGE' AND placeholder IS NULL)) "
+                        + "AND id > ? ORDER BY id LIMIT ?"),
+                Mockito.any(RowMapper.class),
+                Mockito.eq(0L),
+                Mockito.eq(100)))
+        .thenReturn(List.of(media));
+
+    var result = mediaDao.findMissingMetadata(0L, 100);
+
+    assertEquals(List.of(media), result);
+  }
+
+  @Test
+  void findUnreferenced_shouldSkipDefaultProfilePicture() {
+    LocalDateTime cutoff = LocalDateTime.of(2025, 1, 1, 0, 0);
+    Mockito.when(
+            jdbcTemplate.query(
+                Mockito.eq(
+                    "SELECT id, url, media_type, size_bytes, mime_type, width, height, "
+                        + "duration_ms, placeholder, checksum, created_at, updated_at "
+                        + "FROM media m "
+                        + "WHERE m.id > ? AND m.created_at < ? AND m.url <> ? "
+                        + "AND NOT EXISTS (SELECT 1 FROM pins p WHERE p.media_id = m.id) "
+                        + "AND NOT EXISTS (SELECT 1 FROM comments c WHERE c.media_id = m.id) "
+                        + "AND NOT EXISTS (SELECT 1 FROM sub_comments s WHERE s.media_id = m.id) "
+                        + "AND NOT EXISTS (SELECT 1 FROM users u WHERE u.media_id = m.id) "
+                        + "AND NOT EXISTS "
+                        + "(SELECT 1 FROM upload_sessions us WHERE us.media_id = m.id) "
+                        + "ORDER BY m.id LIMIT ?"),
+                Mockito.any(RowMapper.class),
+                Mockito.eq(0L),
+                Mockito.eq(Timestamp.valueOf(cutoff)),
+                Mockito.eq(MediaManager.DEFAULT_PROFILE_PICTURE),
+                Mockito.eq(100)))
+        .thenReturn(List.of(media));
+
+    var result = mediaDao.findUnreferenced(0L, cutoff, 100);
+
+    assertEquals(List.of(media), result);
+  }
+
   @Test
   void deleteById_shouldDeleteMedia_whenMediaExists() {
     Mockito.when(jdbcTemplate.update(Mockito.eq("DELETE FROM media WHERE id = ?"), Mockito.eq(1L)))
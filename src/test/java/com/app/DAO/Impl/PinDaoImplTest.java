@@ -12,6 +12,7 @@ import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -20,6 +21,7 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.SqlProvider;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 
@@ -48,7 +50,10 @@ class PinDaoImplTest {
     Mockito.when(
             jdbcTemplate.query(
                 Mockito.eq(
-                    "SELECT id, user_id, media_id, created_at FROM pins ORDER BY created_at DESC LIMIT ? OFFSET ?"),
+                    "SELECT p.id, p.user_id, p.media_id, p.created_at, "
+                        + "m.placeholder, m.width, m.height "
+                        + "FROM pins p LEFT JOIN media m ON m.id = p.media_id "
+                        + "ORDER BY p.id DESC LIMIT ? OFFSET ?"),
                 Mockito.any(PinRowMapper.class),
                 Mockito.eq(10),
                 Mockito.eq(0)))
@@ -62,7 +67,10 @@ class PinDaoImplTest {
     Mockito.verify(jdbcTemplate)
         .query(
             Mockito.eq(
-                "SELECT id, user_id, media_id, created_at FROM pins ORDER BY created_at DESC LIMIT ? OFFSET ?"),
+                "SELECT p.id, p.user_id, p.media_id, p.created_at, "
+                    + "m.placeholder, m.width, m.height "
+                    + "FROM pins p LEFT JOIN media m ON m.id = p.media_id "
+                    + "ORDER BY p.id DESC LIMIT ? OFFSET ?"),
             Mockito.any(PinRowMapper.class),
             Mockito.eq(10),
             Mockito.eq(0));
@@ -73,11 +81,13 @@ class PinDaoImplTest {
     Mockito.when(
             jdbcTemplate.query(
                 Mockito.eq(
-                    "SELECT p.id, p.user_id, p.media_id, p.created_at "
+                    "SELECT p.id, p.user_id, p.media_id, p.created_at, "
+                        + "m.placeholder, m.width, m.height "
                         + "FROM pins p "
                         + "JOIN hashtags_pins hp ON p.id = hp.pin_id "
                         + "JOIN hashtags h ON hp.hashtag_id = h.id "
-                        + "WHERE h.tag = ? ORDER BY p.created_at DESC LIMIT ? OFFSET ?"),
+                        + "LEFT JOIN media m ON m.id = p.media_id "
+                        + "WHERE h.tag = ? ORDER BY p.id DESC LIMIT ? OFFSET ?"),
                 Mockito.any(PinRowMapper.class),
                 Mockito.eq("tag"),
                 Mockito.eq(10),
@@ -92,11 +102,13 @@ class PinDaoImplTest {
     Mockito.verify(jdbcTemplate)
         .query(
             Mockito.eq(
-                "SELECT p.id, p.user_id, p.media_id, p.created_at "
+                "SELECT p.id, p.user_id, p.media_id, p.created_at, "
+                    + "m.placeholder, m.width, m.height "
                     + "FROM pins p "
                     + "JOIN hashtags_pins hp ON p.id = hp.pin_id "
                     + "JOIN hashtags h ON hp.hashtag_id = h.id "
-                    + "WHERE h.tag = ? ORDER BY p.created_at DESC LIMIT ? OFFSET ?"),
+                    + "LEFT JOIN media m ON m.id = p.media_id "
+                    + "WHERE h.tag = ? ORDER BY p.id DESC LIMIT ? OFFSET ?"),
             Mockito.any(PinRowMapper.class),
             Mockito.eq("tag"),
             Mockito.eq(10),
@@ -147,7 +159,10 @@ class PinDaoImplTest {
   void findById_shouldReturnPin_whenPinExists() {
     Mockito.when(
             jdbcTemplate.queryForObject(
-                Mockito.eq("SELECT id, media_id, user_id, created_at FROM pins where id = ?"),
+                Mockito.eq(
+                    "SELECT p.id, p.user_id, p.media_id, p.created_at, "
+                        + "m.placeholder, m.width, m.height "
+                        + "FROM pins p LEFT JOIN media m ON m.id = p.media_id WHERE p.id = ?"),
                 Mockito.any(PinRowMapper.class),
                 Mockito.eq(1L)))
         .thenReturn(pin);
@@ -159,7 +174,10 @@ class PinDaoImplTest {
 
     Mockito.verify(jdbcTemplate)
         .queryForObject(
-            Mockito.eq("SELECT id, media_id, user_id, created_at FROM pins where id = ?"),
+            Mockito.eq(
+                "SELECT p.id, p.user_id, p.media_id, p.created_at, "
+                    + "m.placeholder, m.width, m.height "
+                    + "FROM pins p LEFT JOIN media m ON m.id = p.media_id WHERE p.id = ?"),
             Mockito.any(PinRowMapper.class),
             Mockito.eq(1L));
   }
@@ -212,12 +230,37 @@ class PinDaoImplTest {
     assertThrows(PinNotFoundException.class, () -> pinDao.findById(1L, true));
   }
 
+  @Test
+  void findByIds_shouldQueryAllPinsAtOnce() {
+    var statement = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+    Mockito.when(jdbcTemplate.query(statement.capture(), Mockito.any(PinRowMapper.class)))
+        .thenReturn(List.of(pin));
+
+    var result = pinDao.findByIds(List.of(1L, 2L));
+
+    assertEquals(List.of(pin), result);
+    assertEquals(
+        "SELECT p.id, p.user_id, p.media_id, p.created_at, m.placeholder, m.width, m.height "
+            + "FROM pins p LEFT JOIN media m ON m.id = p.media_id "
+            + "WHERE p.id IN (?, ?) ORDER BY p.id",
+        ((SqlProvider) statement.getValue()).getSql());
+  }
+
+  @Test
+  void findByIds_shouldNotQuery_whenIdsAreEmpty() {
+    assertTrue(pinDao.findByIds(List.of()).isEmpty());
+    Mockito.verifyNoInteractions(jdbcTemplate);
+  }
+
   @Test
   void findPinByUserId_shouldReturnListOfPin_whenUserExists() {
     Mockito.when(
             jdbcTemplate.query(
                 Mockito.eq(
-                    "SELECT id, user_id, media_id, created_at FROM pins WHERE user_id = ? ORDER BY created_at DESC limit ? offset ?"),
+                    "SELECT p.id, p.user_id, p.media_id, p.created_at, "
+                        + "m.placeholder, m.width, m.height "
+                        + "FROM pins p LEFT JOIN media m ON m.id = p.media_id "
+                        + "WHERE p.user_id = ? ORDER BY p.id DESC LIMIT ? OFFSET ?"),
                 Mockito.any(PinRowMapper.class),
                 Mockito.eq(1L),
                 Mockito.eq(10),
@@ -232,7 +275,10 @@ class PinDaoImplTest {
     Mockito.verify(jdbcTemplate)
         .query(
             Mockito.eq(
-                "SELECT id, user_id, media_id, created_at FROM pins WHERE user_id = ? ORDER BY created_at DESC limit ? offset ?"),
+                "SELECT p.id, p.user_id, p.media_id, p.created_at, "
+                    + "m.placeholder, m.width, m.height "
+                    + "FROM pins p LEFT JOIN media m ON m.id = p.media_id "
+                    + "WHERE p.user_id = ? ORDER BY p.id DESC LIMIT ? OFFSET ?"),
             Mockito.any(PinRowMapper.class),
             Mockito.eq(1L),
             Mockito.eq(10),
@@ -102,7 +102,7 @@ class SubCommentDaoImplTest {
                     + "FROM sub_comments sc "
                     + "JOIN users u ON sc.user_id = u.id "
                     + "JOIN comments c ON sc.comment_id = c.id "
-                    + "WHERE sc.comment_id = ? ORDER BY sc.create_at DESC limit ? offset ?"),
+                    + "WHERE sc.comment_id = ? ORDER BY sc.id DESC limit ? offset ?"),
             any(SubCommentRowMapper.class),
             eq(1L),
             eq(5),
@@ -125,7 +125,7 @@ class SubCommentDaoImplTest {
                     + "FROM sub_comments sc "
                     + "JOIN users u ON sc.user_id = u.id "
                     + "JOIN comments c ON sc.comment_id = c.id "
-                    + "WHERE sc.comment_id = ? ORDER BY sc.create_at DESC limit ? offset ?"),
+                    + "WHERE sc.comment_id = ? ORDER BY sc.id DESC limit ? offset ?"),
             any(SubCommentRowMapper.class),
             eq(1L),
             eq(5),
@@ -0,0 +1,76 @@
+package com.app.DAO.Impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.app.Model.UploadSession;
+import com.app.exception.sub.UploadSessionNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionDaoImplTest {
+
+  @InjectMocks private UploadSessionDaoImpl uploadSessionDao;
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void save_shouldInsertSession() {
+    UploadSession session =
+        UploadSession.builder().id("id").userId(1L).extension("mp4").length(1024).build();
+
+    var result = uploadSessionDao.save(session);
+
+    assertEquals(session, result);
+    Mockito.verify(jdbcTemplate)
+        .update(
+            "INSERT INTO upload_sessions(id, user_id, extension, upload_length) VALUES(?,?,?,?)",
+            "id",
+            1L,
+            "mp4",
+            1024L);
+  }
+
+  @Test
+  void findById_shouldThrowException_whenSessionDoesNotExist() {
+    Mockito.when(
+            jdbcTemplate.queryForObject(
+                Mockito.eq(
+                    "SELECT id, user_id, extension, upload_length, upload_offset, media_id, "
+                        + "created_at FROM upload_sessions WHERE id = ?"),
+                Mockito.any(RowMapper.class),
+                Mockito.eq("id")))
+        .thenThrow(new EmptyResultDataAccessException(1));
+
+    assertThrows(UploadSessionNotFoundException.class, () -> uploadSessionDao.findById("id"));
+  }
+
+  @Test
+  void updateOffset_shouldOnlyMoveFromExpectedOffset() {
+    Mockito.when(
+            jdbcTemplate.update(
+                "UPDATE upload_sessions SET upload_offset = ? WHERE id = ? AND upload_offset = ?",
+                2048L,
+                "id",
+                1024L))
+        .thenReturn(1);
+
+    assertEquals(1, uploadSessionDao.updateOffset("id", 1024, 2048));
+  }
+
+  @Test
+  void claim_shouldDeleteFinishedUploadOfUser() {
+    Mockito.when(
+            jdbcTemplate.update(
+                "DELETE FROM upload_sessions WHERE media_id = ? AND user_id = ?", 5L, 1L))
+        .thenReturn(1);
+
+    assertEquals(1, uploadSessionDao.claim(5L, 1L));
+  }
+}
@@ -12,6 +12,7 @@ import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -156,6 +157,20 @@ class UserDaoImplTest {
     assertThrows(UserNotFoundException.class, () -> userDao.findUserById(1L));
   }
 
+  @Test
+  void findUsersByIds_shouldQueryAllUsersAtOnce() {
+    var statement = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+    when(jdbcTemplate.query(statement.capture(), any(UserRowMapper.class)))
+        .thenReturn(List.of(user));
+
+    var result = userDao.findUsersByIds(List.of(1L, 2L));
+
+    assertEquals(List.of(user), result);
+    assertEquals(
+        "SELECT id, username, email, enable FROM users WHERE id IN (?, ?) ORDER BY id",
+        ((SqlProvider) statement.getValue()).getSql());
+  }
+
   @Test
   void findUserByUsername_shouldReturnUser_whenUserExists() {
     when(jdbcTemplate.queryForObject(
@@ -0,0 +1,120 @@
+package com.app.Service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+import com.app.DAO.HashtagDao;
+import com.app.Model.Pin;
+import com.app.Model.SortType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmUpTest {
+
+  @Mock private PinService pinService;
+  @Mock private HashtagDao hashtagDao;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private CacheWarmUp warmUp;
+
+  @BeforeEach
+  void setUp() {
+    warmUp = warmUp(Duration.ofSeconds(5));
+  }
+
+  private CacheWarmUp warmUp(Duration budget) {
+    return new CacheWarmUp(
+        pinService, hashtagDao, meterRegistry, true, 3, 10, 2, Duration.ofDays(7), 2, budget);
+  }
+
+  private static Pin pin(long id) {
+    return Pin.builder().id(id).build();
+  }
+
+  private long count(String step, String result) {
+    return meterRegistry
+        .get("cache.warmup")
+        .tag("step", step)
+        .tag("result", result)
+        .timer()
+        .count();
+  }
+
+  @Test
+  void warmUp_shouldLoadFeedTopHashtagsAndTheirPins() {
+    Mockito.when(pinService.getAllPins(SortType.NEWEST, 30, 0))
+        .thenReturn(List.of(pin(1), pin(2)));
+    Mockito.when(hashtagDao.findTopTags(any(LocalDateTime.class), Mockito.eq(2)))
+        .thenReturn(List.of("cats", "dogs"));
+    Mockito.when(pinService.getAllPinsByHashtag("cats", 10, 0)).thenReturn(List.of(pin(2)));
+    Mockito.when(pinService.getAllPinsByHashtag("dogs", 10, 0)).thenReturn(List.of(pin(3)));
+
+    assertEquals(3, warmUp.warmUp());
+
+    Mockito.verify(pinService).findByIds(Set.of(1L, 2L, 3L));
+    assertEquals(1, count("feed", "success"));
+    assertEquals(2, count("hashtag", "success"));
+    assertEquals(1, count("total", "success"));
+  }
+
+  @Test
+  void warmUp_shouldKeepWarmingWhenALoadFails() {
+    Mockito.when(pinService.getAllPins(SortType.NEWEST, 30, 0))
+        .thenThrow(new IllegalStateException("database down"));
+    Mockito.when(hashtagDao.findTopTags(any(LocalDateTime.class), Mockito.eq(2)))
+        .thenReturn(List.of("cats"));
+    Mockito.when(pinService.getAllPinsByHashtag("cats", 10, 0)).thenReturn(List.of(pin(2)));
+
+    assertEquals(1, warmUp.warmUp());
+
+    Mockito.verify(pinService).findByIds(Set.of(2L));
+    assertEquals(1, count("feed", "failure"));
+    assertEquals(1, count("total", "partial"));
+  }
+
+  @Test
+  void warmUp_shouldStopAtTheBudget() {
+    Mockito.when(pinService.getAllPins(SortType.NEWEST, 30, 0))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(5_000);
+              return List.of(pin(1));
+            });
+    Mockito.when(hashtagDao.findTopTags(any(LocalDateTime.class), Mockito.eq(2)))
+        .thenReturn(List.of());
+
+    assertEquals(0, warmUp(Duration.ofMillis(100)).warmUp());
+
+    Mockito.verify(pinService, Mockito.never()).findByIds(any());
+    assertEquals(1, count("total", "partial"));
+  }
+
+  @Test
+  void warmUp_shouldStopAtTheBudget_whenTopHashtagsAreSlow() {
+    Mockito.when(pinService.getAllPins(SortType.NEWEST, 30, 0)).thenReturn(List.of());
+    Mockito.when(hashtagDao.findTopTags(any(LocalDateTime.class), Mockito.eq(2)))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(5_000);
+              return List.of("cats");
+            });
+
+    long start = System.nanoTime();
+    assertEquals(0, warmUp(Duration.ofMillis(100)).warmUp());
+
+    assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+    Mockito.verify(pinService, Mockito.never())
+        .getAllPinsByHashtag(any(), Mockito.anyInt(), Mockito.anyInt());
+    assertEquals(1, count("total", "partial"));
+  }
+}
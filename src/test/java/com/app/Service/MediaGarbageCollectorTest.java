@@ -0,0 +1,127 @@
+package com.app.Service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.app.DAO.MediaBlobDao;
+import com.app.DAO.MediaDao;
+import com.app.Model.Media;
+import com.app.storage.MediaStorage;
+import com.app.storage.StoredFile;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+@ExtendWith(MockitoExtension.class)
+class MediaGarbageCollectorTest {
+
+  @Mock private MediaDao mediaDao;
+  @Mock private MediaBlobDao mediaBlobDao;
+  @Mock private MediaUploadService mediaUploadService;
+  @Mock private MediaStorage mediaStorage;
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private ValueOperations<String, String> valueOperations;
+
+  private MediaGarbageCollector collector;
+  private LocalDateTime cutoff;
+  private long cutoffMillis;
+
+  @BeforeEach
+  void setUp() {
+    collector =
+        new MediaGarbageCollector(
+            mediaDao,
+            mediaBlobDao,
+            mediaUploadService,
+            mediaStorage,
+            redisTemplate,
+            Duration.ofMinutes(10),
+            2,
+            10,
+            Duration.ofHours(48));
+    cutoff = LocalDateTime.now().minusHours(48);
+    cutoffMillis = cutoff.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private void leaseTaken(boolean taken) {
+    Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    Mockito.when(
+            valueOperations.setIfAbsent(
+                Mockito.eq("lock:media-gc"),
+                Mockito.anyString(),
+                Mockito.eq(Duration.ofMinutes(10))))
+        .thenReturn(taken);
+  }
+
+  @Test
+  void collectBatch_shouldSkipRun_whenAnotherNodeHoldsTheLease() {
+    leaseTaken(false);
+
+    collector.collectBatch();
+
+    Mockito.verifyNoInteractions(mediaDao, mediaBlobDao, mediaStorage);
+  }
+
+  @Test
+  void collectBatch_shouldReleaseTheLease_afterRun() {
+    leaseTaken(true);
+    Mockito.when(mediaStorage.list()).thenReturn(Stream.of());
+
+    collector.collectBatch();
+
+    Mockito.verify(mediaDao).findUnreferenced(Mockito.eq(0L), Mockito.any(), Mockito.eq(10));
+    Mockito.verify(redisTemplate)
+        .execute(
+            Mockito.<RedisScript<Long>>any(), Mockito.eq(List.of("lock:media-gc")), Mockito.any());
+  }
+
+  @Test
+  void collectMedia_shouldDeleteUnreferencedMediaAndReleaseFile() {
+    Media media = Media.builder().id(3L).url("abc.jpg").build();
+    Mockito.when(mediaDao.findUnreferenced(0L, cutoff, 10)).thenReturn(List.of(media));
+
+    assertEquals(1, collector.collectMedia(cutoff));
+
+    Mockito.verify(mediaDao).deleteById(3L);
+    Mockito.verify(mediaUploadService).release("abc.jpg");
+  }
+
+  @Test
+  void collectBlobs_shouldReclaimLeakedFiles() {
+    Mockito.when(mediaBlobDao.findUnreferenced("", cutoff, 10)).thenReturn(List.of("abc.jpg"));
+    Mockito.when(mediaUploadService.reclaim("abc.jpg")).thenReturn(true);
+
+    assertEquals(1, collector.collectBlobs(cutoff));
+  }
+
+  @Test
+  void collectFiles_shouldReclaimOldFilesNothingKnowsOf() {
+    Mockito.when(mediaStorage.list())
+        .thenReturn(
+            Stream.of(
+                new StoredFile("used.jpg", 1, cutoffMillis - 1),
+                new StoredFile("orphan.jpg", 1, cutoffMillis - 1),
+                new StoredFile("fresh.jpg", 1, cutoffMillis + 1)));
+    Mockito.when(mediaDao.findUsedUrls(List.of("used.jpg", "orphan.jpg")))
+        .thenReturn(Set.of("used.jpg"));
+    Mockito.when(mediaUploadService.reclaim("orphan.jpg")).thenReturn(true);
+
+    // One batch of two files per run, the second run finishes the listing.
+    assertEquals(1, collector.collectFiles(cutoff));
+    assertEquals(0, collector.collectFiles(cutoff));
+
+    Mockito.verify(mediaUploadService, Mockito.never()).reclaim("used.jpg");
+    Mockito.verify(mediaUploadService, Mockito.never()).reclaim("fresh.jpg");
+  }
+}
@@ -63,7 +63,7 @@ class BoardServiceImplTest {
     Mockito.when(securityContext.getAuthentication()).thenReturn(auth);
     SecurityContextHolder.setContext(securityContext);
 
-    Mockito.when(pinDao.findById(1L, false)).thenReturn(pin);
+    Mockito.when(pinDao.findByIds(List.of(1L))).thenReturn(List.of(pin));
 
     Mockito.when(boardDao.save(Mockito.argThat(b -> b.getName() != null)))
         .thenAnswer(invocation -> invocation.getArgument(0));
@@ -6,20 +6,17 @@ import com.app.DAO.*;
 import com.app.DTO.request.CreateCommentRequest;
 import com.app.DTO.request.UpdatedCommentRequest;
 import com.app.Model.*;
+import com.app.Service.MediaUploadService;
 import com.app.message.producer.NotificationEventProducer;
-import com.app.storage.FileManager;
-import com.app.storage.MediaManager;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
@@ -36,6 +33,7 @@ class CommentServiceImplTest {
   @Mock private PinDao pinDao;
   @Mock private MediaDao mediaDao;
   @Mock private HashtagDao hashtagDao;
+  @Mock private MediaUploadService mediaUploadService;
   @Mock private Map<Long, SseEmitter> emitters;
   @Mock private NotificationEventProducer notificationEventProducer;
   @Mock private MultipartFile mockFile;
@@ -90,7 +88,8 @@ class CommentServiceImplTest {
     SecurityContextHolder.setContext(securityContext);
     Mockito.when(userDao.findUserByUsername("username")).thenReturn(user);
 
-    Mockito.when(mockFile.getOriginalFilename()).thenReturn("test.jpg");
+    Mockito.when(mediaUploadService.upload(mockFile))
+        .thenReturn(Media.builder().url("hash.jpg").mediaType(MediaType.IMAGE).build());
 
     var request = new CreateCommentRequest("content", 1L, mockFile, Set.of("tag1", "tag2"));
     Mockito.when(hashtagDao.findByTag(Set.of("tag1", "tag2"))).thenReturn(new HashMap<>());
@@ -137,8 +136,6 @@ class CommentServiceImplTest {
     Mockito.when(commentDao.findById(1L, true)).thenReturn(comment);
     Mockito.when(userDao.findUserByUsername("username")).thenReturn(user);
 
-    Mockito.when(mockFile.getOriginalFilename()).thenReturn("new-file.jpg");
-
     var request = new UpdatedCommentRequest("content", mockFile, Set.of("tag1", "tag2"));
 
     Mockito.when(mediaDao.findByCommentId(1L)).thenReturn(media);
@@ -146,65 +143,49 @@ class CommentServiceImplTest {
     Mockito.when(hashtagDao.save(Mockito.argThat(ht -> ht.getTag() != null)))
         .thenAnswer(invocation -> invocation.getArgument(0));
 
-    try (MockedStatic<FileManager> fileManagerMocked = Mockito.mockStatic(FileManager.class);
-        MockedStatic<MediaManager> mediaManagerMocked = Mockito.mockStatic(MediaManager.class); ) {
-      mediaManagerMocked
-          .when(() -> MediaManager.generateUniqueFilename("new-file.jpg"))
-          .thenReturn("new-file.jpg");
-      mediaManagerMocked
-          .when(() -> MediaManager.getFileExtension("new-file.jpg"))
-          .thenReturn("jpg");
-      mediaManagerMocked
-          .when(() -> MediaManager.getFileExtension("old-file.jpg"))
-          .thenReturn("jpg");
-
-      fileManagerMocked
-          .when(() -> FileManager.delete("old-file.jpg", "jpg"))
-          .thenReturn(CompletableFuture.completedFuture(null));
-      fileManagerMocked
-          .when(() -> FileManager.save(mockFile, "new-file.jpg", "jpg"))
-          .thenReturn(CompletableFuture.completedFuture(null));
-
-      Media updatedMedia =
-          Media.builder().id(1L).url("new-file.jpg").mediaType(MediaType.IMAGE).build();
-
-      Mockito.when(
-              mediaDao.update(
-                  Mockito.eq(1L),
-                  Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null)))
-          .thenReturn(updatedMedia);
-
-      Mockito.when(
-              commentDao.update(
-                  Mockito.eq(1L),
-                  Mockito.argThat(
-                      c ->
-                          c.getContent() != null
-                              && !c.getHashtags().isEmpty()
-                              && c.getUserId() != 0
-                              && c.getPinId() != 0)))
-          .thenAnswer(invocation -> invocation.getArgument(1));
-
-      var result = commentService.update(1L, request);
-      assertNotNull(result);
-      assertEquals(comment.getId(), result.getId());
-
-      Mockito.verify(mediaDao)
-          .update(
-              Mockito.eq(1L), Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null));
-
-      Mockito.verify(commentDao)
-          .update(
-              Mockito.eq(1L),
-              Mockito.argThat(
-                  c ->
-                      c.getContent() != null
-                          && !c.getHashtags().isEmpty()
-                          && c.getUserId() != 0
-                          && c.getPinId() != 0));
-
-      Mockito.verify(emitters).get(result.getId());
-    }
+    Mockito.when(mediaUploadService.upload(mockFile))
+        .thenReturn(Media.builder().url("new-file.jpg").mediaType(MediaType.IMAGE).build());
+
+    Media updatedMedia =
+        Media.builder().id(1L).url("new-file.jpg").mediaType(MediaType.IMAGE).build();
+
+    Mockito.when(
+            mediaDao.update(
+                Mockito.eq(1L),
+                Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null)))
+        .thenReturn(updatedMedia);
+
+    Mockito.when(
+            commentDao.update(
+                Mockito.eq(1L),
+                Mockito.argThat(
+                    c ->
+                        c.getContent() != null
+                            && !c.getHashtags().isEmpty()
+                            && c.getUserId() != 0
+                            && c.getPinId() != 0)))
+        .thenAnswer(invocation -> invocation.getArgument(1));
+
+    var result = commentService.update(1L, request);
+    assertNotNull(result);
+    assertEquals(comment.getId(), result.getId());
+
+    Mockito.verify(mediaDao)
+        .update(
+            Mockito.eq(1L), Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null));
+
+    Mockito.verify(commentDao)
+        .update(
+            Mockito.eq(1L),
+            Mockito.argThat(
+                c ->
+                    c.getContent() != null
+                        && !c.getHashtags().isEmpty()
+                        && c.getUserId() != 0
+                        && c.getPinId() != 0));
+
+    Mockito.verify(mediaUploadService).release(media.getUrl());
+    Mockito.verify(emitters).get(result.getId());
   }
 
   @Test
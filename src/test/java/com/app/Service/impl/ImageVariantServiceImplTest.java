@@ -0,0 +1,119 @@
+package com.app.Service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.app.Model.Media;
+import com.app.Model.MediaType;
+import com.app.Model.MediaVariant;
+import com.app.exception.sub.MediaNotFoundException;
+import com.app.storage.MediaStorage;
+import com.app.storage.StoredMedia;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantServiceImplTest {
+
+  @Mock private MediaStorage mediaStorage;
+
+  @TempDir private Path tempDir;
+
+  private ImageVariantServiceImpl imageVariantService;
+  private Media media;
+
+  @BeforeEach
+  void setUp() {
+    imageVariantService = new ImageVariantServiceImpl(mediaStorage, new int[] {736, 236, 474}, 2, 8);
+    media =
+        Media.builder().url("abc.jpg").mediaType(MediaType.IMAGE).width(600).height(400).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    imageVariantService.shutdown();
+  }
+
+  @Test
+  void generate_shouldStoreVariantsNarrowerThanImage() throws Exception {
+    Path source = tempDir.resolve("upload.tmp");
+    ImageIO.write(new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB), "jpg", source.toFile());
+    Mockito.when(mediaStorage.stat(Mockito.anyString()))
+        .thenThrow(new MediaNotFoundException("missing"));
+    Mockito.when(mediaStorage.write(Mockito.anyString(), Mockito.any(InputStream.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    var result = imageVariantService.generate(source, media);
+
+    assertEquals(2, result.size());
+    assertEquals(236, result.get(0).getWidth());
+    assertEquals(157, result.get(0).getHeight());
+    assertEquals("abc_w236.jpg", result.get(0).getUrl());
+    assertEquals(474, result.get(1).getWidth());
+    assertTrue(result.get(1).getSizeBytes() > 0);
+    Mockito.verify(mediaStorage).write(Mockito.eq("abc_w474.jpg"), Mockito.any(InputStream.class));
+  }
+
+  @Test
+  void placeholder_shouldEncodeBlurHash() throws Exception {
+    Path source = tempDir.resolve("upload.tmp");
+    ImageIO.write(new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB), "png", source.toFile());
+
+    var result = imageVariantService.placeholder(source, media);
+
+    // A black landscape image: 4x3 components, no AC energy.
+    assertEquals("L00000" + "fQ".repeat(11), result);
+  }
+
+  @Test
+  void placeholder_shouldReturnNull_whenNotAnImage() {
+    media.setMediaType(MediaType.VIDEO);
+
+    assertNull(imageVariantService.placeholder(tempDir.resolve("upload.tmp"), media));
+  }
+
+  @Test
+  void generate_shouldReuseStoredVariants() {
+    Mockito.when(mediaStorage.stat(Mockito.anyString())).thenReturn(new StoredMedia(10L, 0L));
+
+    var result = imageVariantService.generate(tempDir.resolve("missing.tmp"), media);
+
+    assertEquals(2, result.size());
+    assertEquals(10L, result.get(0).getSizeBytes());
+    Mockito.verify(mediaStorage, Mockito.never())
+        .write(Mockito.anyString(), Mockito.any(InputStream.class));
+  }
+
+  @Test
+  void generate_shouldSkipVideos() {
+    media.setMediaType(MediaType.VIDEO);
+    media.setUrl("abc.mp4");
+
+    assertTrue(imageVariantService.generate(tempDir.resolve("upload.tmp"), media).isEmpty());
+    Mockito.verifyNoInteractions(mediaStorage);
+  }
+
+  @Test
+  void select_shouldPickNarrowestVariantCoveringWidth() {
+    media.setVariants(
+        List.of(
+            MediaVariant.builder().width(236).url("abc_w236.jpg").build(),
+            MediaVariant.builder().width(474).url("abc_w474.jpg").build()));
+
+    assertEquals("abc_w236.jpg", imageVariantService.select(media, 200).getUrl());
+    assertEquals("abc_w474.jpg", imageVariantService.select(media, 300).getUrl());
+    assertNull(imageVariantService.select(media, 500));
+    assertNull(imageVariantService.select(media, null));
+  }
+}
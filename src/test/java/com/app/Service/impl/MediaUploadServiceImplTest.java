@@ -0,0 +1,168 @@
+package com.app.Service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.app.DAO.MediaBlobDao;
+import com.app.Model.MediaType;
+import com.app.Service.ImageVariantService;
+import com.app.exception.sub.MediaNotSupportException;
+import com.app.storage.MediaStorage;
+import com.app.storage.StagedFile;
+import com.app.storage.UploadInspector;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+@ExtendWith(MockitoExtension.class)
+class MediaUploadServiceImplTest {
+
+  @Mock private MediaBlobDao mediaBlobDao;
+  @Mock private MediaStorage mediaStorage;
+  @Mock private ImageVariantService imageVariantService;
+  @Mock private PlatformTransactionManager transactionManager;
+  @Mock private MultipartFile mockFile;
+
+  @InjectMocks private MediaUploadServiceImpl mediaUploadService;
+
+  private StagedFile staged;
+  private InputStream content;
+
+  @TempDir private Path tempDir;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    staged = new StagedFile(Files.write(tempDir.resolve("upload-1.tmp"), new byte[3]), "abc.jpg");
+    content = new ByteArrayInputStream(new byte[] {1, 2, 3});
+  }
+
+  @Test
+  void upload_shouldStoreContentAddressedFile() throws Exception {
+    Mockito.when(mockFile.getOriginalFilename()).thenReturn("cat.jpg");
+    Mockito.when(mockFile.getInputStream()).thenReturn(content);
+    Mockito.when(mediaStorage.stage(Mockito.any(UploadInspector.class), Mockito.eq("jpg")))
+        .thenReturn(CompletableFuture.completedFuture(staged));
+    Mockito.when(mediaStorage.commit(staged)).thenReturn(CompletableFuture.completedFuture(null));
+    Mockito.when(imageVariantService.placeholder(Mockito.eq(staged.temp()), Mockito.any()))
+        .thenReturn("LEHV6nWB2yk8pyo0adR*.7kCMdnj");
+
+    var result = mediaUploadService.upload(mockFile);
+
+    assertEquals("abc.jpg", result.getUrl());
+    assertEquals(MediaType.IMAGE, result.getMediaType());
+    assertEquals(3L, result.getSizeBytes());
+    assertEquals("image/jpeg", result.getMimeType());
+    assertEquals("LEHV6nWB2yk8pyo0adR*.7kCMdnj", result.getPlaceholder());
+    Mockito.verify(mediaBlobDao).acquire("abc.jpg");
+    Mockito.verify(mediaStorage).commit(staged);
+  }
+
+  @Test
+  void upload_shouldDiscardStagedFile_whenReferenceFails() throws Exception {
+    Mockito.when(mockFile.getOriginalFilename()).thenReturn("cat.jpg");
+    Mockito.when(mockFile.getInputStream()).thenReturn(content);
+    Mockito.when(mediaStorage.stage(Mockito.any(UploadInspector.class), Mockito.eq("jpg")))
+        .thenReturn(CompletableFuture.completedFuture(staged));
+    Mockito.when(mediaBlobDao.acquire("abc.jpg")).thenThrow(new RuntimeException("db down"));
+
+    assertThrows(RuntimeException.class, () -> mediaUploadService.upload(mockFile));
+    Mockito.verify(mediaStorage).discard(staged);
+    Mockito.verify(mediaStorage, Mockito.never()).commit(staged);
+  }
+
+  @Test
+  void upload_shouldThrowException_whenFormatNotSupported() {
+    Mockito.when(mockFile.getOriginalFilename()).thenReturn("notes.txt");
+
+    assertThrows(MediaNotSupportException.class, () -> mediaUploadService.upload(mockFile));
+  }
+
+  @Test
+  void release_shouldKeepFile_whenStillReferenced() {
+    Mockito.when(mediaBlobDao.release("abc.jpg")).thenReturn(1);
+
+    mediaUploadService.release("abc.jpg");
+
+    Mockito.verifyNoInteractions(mediaStorage);
+  }
+
+  @Test
+  void release_shouldDeleteFile_whenLastReference() {
+    Mockito.when(mediaBlobDao.release("abc.jpg")).thenReturn(0);
+    Mockito.when(mediaBlobDao.deleteReleased("abc.jpg")).thenReturn(1);
+    Mockito.when(mediaStorage.delete("abc.jpg"))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    mediaUploadService.release("abc.jpg");
+
+    Mockito.verify(mediaStorage).delete("abc.jpg");
+    Mockito.verify(imageVariantService).delete("abc.jpg");
+  }
+
+  @Test
+  void release_shouldDeleteFile_onlyAfterCommit() {
+    Mockito.when(mediaBlobDao.release("abc.jpg")).thenReturn(0);
+    Mockito.when(mediaBlobDao.deleteReleased("abc.jpg")).thenReturn(1);
+    Mockito.when(mediaStorage.delete("abc.jpg"))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      mediaUploadService.release("abc.jpg");
+
+      Mockito.verifyNoInteractions(mediaStorage);
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    Mockito.verify(mediaStorage).delete("abc.jpg");
+  }
+
+  @Test
+  void release_shouldKeepFile_whenReferencedAgainBeforeDeletion() {
+    Mockito.when(mediaBlobDao.release("abc.jpg")).thenReturn(0);
+    Mockito.when(mediaBlobDao.deleteReleased("abc.jpg")).thenReturn(0);
+
+    mediaUploadService.release("abc.jpg");
+
+    Mockito.verify(mediaBlobDao).lock("abc.jpg");
+    Mockito.verifyNoInteractions(mediaStorage, imageVariantService);
+  }
+
+  @Test
+  void reclaim_shouldDeleteFile_whenNoMediaPointsAtIt() {
+    Mockito.when(mediaBlobDao.deleteUnreferenced("abc.jpg")).thenReturn(1);
+    Mockito.when(mediaBlobDao.deleteReleased("abc.jpg")).thenReturn(1);
+    Mockito.when(mediaStorage.delete("abc.jpg"))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    assertTrue(mediaUploadService.reclaim("abc.jpg"));
+
+    // Once to reclaim the count, and again while the file is deleted.
+    Mockito.verify(mediaBlobDao, Mockito.times(2)).lock("abc.jpg");
+    Mockito.verify(imageVariantService).delete("abc.jpg");
+  }
+
+  @Test
+  void reclaim_shouldKeepFile_whenMediaPointsAtIt() {
+    Mockito.when(mediaBlobDao.deleteUnreferenced("abc.jpg")).thenReturn(0);
+
+    assertFalse(mediaUploadService.reclaim("abc.jpg"));
+
+    Mockito.verifyNoInteractions(mediaStorage, imageVariantService);
+  }
+}
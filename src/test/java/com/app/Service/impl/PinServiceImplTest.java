@@ -8,12 +8,11 @@ import com.app.DAO.PinDao;
 import com.app.DAO.UserDao;
 import com.app.DTO.request.PinRequest;
 import com.app.Model.*;
+import com.app.Service.MediaUploadService;
+import com.app.Service.UploadSessionService;
 import com.app.exception.sub.PinNotFoundException;
-import com.app.storage.FileManager;
-import com.app.storage.MediaManager;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,6 +30,8 @@ class PinServiceImplTest {
   @Mock private UserDao userDao;
   @Mock private MediaDao mediaDao;
   @Mock private HashtagDao hashtagDao;
+  @Mock private MediaUploadService mediaUploadService;
+  @Mock private UploadSessionService uploadSessionService;
   @Mock private MultipartFile mockFile;
 
   @InjectMocks private PinServiceImpl pinService;
@@ -93,9 +94,10 @@ class PinServiceImplTest {
     Mockito.when(userDao.findUserByUsername("username")).thenReturn(user);
 
     Mockito.when(mockFile.isEmpty()).thenReturn(false);
-    Mockito.when(mockFile.getOriginalFilename()).thenReturn("test.jpg");
+    Mockito.when(mediaUploadService.upload(mockFile))
+        .thenReturn(Media.builder().url("hash.jpg").mediaType(MediaType.IMAGE).build());
 
-    PinRequest request = new PinRequest("Description", mockFile, Set.of("tag1", "tag2"));
+    PinRequest request = new PinRequest("Description", mockFile, Set.of("tag1", "tag2"), null);
     Mockito.when(hashtagDao.findByTag(Set.of("tag1", "tag2"))).thenReturn(new HashMap<>());
     Mockito.when(hashtagDao.save(Mockito.argThat(ht -> ht.getTag() != null)))
         .thenAnswer(invocation -> invocation.getArgument(0));
@@ -130,10 +132,44 @@ class PinServiceImplTest {
         .save(Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null));
   }
 
+  @Test
+  void save_shouldReleaseStoredFile_whenMediaCannotBeSaved() {
+    Mockito.when(mockFile.isEmpty()).thenReturn(false);
+    Media uploaded = Media.builder().url("hash.jpg").mediaType(MediaType.IMAGE).build();
+    Mockito.when(mediaUploadService.upload(mockFile)).thenReturn(uploaded);
+    Mockito.when(hashtagDao.findByTag(Set.of())).thenReturn(new HashMap<>());
+    Mockito.when(mediaDao.save(uploaded)).thenThrow(new RuntimeException("Error saving media"));
+
+    PinRequest request = new PinRequest("Description", mockFile, Set.of(), null);
+
+    assertThrows(RuntimeException.class, () -> pinService.save(request));
+    Mockito.verify(mediaUploadService).release("hash.jpg");
+    Mockito.verifyNoInteractions(pinDao);
+  }
+
+  @Test
+  void save_shouldUseFinalizedUpload_whenMediaIdGiven() {
+    Authentication auth = Mockito.mock(Authentication.class);
+    Mockito.when(auth.getName()).thenReturn("username");
+    SecurityContext securityContext = Mockito.mock(SecurityContext.class);
+    Mockito.when(securityContext.getAuthentication()).thenReturn(auth);
+    SecurityContextHolder.setContext(securityContext);
+    Mockito.when(userDao.findUserByUsername("username")).thenReturn(user);
+
+    PinRequest request = new PinRequest("Description", null, Set.of(), 1L);
+    Mockito.when(hashtagDao.findByTag(Set.of())).thenReturn(new HashMap<>());
+    Mockito.when(uploadSessionService.claim(1L)).thenReturn(media);
+    Mockito.when(pinDao.save(Mockito.argThat(p -> p.getMediaId() == 1L))).thenReturn(pin);
+
+    Pin result = pinService.save(request);
+
+    assertEquals(pin.getId(), result.getId());
+    Mockito.verifyNoInteractions(mediaUploadService);
+  }
+
   @Test
   void update_ShouldUpdatePin_WhenValidRequestAndMatchingUser() {
     String newFilename = "new-file.jpg";
-    String newExtension = "jpg";
 
     Media existingMedia =
         Media.builder().id(1L).url("old-file.png").mediaType(MediaType.IMAGE).build();
@@ -142,9 +178,8 @@ class PinServiceImplTest {
     Mockito.when(userDao.findUserByUsername("username")).thenReturn(user);
 
     Mockito.when(mockFile.isEmpty()).thenReturn(false);
-    Mockito.when(mockFile.getOriginalFilename()).thenReturn("new-file.jpg");
 
-    PinRequest pinRequest = new PinRequest("New description", mockFile, Set.of("tag1"));
+    PinRequest pinRequest = new PinRequest("New description", mockFile, Set.of("tag1"), null);
 
     Mockito.when(mediaDao.findById(pin.getMediaId())).thenReturn(existingMedia);
 
@@ -152,63 +187,49 @@ class PinServiceImplTest {
     Mockito.when(hashtagDao.save(Mockito.argThat(ht -> ht.getTag() != null)))
         .thenAnswer(invocation -> invocation.getArgument(0));
 
-    try (MockedStatic<FileManager> fileManagerMock = Mockito.mockStatic(FileManager.class);
-        MockedStatic<MediaManager> mediaManagerMock = Mockito.mockStatic(MediaManager.class)) {
-      mediaManagerMock
-          .when(() -> MediaManager.generateUniqueFilename("new-file.jpg"))
-          .thenReturn(newFilename);
-      mediaManagerMock
-          .when(() -> MediaManager.getFileExtension("new-file.jpg"))
-          .thenReturn(newExtension);
-      mediaManagerMock.when(() -> MediaManager.getFileExtension("old-file.png")).thenReturn("png");
-
-      fileManagerMock
-          .when(() -> FileManager.delete(Mockito.anyString(), Mockito.anyString()))
-          .thenReturn(CompletableFuture.completedFuture(null));
-      fileManagerMock
-          .when(() -> FileManager.save(Mockito.any(), Mockito.anyString(), Mockito.anyString()))
-          .thenReturn(CompletableFuture.completedFuture(null));
-
-      Media updatedMedia =
-          Media.builder().id(1L).url(newFilename).mediaType(MediaType.IMAGE).build();
-
-      Mockito.when(
-              mediaDao.update(
-                  Mockito.eq(1L),
-                  Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null)))
-          .thenReturn(updatedMedia);
-
-      Mockito.when(
-              pinDao.update(
-                  Mockito.eq(1L),
-                  Mockito.argThat(
-                      p ->
-                          !p.getHashtags().isEmpty()
-                              && p.getDescription() != null
-                              && p.getUserId() != 0
-                              && p.getMediaId() != 0)))
-          .thenAnswer(invocation -> invocation.getArgument(1));
-
-      Pin updatedPin = pinService.update(1L, pinRequest);
-
-      assertEquals("New description", updatedPin.getDescription());
-      assertEquals(user.getId(), updatedPin.getUserId());
-
-      Mockito.verify(mediaDao)
-          .update(
-              Mockito.eq(1L), Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null));
-      Mockito.verify(pinDao)
-          .update(
-              Mockito.eq(1L),
-              Mockito.argThat(
-                  p ->
-                      p.getId() != null
-                          && !p.getHashtags().isEmpty()
-                          && p.getDescription() != null
-                          && p.getUserId() != 0
-                          && p.getMediaId() != 0));
-      Mockito.verify(hashtagDao).save(Mockito.argThat(ht -> ht.getTag() != null));
-    }
+    Mockito.when(mediaUploadService.upload(mockFile))
+        .thenReturn(Media.builder().url(newFilename).mediaType(MediaType.IMAGE).build());
+
+    Media updatedMedia =
+        Media.builder().id(1L).url(newFilename).mediaType(MediaType.IMAGE).build();
+
+    Mockito.when(
+            mediaDao.update(
+                Mockito.eq(1L),
+                Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null)))
+        .thenReturn(updatedMedia);
+
+    Mockito.when(
+            pinDao.update(
+                Mockito.eq(1L),
+                Mockito.argThat(
+                    p ->
+                        !p.getHashtags().isEmpty()
+                            && p.getDescription() != null
+                            && p.getUserId() != 0
+                            && p.getMediaId() != 0)))
+        .thenAnswer(invocation -> invocation.getArgument(1));
+
+    Pin updatedPin = pinService.update(1L, pinRequest);
+
+    assertEquals("New description", updatedPin.getDescription());
+    assertEquals(user.getId(), updatedPin.getUserId());
+
+    Mockito.verify(mediaDao)
+        .update(
+            Mockito.eq(1L), Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null));
+    Mockito.verify(mediaUploadService).release("old-file.png");
+    Mockito.verify(pinDao)
+        .update(
+            Mockito.eq(1L),
+            Mockito.argThat(
+                p ->
+                    p.getId() != null
+                        && !p.getHashtags().isEmpty()
+                        && p.getDescription() != null
+                        && p.getUserId() != 0
+                        && p.getMediaId() != 0));
+    Mockito.verify(hashtagDao).save(Mockito.argThat(ht -> ht.getTag() != null));
   }
 
   @Test
@@ -238,6 +259,7 @@ class PinServiceImplTest {
     pinService.delete(1L);
 
     Mockito.verify(mediaDao).findById(1L);
+    Mockito.verify(mediaUploadService).release("filename");
     Mockito.verify(pinDao).deleteById(1L);
   }
 
@@ -9,18 +9,15 @@ import com.app.DAO.UserDao;
 import com.app.DTO.request.CreateSubCommentRequest;
 import com.app.DTO.request.UpdatedCommentRequest;
 import com.app.Model.*;
+import com.app.Service.MediaUploadService;
 import com.app.message.producer.NotificationEventProducer;
-import com.app.storage.FileManager;
-import com.app.storage.MediaManager;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
@@ -35,6 +32,7 @@ class SubCommentServiceImplTest {
   @Mock private CommentDao commentDao;
   @Mock private UserDao userDao;
   @Mock private MediaDao mediaDao;
+  @Mock private MediaUploadService mediaUploadService;
   @Mock private NotificationEventProducer notificationEventProducer;
   @Mock private MultipartFile mockFile;
 
@@ -95,7 +93,8 @@ class SubCommentServiceImplTest {
     SecurityContextHolder.setContext(securityContext);
     Mockito.when(userDao.findUserByUsername("username")).thenReturn(user);
 
-    Mockito.when(mockFile.getOriginalFilename()).thenReturn("test.jpg");
+    Mockito.when(mediaUploadService.upload(mockFile))
+        .thenReturn(Media.builder().url("hash.jpg").mediaType(MediaType.IMAGE).build());
 
     var request = new CreateSubCommentRequest("content", mockFile, 1L);
 
@@ -133,52 +132,34 @@ class SubCommentServiceImplTest {
 
     Mockito.when(subCommentDao.findById(1L)).thenReturn(subComment);
 
-    Mockito.when(mockFile.getOriginalFilename()).thenReturn("new-file.jpg");
-
     var request = new UpdatedCommentRequest("content", mockFile, Set.of());
 
-    try (MockedStatic<FileManager> fileManagerMocked = Mockito.mockStatic(FileManager.class);
-        MockedStatic<MediaManager> mediaManagerMocked = Mockito.mockStatic(MediaManager.class); ) {
-      mediaManagerMocked
-          .when(() -> MediaManager.generateUniqueFilename("new-file.jpg"))
-          .thenReturn("new-file.jpg");
-      mediaManagerMocked
-          .when(() -> MediaManager.getFileExtension("new-file.jpg"))
-          .thenReturn("jpg");
-      mediaManagerMocked
-          .when(() -> MediaManager.getFileExtension("old-file.jpg"))
-          .thenReturn("jpg");
-
-      fileManagerMocked
-          .when(() -> FileManager.delete("old-file.jpg", "jpg"))
-          .thenReturn(CompletableFuture.completedFuture(null));
-      fileManagerMocked
-          .when(() -> FileManager.save(mockFile, "new-file.jpg", "jpg"))
-          .thenReturn(CompletableFuture.completedFuture(null));
-
-      Media updatedMedia =
-          Media.builder().id(1L).url("new-file.jpg").mediaType(MediaType.IMAGE).build();
-
-      Mockito.when(
-              mediaDao.update(
-                  Mockito.eq(1L),
-                  Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null)))
-          .thenReturn(updatedMedia);
-
-      Mockito.when(
-              subCommentDao.update(
-                  Mockito.eq(1L),
-                  Mockito.argThat(
-                      sc ->
-                          sc.getContent() != null
-                              && sc.getUser() != null
-                              && sc.getComment() != null)))
-          .thenAnswer(invocation -> invocation.getArgument(1));
-
-      var result = subCommentService.update(1L, request);
-      assertNotNull(result);
-      assertEquals(comment.getId(), result.getId());
-    }
+    Mockito.when(mediaUploadService.upload(mockFile))
+        .thenReturn(Media.builder().url("new-file.jpg").mediaType(MediaType.IMAGE).build());
+
+    Media updatedMedia =
+        Media.builder().id(1L).url("new-file.jpg").mediaType(MediaType.IMAGE).build();
+
+    Mockito.when(
+            mediaDao.update(
+                Mockito.eq(1L),
+                Mockito.argThat(m -> m.getMediaType() != null && m.getUrl() != null)))
+        .thenReturn(updatedMedia);
+
+    Mockito.when(
+            subCommentDao.update(
+                Mockito.eq(1L),
+                Mockito.argThat(
+                    sc ->
+                        sc.getContent() != null
+                            && sc.getUser() != null
+                            && sc.getComment() != null)))
+        .thenAnswer(invocation -> invocation.getArgument(1));
+
+    var result = subCommentService.update(1L, request);
+    assertNotNull(result);
+    assertEquals(comment.getId(), result.getId());
+    Mockito.verify(mediaUploadService).release(media.getUrl());
   }
 
   @Test
@@ -0,0 +1,193 @@
+package com.app.Service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.app.DAO.MediaDao;
+import com.app.DAO.UploadSessionDao;
+import com.app.DAO.UserDao;
+import com.app.Model.Media;
+import com.app.Model.MediaType;
+import com.app.Model.UploadSession;
+import com.app.Model.User;
+import com.app.Service.MediaUploadService;
+import com.app.exception.sub.MediaNotSupportException;
+import com.app.exception.sub.UploadConflictException;
+import com.app.exception.sub.UploadSessionNotFoundException;
+import com.app.storage.MediaStorage;
+import com.app.storage.StagedFile;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionServiceImplTest {
+
+  @Mock private UploadSessionDao uploadSessionDao;
+  @Mock private MediaDao mediaDao;
+  @Mock private UserDao userDao;
+  @Mock private MediaUploadService mediaUploadService;
+  @Mock private MediaStorage mediaStorage;
+
+  @TempDir private Path tempDir;
+
+  private UploadSessionServiceImpl uploadSessionService;
+  private UploadSession session;
+
+  @BeforeEach
+  void setUp() {
+    uploadSessionService =
+        new UploadSessionServiceImpl(
+            uploadSessionDao,
+            mediaDao,
+            userDao,
+            mediaUploadService,
+            mediaStorage,
+            DataSize.ofGigabytes(2),
+            Duration.ofHours(24));
+    session = UploadSession.builder().id("id").userId(1L).extension("mp4").length(6).build();
+
+    Authentication auth = Mockito.mock(Authentication.class);
+    Mockito.when(auth.getName()).thenReturn("username");
+    SecurityContext securityContext = Mockito.mock(SecurityContext.class);
+    Mockito.when(securityContext.getAuthentication()).thenReturn(auth);
+    SecurityContextHolder.setContext(securityContext);
+    Mockito.when(userDao.findUserByUsername("username"))
+        .thenReturn(User.builder().id(1L).username("username").build());
+    Mockito.when(uploadSessionDao.findById("id")).thenReturn(session);
+  }
+
+  @Test
+  void append_shouldWriteChunksAtTheirOffset() throws Exception {
+    Mockito.when(mediaStorage.stagingDirectory("mp4")).thenReturn(tempDir);
+    Mockito.when(uploadSessionDao.updateOffset("id", 0, 3)).thenReturn(1);
+    Mockito.when(uploadSessionDao.updateOffset("id", 3, 6)).thenReturn(1);
+
+    uploadSessionService.append("id", 0, stream("abc"));
+    var result = uploadSessionService.append("id", 3, stream("def"));
+
+    assertEquals(6, result.getOffset());
+    assertEquals("abcdef", Files.readString(tempDir.resolve("upload-id.tmp")));
+  }
+
+  @Test
+  void append_shouldKeepBytesReceived_whenClientDisconnects() throws Exception {
+    Mockito.when(mediaStorage.stagingDirectory("mp4")).thenReturn(tempDir);
+    Mockito.when(uploadSessionDao.updateOffset("id", 0, 2)).thenReturn(1);
+    InputStream dropped =
+        new InputStream() {
+          private int sent = 0;
+
+          @Override
+          public int read() throws IOException {
+            if (sent == 2) {
+              throw new IOException("Connection reset");
+            }
+            return 'a' + sent++;
+          }
+        };
+
+    var result = uploadSessionService.append("id", 0, dropped);
+
+    assertEquals(2, result.getOffset());
+    assertEquals("ab", Files.readString(tempDir.resolve("upload-id.tmp")));
+  }
+
+  @Test
+  void append_shouldThrowException_whenOffsetDoesNotMatch() {
+    session.setOffset(3);
+
+    assertThrows(
+        UploadConflictException.class, () -> uploadSessionService.append("id", 0, stream("abc")));
+    Mockito.verify(uploadSessionDao, Mockito.never())
+        .updateOffset(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong());
+  }
+
+  @Test
+  void findById_shouldThrowException_whenUploadOfAnotherUser() {
+    session.setUserId(2L);
+
+    assertThrows(UploadSessionNotFoundException.class, () -> uploadSessionService.findById("id"));
+  }
+
+  @Test
+  void complete_shouldStoreUploadAsMedia() throws Exception {
+    byte[] mp4 = {0, 0, 0, 16, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm', 0, 0, 2, 0};
+    session.setLength(mp4.length);
+    session.setOffset(mp4.length);
+    Files.write(tempDir.resolve("upload-id.tmp"), mp4);
+    Mockito.when(mediaStorage.stagingDirectory("mp4")).thenReturn(tempDir);
+    Media media = Media.builder().url("hash.mp4").mediaType(MediaType.VIDEO).build();
+    Mockito.when(mediaUploadService.upload(Mockito.any(StagedFile.class))).thenReturn(media);
+    Mockito.when(mediaDao.save(media))
+        .thenAnswer(
+            invocation -> {
+              media.setId(5L);
+              return media;
+            });
+    Mockito.when(uploadSessionDao.complete("id", 5L)).thenReturn(1);
+
+    var result = uploadSessionService.complete("id");
+
+    assertEquals(5L, result.getId());
+    Mockito.verify(mediaUploadService)
+        .upload(
+            Mockito.<StagedFile>argThat(
+                staged ->
+                    staged.temp().equals(tempDir.resolve("upload-id.tmp"))
+                        && staged.filename().matches("[0-9a-f]{64}\\.mp4")
+                        && staged.inspection().mimeType().equals("video/mp4")));
+  }
+
+  @Test
+  void complete_shouldReleaseStoredFile_whenMediaCannotBeSaved() throws Exception {
+    byte[] mp4 = {0, 0, 0, 16, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm', 0, 0, 2, 0};
+    session.setLength(mp4.length);
+    session.setOffset(mp4.length);
+    Files.write(tempDir.resolve("upload-id.tmp"), mp4);
+    Mockito.when(mediaStorage.stagingDirectory("mp4")).thenReturn(tempDir);
+    Media media = Media.builder().url("hash.mp4").mediaType(MediaType.VIDEO).build();
+    Mockito.when(mediaUploadService.upload(Mockito.any(StagedFile.class))).thenReturn(media);
+    Mockito.when(mediaDao.save(media)).thenThrow(new RuntimeException("Error saving media"));
+
+    assertThrows(RuntimeException.class, () -> uploadSessionService.complete("id"));
+    Mockito.verify(mediaUploadService).release("hash.mp4");
+    Mockito.verify(uploadSessionDao, Mockito.never()).complete(Mockito.any(), Mockito.any());
+  }
+
+  @Test
+  void complete_shouldThrowException_whenContentIsNotOfItsFormat() throws Exception {
+    session.setOffset(6);
+    Files.writeString(tempDir.resolve("upload-id.tmp"), "abcdef");
+    Mockito.when(mediaStorage.stagingDirectory("mp4")).thenReturn(tempDir);
+
+    assertThrows(MediaNotSupportException.class, () -> uploadSessionService.complete("id"));
+    Mockito.verifyNoInteractions(mediaUploadService);
+  }
+
+  @Test
+  void complete_shouldThrowException_whenUploadIncomplete() {
+    session.setOffset(3);
+
+    assertThrows(UploadConflictException.class, () -> uploadSessionService.complete("id"));
+    Mockito.verifyNoInteractions(mediaUploadService);
+  }
+
+  private static InputStream stream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
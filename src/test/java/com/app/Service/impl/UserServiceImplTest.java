@@ -10,6 +10,7 @@ import com.app.DTO.request.LoginUserRequest;
 import com.app.DTO.request.RegisterUserRequest;
 import com.app.DTO.request.UpdateUserRequest;
 import com.app.Model.*;
+import com.app.Service.MediaUploadService;
 import com.app.Service.VerificationTokenService;
 import com.app.exception.sub.UserAlreadyExistsException;
 import com.app.message.producer.EmailEventProducer;
@@ -37,6 +38,7 @@ class UserServiceImplTest {
   @Mock private UserDao userDao;
   @Mock private RoleDao roleDao;
   @Mock private MediaDao mediaDao;
+  @Mock private MediaUploadService mediaUploadService;
   @Mock private VerificationTokenService verificationTokenService;
   @Mock private PasswordEncoder passwordEncoder;
   @Mock private AuthenticationManager authenticationManager;
@@ -0,0 +1,92 @@
+package com.app.benchmark;
+
+import com.app.storage.MediaManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the old heap-buffered range read with the streaming range path for 50 concurrent video
+ * viewers, each one pulling a whole video with {@code Range: bytes=0-}.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.app.benchmark.MediaRangeStreamingBenchmark}. Throughput is reported as whole
+ * videos per second, heap usage as {@code gc.alloc.rate.norm} (bytes allocated per video) from the
+ * GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(50)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class MediaRangeStreamingBenchmark {
+
+  @Param({"67108864"})
+  private long videoSize;
+
+  private Path video;
+
+  @Setup(Level.Trial)
+  public void createVideo() throws IOException {
+    video = Files.createTempFile("benchmark", ".mp4");
+    try (FileChannel channel = FileChannel.open(video, StandardOpenOption.WRITE)) {
+      ByteBuffer block = ByteBuffer.allocate(1024 * 1024);
+      ThreadLocalRandom.current().nextBytes(block.array());
+      for (long written = 0; written < videoSize; written += block.capacity()) {
+        block.clear();
+        channel.write(block);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteVideo() throws IOException {
+    Files.deleteIfExists(video);
+  }
+
+  /** The previous behaviour: the whole requested range is read into a single heap array. */
+  @Benchmark
+  public int heapBuffered() throws IOException {
+    try (SeekableByteChannel channel = Files.newByteChannel(video, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) videoSize);
+      channel.read(buffer);
+      OutputStream.nullOutputStream().write(buffer.array());
+      return buffer.position();
+    }
+  }
+
+  /** The streaming path: the player fetches the same video as a sequence of capped ranges. */
+  @Benchmark
+  public long streamed() throws IOException {
+    OutputStream sink = OutputStream.nullOutputStream();
+    long sent = 0;
+    for (long start = 0; start < videoSize; start += MediaManager.MAX_RANGE_LENGTH) {
+      long length = Math.min(MediaManager.MAX_RANGE_LENGTH, videoSize - start);
+      sent += MediaManager.transferRange(video, start, length, sink);
+    }
+    return sent;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(MediaRangeStreamingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}
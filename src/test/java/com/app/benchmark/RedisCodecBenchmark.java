@@ -0,0 +1,129 @@
+package com.app.benchmark;
+
+import com.app.Model.Hashtag;
+import com.app.Model.Media;
+import com.app.Model.MediaType;
+import com.app.Model.MediaVariant;
+import com.app.Model.Pin;
+import com.app.helper.SmileRedisSerializer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Compares Java serialization with the Smile codec for cached values: a pin with its hashtags and
+ * a media with its variants, written and read back.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.app.benchmark.RedisCodecBenchmark}. Throughput is reported as values per
+ * millisecond, the encoded size of each value is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RedisCodecBenchmark {
+
+  @Param({"jdk", "smile"})
+  private String codec;
+
+  private RedisSerializer<Pin> pinSerializer;
+  private RedisSerializer<Media> mediaSerializer;
+  private Pin pin;
+  private Media media;
+  private byte[] pinBytes;
+  private byte[] mediaBytes;
+
+  @SuppressWarnings("unchecked")
+  private static <T> RedisSerializer<T> jdk() {
+    return (RedisSerializer<T>) new JdkSerializationRedisSerializer();
+  }
+
+  @Setup(Level.Trial)
+  public void createValues() {
+    if (codec.equals("jdk")) {
+      pinSerializer = jdk();
+      mediaSerializer = jdk();
+    } else {
+      pinSerializer = new SmileRedisSerializer<>(Pin.class, false);
+      mediaSerializer = new SmileRedisSerializer<>(Media.class, false);
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    pin =
+        Pin.builder()
+            .id(184_467L)
+            .userId(9_021L)
+            .description("Autumn cabin by the lake, shot on a foggy morning")
+            .mediaId(77_310L)
+            .placeholder("LEHV6nWB2yk8pyo0adR*.7kCMdnj")
+            .aspectRatio(0.75)
+            .hashtags(
+                List.of(
+                    new Hashtag(1L, "cabin", now),
+                    new Hashtag(2L, "autumn", now),
+                    new Hashtag(3L, "lake", now)))
+            .createdAt(now)
+            .build();
+    media =
+        Media.builder()
+            .id(77_310L)
+            .url("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08.jpg")
+            .mediaType(MediaType.IMAGE)
+            .sizeBytes(482_113L)
+            .mimeType("image/jpeg")
+            .width(1200)
+            .height(1600)
+            .placeholder("LEHV6nWB2yk8pyo0adR*.7kCMdnj")
+            .checksum("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+            .created_at(Timestamp.valueOf(now))
+            .variants(
+                List.of(
+                    MediaVariant.builder().width(320).height(427).sizeBytes(21_004L).build(),
+                    MediaVariant.builder().width(640).height(853).sizeBytes(64_870L).build()))
+            .build();
+    pinBytes = pinSerializer.serialize(pin);
+    mediaBytes = mediaSerializer.serialize(media);
+    System.out.printf(
+        "%n%s: pin %d bytes, media %d bytes%n", codec, pinBytes.length, mediaBytes.length);
+  }
+
+  @Benchmark
+  public byte[] writePin() {
+    return pinSerializer.serialize(pin);
+  }
+
+  @Benchmark
+  public Pin readPin() {
+    return pinSerializer.deserialize(pinBytes);
+  }
+
+  @Benchmark
+  public byte[] writeMedia() {
+    return mediaSerializer.serialize(media);
+  }
+
+  @Benchmark
+  public Media readMedia() {
+    return mediaSerializer.deserialize(mediaBytes);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(RedisCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}
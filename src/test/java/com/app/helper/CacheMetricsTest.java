@@ -0,0 +1,69 @@
+package com.app.helper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class CacheMetricsTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CacheMetrics metrics = new CacheMetrics(meterRegistry);
+
+  private double requests(String cache, String result) {
+    return meterRegistry
+        .get("cache.requests")
+        .tag("cache", cache)
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+
+  @Test
+  void cacheOf_shouldDropIdsAndParameters() {
+    assertEquals("pin:details", CacheMetrics.cacheOf("pin:42:details"));
+    assertEquals("board", CacheMetrics.cacheOf("board:7"));
+    assertEquals("user:pins", CacheMetrics.cacheOf("user:7:pins"));
+    assertEquals("pins:comments", CacheMetrics.cacheOf("pins:3:comments:NEWEST"));
+    assertEquals("pins_hashtag", CacheMetrics.cacheOf("pins_hashtag:cats:limit:10:offset:0"));
+    assertEquals("pins", CacheMetrics.cacheOf("pins:NEWEST"));
+  }
+
+  @Test
+  void request_shouldCountHitsAndMissesPerCache() {
+    metrics.request("pin:1:basic", true);
+    metrics.request("pin:2:basic", true);
+    metrics.request("pin:3:basic", false);
+    metrics.request("media:3", false);
+
+    assertEquals(2, requests("pin:basic", "hit"));
+    assertEquals(1, requests("pin:basic", "miss"));
+    assertEquals(1, requests("media", "miss"));
+  }
+
+  @Test
+  void timeLoad_shouldTimeFailedLoadsApart() {
+    metrics.timeLoad("media:1", () -> "media");
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            metrics.timeLoad(
+                "media:2",
+                () -> {
+                  throw new IllegalStateException("database down");
+                }));
+
+    assertEquals(1, meterRegistry.get("cache.loads").tag("result", "success").timer().count());
+    assertEquals(1, meterRegistry.get("cache.loads").tag("result", "failure").timer().count());
+  }
+
+  @Test
+  void payload_shouldRecordSizes() {
+    metrics.payload("media:1", 100);
+    metrics.payload("media:2", 300);
+
+    var sizes = meterRegistry.get("cache.payload.size").tag("cache", "media").summary();
+    assertEquals(2, sizes.count());
+    assertEquals(400, sizes.totalAmount());
+  }
+}
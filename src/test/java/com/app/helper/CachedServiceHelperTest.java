@@ -0,0 +1,361 @@
+package com.app.helper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.app.Model.Pin;
+import com.app.exception.sub.PinNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.mock.env.MockEnvironment;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers(disabledWithoutDocker = true)
+class CachedServiceHelperTest {
+
+  @Container
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  private static LettuceConnectionFactory connectionFactory;
+  private static RedisTemplate<String, Pin> redisTemplate;
+
+  /** Pins in the database, newest first. */
+  private final List<Pin> pins = new ArrayList<>();
+
+  private final AtomicInteger loads = new AtomicInteger();
+  private PinTimelines timelines;
+
+  /** Exposes the timeline operations of the helper. */
+  private static class PinTimelines extends CachedServiceHelper<Pin> {
+
+    PinTimelines(RedisTemplate<String, Pin> redisTemplate) {
+      super(redisTemplate);
+    }
+  }
+
+  @BeforeAll
+  static void setUp() {
+    connectionFactory =
+        new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+    connectionFactory.afterPropertiesSet();
+    redisTemplate = new RedisTemplate<>();
+    redisTemplate.setConnectionFactory(connectionFactory);
+    redisTemplate.setKeySerializer(new StringRedisSerializer());
+    redisTemplate.setValueSerializer(new SmileRedisSerializer<>(Pin.class, false));
+    redisTemplate.afterPropertiesSet();
+  }
+
+  @AfterAll
+  static void tearDown() {
+    connectionFactory.destroy();
+  }
+
+  @BeforeEach
+  void createPins() {
+    redisTemplate.execute(
+        connection -> {
+          connection.serverCommands().flushAll();
+          return null;
+        },
+        true);
+    LongStream.rangeClosed(1, 10)
+        .map(id -> 11 - id)
+        .forEach(id -> pins.add(Pin.builder().id(id).description("pin " + id).build()));
+    timelines = new PinTimelines(redisTemplate);
+  }
+
+  private List<Long> read(boolean newestFirst, int limit, int offset) {
+    List<Pin> page =
+        timelines.getTimelineOrLoad(
+            "user:1:pins",
+            newestFirst,
+            Pin::getId,
+            () -> {
+              loads.incrementAndGet();
+              List<Pin> ordered = new ArrayList<>(pins);
+              if (!newestFirst) {
+                ordered = ordered.reversed();
+              }
+              return ordered.subList(
+                  Math.min(offset, ordered.size()), Math.min(offset + limit, ordered.size()));
+            },
+            limit,
+            offset,
+            Duration.ofMinutes(5));
+    return page.stream().map(Pin::getId).toList();
+  }
+
+  @Test
+  void getTimelineOrLoad_shouldServeLoadedPagesFromRedis() {
+    assertEquals(List.of(10L, 9L, 8L), read(true, 3, 0));
+    assertEquals(List.of(7L, 6L, 5L), read(true, 3, 3));
+
+    assertEquals(List.of(9L, 8L, 7L, 6L), read(true, 4, 1));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void getTimelineOrLoad_shouldNotCachePagesPastTheEndOfTheSet() {
+    assertEquals(List.of(4L, 3L), read(true, 2, 6));
+    assertEquals(List.of(4L, 3L), read(true, 2, 6));
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void getTimelineOrLoad_shouldServeAnyPage_onceWholeTimelineIsCached() {
+    read(true, 6, 0);
+    read(true, 6, 6);
+
+    assertEquals(List.of(2L, 1L), read(true, 5, 8));
+    assertEquals(List.of(), read(true, 5, 20));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void addToTimeline_shouldPutNewestEntityFirst() {
+    read(true, 3, 0);
+    Pin pin = Pin.builder().id(11L).description("pin 11").build();
+
+    timelines.addToTimeline("user:1:pins", true, 11, pin);
+
+    assertEquals(List.of(11L, 10L, 9L), read(true, 3, 0));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void addToTimeline_shouldSkipOldestFirstTimeline_whileItIsIncomplete() {
+    read(false, 3, 0);
+
+    timelines.addToTimeline("user:1:pins", false, 11, Pin.builder().id(11L).build());
+
+    assertEquals(List.of(1L, 2L, 3L), read(false, 3, 0));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void addToTimeline_shouldIgnoreTimelinesNotCached() {
+    timelines.addToTimeline("user:1:pins", true, 11, Pin.builder().id(11L).build());
+
+    assertEquals(List.of(10L, 9L), read(true, 2, 0));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void replaceInTimeline_shouldSwapChangedEntity() {
+    read(true, 3, 0);
+
+    timelines.replaceInTimeline(
+        "user:1:pins", 9, Pin.builder().id(9L).description("edited").build());
+
+    List<Pin> page =
+        timelines.getTimelineOrLoad(
+            "user:1:pins", true, Pin::getId, List::of, 3, 0, Duration.ofMinutes(5));
+    assertEquals("edited", page.get(1).getDescription());
+    assertEquals(3, page.size());
+  }
+
+  @Test
+  void removeFromTimeline_shouldDropDeletedEntity() {
+    read(true, 3, 0);
+
+    timelines.removeFromTimeline("user:1:pins", 9);
+
+    assertEquals(List.of(10L, 8L), read(true, 2, 0));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void getListOrLoad_shouldCacheEachPageUnderItsOwnKey() {
+    Supplier<List<Pin>> loader =
+        () -> {
+          loads.incrementAndGet();
+          return pins.subList(2, 4);
+        };
+
+    timelines.getListOrLoad("comments:pin:1:limit:2:offset:2", loader, 2, 2, Duration.ofMinutes(5));
+    List<Pin> page =
+        timelines.getListOrLoad(
+            "comments:pin:1:limit:2:offset:2", loader, 2, 2, Duration.ofMinutes(5));
+
+    assertEquals(List.of(8L, 7L), page.stream().map(Pin::getId).toList());
+    assertEquals(1, loads.get());
+    assertEquals(2, redisTemplate.opsForList().size("comments:pin:1:limit:2:offset:2"));
+  }
+
+  @Test
+  void invalidateTags_shouldDeleteEveryKeyRegisteredUnderTag() {
+    Pin pin = pins.get(0);
+    timelines.getOrLoad("pin:10:basic", () -> pin, Duration.ofMinutes(5), p -> List.of("pin:10"));
+    timelines.getListOrLoad(
+        "pins_hashtag:cats:limit:2:offset:0",
+        () -> pins.subList(0, 2),
+        2,
+        0,
+        Duration.ofMinutes(5),
+        page -> page.stream().map(p -> "pin:" + p.getId()).toList());
+    timelines.getOrLoad(
+        "pin:9:basic", () -> pins.get(1), Duration.ofMinutes(5), p -> List.of("pin:9"));
+
+    timelines.invalidateTags("pin:10");
+
+    assertFalse(redisTemplate.hasKey("pin:10:basic"));
+    assertFalse(redisTemplate.hasKey("pins_hashtag:cats:limit:2:offset:0"));
+    assertFalse(redisTemplate.hasKey("tag:pin:10"));
+    assertTrue(redisTemplate.hasKey("pin:9:basic"));
+  }
+
+  @Test
+  void invalidateTags_shouldDropTaggedTimeline() {
+    timelines.getTimelineOrLoad(
+        "user:1:boards",
+        true,
+        Pin::getId,
+        () -> pins.subList(0, 2),
+        5,
+        0,
+        Duration.ofMinutes(5),
+        page -> page.stream().map(p -> "pin:" + p.getId()).toList());
+
+    timelines.invalidateTags("pin:9");
+
+    assertFalse(redisTemplate.hasKey("timeline:user:1:boards"));
+    assertFalse(redisTemplate.hasKey("timeline:user:1:boards:complete"));
+  }
+
+  @Test
+  void getOrLoad_shouldReturnCopyOfNearCachedValue() {
+    StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+    timelines.setNearCache(
+        new NearCache(
+            stringRedisTemplate,
+            new MockEnvironment(),
+            new SimpleMeterRegistry(),
+            100,
+            Duration.ofMinutes(1)));
+    Pin loaded =
+        timelines.getOrLoad("pin:10:basic", () -> pins.get(0), Duration.ofMinutes(5)).orElseThrow();
+    loaded.setDescription("changed by a caller");
+
+    Pin cached =
+        timelines.getOrLoad("pin:10:basic", () -> null, Duration.ofMinutes(5)).orElseThrow();
+
+    assertEquals("pin 10", cached.getDescription());
+  }
+
+  @Test
+  void getOrLoad_shouldKeepTagLongerThanKey() {
+    timelines.getOrLoad(
+        "pin:10:basic", () -> pins.get(0), Duration.ofMinutes(5), p -> List.of("pin:10"));
+
+    assertTrue(redisTemplate.getExpire("tag:pin:10") > redisTemplate.getExpire("pin:10:basic"));
+  }
+
+  @Test
+  void getOrLoad_shouldRememberMissingEntity() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    timelines.setNegativeCache(new NegativeCache(meterRegistry, Duration.ofSeconds(30)));
+    Supplier<Pin> missing =
+        () -> {
+          loads.incrementAndGet();
+          return null;
+        };
+
+    assertTrue(timelines.getOrLoad("pin:42:basic", missing, Duration.ofMinutes(5)).isEmpty());
+    assertTrue(timelines.getOrLoad("pin:42:details", missing, Duration.ofMinutes(5)).isEmpty());
+
+    assertEquals(1, loads.get());
+    assertEquals(1, meterRegistry.get("cache.negative.hits").counter().count());
+  }
+
+  @Test
+  void invalidateTags_shouldForgetMissingEntity() {
+    timelines.setNegativeCache(
+        new NegativeCache(new SimpleMeterRegistry(), Duration.ofSeconds(30)));
+    timelines.getOrLoad("pin:42:basic", () -> null, Duration.ofMinutes(5));
+
+    timelines.invalidateTags("pin:42");
+
+    Pin pin = Pin.builder().id(42L).build();
+    assertEquals(
+        Optional.of(pin), timelines.getOrLoad("pin:42:basic", () -> pin, Duration.ofMinutes(5)));
+  }
+
+  @Test
+  void orNullIfMissing_shouldOnlySwallowMissingException() {
+    Supplier<Pin> missing =
+        CachedServiceHelper.orNullIfMissing(
+            () -> {
+              throw new PinNotFoundException("Pin not found with a id: 42");
+            },
+            PinNotFoundException.class);
+    Supplier<Pin> failing =
+        CachedServiceHelper.orNullIfMissing(
+            () -> {
+              throw new IllegalStateException("database down");
+            },
+            PinNotFoundException.class);
+
+    assertNull(missing.get());
+    assertThrows(IllegalStateException.class, failing::get);
+  }
+
+  private Map<Long, Pin> readAll(List<Long> ids, List<Collection<Long>> loaded) {
+    return timelines.getAllOrLoad(
+        ids,
+        id -> "pin:" + id + ":basic",
+        Pin::getId,
+        missing -> {
+          loaded.add(List.copyOf(missing));
+          return pins.stream().filter(pin -> missing.contains(pin.getId())).toList();
+        },
+        Duration.ofMinutes(5),
+        pin -> List.of("pin:" + pin.getId()));
+  }
+
+  @Test
+  void getAllOrLoad_shouldLoadOnlyIdsNotCached_inOneCall() {
+    List<Collection<Long>> loaded = new ArrayList<>();
+    readAll(List.of(10L, 9L), loaded);
+
+    Map<Long, Pin> result = readAll(List.of(8L, 10L, 9L), loaded);
+
+    assertEquals(List.of(8L, 10L, 9L), List.copyOf(result.keySet()));
+    assertEquals(List.of(List.of(10L, 9L), List.of(8L)), loaded);
+  }
+
+  @Test
+  void getAllOrLoad_shouldRememberIdsLoaderLeftOut() {
+    timelines.setNegativeCache(
+        new NegativeCache(new SimpleMeterRegistry(), Duration.ofSeconds(30)));
+    List<Collection<Long>> loaded = new ArrayList<>();
+    readAll(List.of(10L, 42L), loaded);
+
+    Map<Long, Pin> result = readAll(List.of(10L, 42L), loaded);
+
+    assertEquals(List.of(10L), List.copyOf(result.keySet()));
+    assertEquals(1, loaded.size());
+    assertTrue(
+        timelines.getOrLoad("pin:42:details", () -> pins.get(0), Duration.ofMinutes(5)).isEmpty());
+  }
+}
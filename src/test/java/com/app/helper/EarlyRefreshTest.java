@@ -0,0 +1,74 @@
+package com.app.helper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class EarlyRefreshTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void jitter_shouldStayWithinFraction() {
+    EarlyRefresh earlyRefresh = new EarlyRefresh(meterRegistry, 1, 0.1, Runnable::run);
+
+    for (int i = 0; i < 1000; i++) {
+      Duration ttl = earlyRefresh.jitter(Duration.ofHours(2));
+      assertTrue(ttl.compareTo(Duration.ofMinutes(108)) >= 0, ttl::toString);
+      assertTrue(ttl.compareTo(Duration.ofMinutes(132)) <= 0, ttl::toString);
+    }
+  }
+
+  @Test
+  void isDue_shouldWaitForFirstLoadOfPrefix() {
+    EarlyRefresh earlyRefresh = new EarlyRefresh(meterRegistry, 1, 0, Runnable::run);
+
+    assertFalse(earlyRefresh.isDue("pin:1:basic", 0));
+
+    earlyRefresh.timeLoad("pin:2:basic", () -> "pin");
+
+    assertTrue(earlyRefresh.isDue("pin:1:basic", 0));
+    assertFalse(earlyRefresh.isDue("board:1", 0));
+  }
+
+  @Test
+  void isDue_shouldIgnoreEntriesFarFromExpiry() {
+    EarlyRefresh earlyRefresh = new EarlyRefresh(meterRegistry, 1, 0, Runnable::run);
+    earlyRefresh.timeLoad("pin:1:basic", () -> "pin");
+
+    assertFalse(earlyRefresh.isDue("pin:1:basic", Duration.ofHours(1).toMillis()));
+    assertFalse(earlyRefresh.isDue("pin:1:basic", -1));
+  }
+
+  @Test
+  void refreshIfDue_shouldRunOneReloadPerKeyAtATime() {
+    List<Runnable> scheduled = new ArrayList<>();
+    EarlyRefresh earlyRefresh = new EarlyRefresh(meterRegistry, 1, 0, scheduled::add);
+    earlyRefresh.timeLoad("pin:1:basic", () -> "pin");
+    AtomicInteger reloads = new AtomicInteger();
+
+    earlyRefresh.refreshIfDue("pin:1:basic", 0, reloads::incrementAndGet);
+    earlyRefresh.refreshIfDue("pin:1:basic", 0, reloads::incrementAndGet);
+    scheduled.forEach(Runnable::run);
+    earlyRefresh.refreshIfDue("pin:1:basic", 0, reloads::incrementAndGet);
+    scheduled.getLast().run();
+
+    assertEquals(2, reloads.get());
+    assertEquals(2, meterRegistry.get("cache.refresh.early").counter().count());
+  }
+
+  @Test
+  void refreshIfDue_shouldNeverReload_whenBetaIsZero() {
+    EarlyRefresh earlyRefresh = EarlyRefresh.none();
+    earlyRefresh.timeLoad("pin:1:basic", () -> "pin");
+
+    earlyRefresh.refreshIfDue("pin:1:basic", 0, () -> fail("reloaded with beta 0"));
+
+    assertFalse(earlyRefresh.isEnabled());
+  }
+}
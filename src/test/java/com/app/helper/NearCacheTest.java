@@ -0,0 +1,107 @@
+package com.app.helper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+@ExtendWith(MockitoExtension.class)
+class NearCacheTest {
+
+  @Mock private StringRedisTemplate redisTemplate;
+
+  private NearCache nearCache;
+
+  @BeforeEach
+  void setUp() {
+    MockEnvironment environment = new MockEnvironment().withProperty("cache.near.pin.ttl", "1h");
+    nearCache =
+        new NearCache(
+            redisTemplate, environment, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+  }
+
+  @Test
+  void invalidate_shouldDropKeyAndAnnounceIt() {
+    nearCache.put("pin:1:basic", "pin");
+
+    nearCache.invalidate("pin:1:basic");
+
+    assertNull(nearCache.get("pin:1:basic"));
+    ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(redisTemplate).convertAndSend(Mockito.eq(NearCache.CHANNEL), message.capture());
+    assertTrue(message.getValue().endsWith(" pin:1:basic"));
+  }
+
+  @Test
+  void invalidate_shouldAnnounceKeysInOneMessage() {
+    nearCache.put("pin:1:basic", "pin");
+    nearCache.put("pin:2:basic", "other pin");
+
+    nearCache.invalidate(List.of("pin:1:basic", "pin:2:basic"));
+
+    assertNull(nearCache.get("pin:1:basic"));
+    assertNull(nearCache.get("pin:2:basic"));
+    ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(redisTemplate).convertAndSend(Mockito.eq(NearCache.CHANNEL), message.capture());
+    assertTrue(message.getValue().endsWith(" pin:1:basic\npin:2:basic"));
+  }
+
+  @Test
+  void onInvalidation_shouldIgnoreOwnAnnouncements() {
+    nearCache.invalidate("pin:1:basic");
+    ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(redisTemplate).convertAndSend(Mockito.eq(NearCache.CHANNEL), message.capture());
+    nearCache.put("pin:1:basic", "pin");
+
+    nearCache.onInvalidation(message.getValue());
+
+    assertEquals("pin", nearCache.get("pin:1:basic"));
+  }
+
+  @Test
+  void onInvalidation_shouldDropKeyAnnouncedByOtherNode() {
+    nearCache.put("pin:1:basic", "pin");
+    nearCache.put("pin:2:basic", "other pin");
+
+    nearCache.onInvalidation("other-node pin:1:basic");
+
+    assertNull(nearCache.get("pin:1:basic"));
+    assertEquals("other pin", nearCache.get("pin:2:basic"));
+  }
+
+  @Test
+  void onInvalidation_shouldDropEveryKeyOfBatch() {
+    nearCache.put("pin:1:basic", "pin");
+    nearCache.put("board:1", "board");
+    nearCache.put("board:2", "other board");
+
+    nearCache.onInvalidation("other-node pin:1:basic\nboard:1");
+
+    assertNull(nearCache.get("pin:1:basic"));
+    assertNull(nearCache.get("board:1"));
+    assertEquals("other board", nearCache.get("board:2"));
+  }
+
+  @Test
+  void onInvalidation_shouldDropEveryKeyMatchingPattern() {
+    nearCache.put("pin:1:basic", "pin");
+    nearCache.put("pin:2:details", "other pin");
+    nearCache.put("board:1", "board");
+
+    nearCache.onInvalidation("other-node pin:*");
+
+    assertNull(nearCache.get("pin:1:basic"));
+    assertNull(nearCache.get("pin:2:details"));
+    assertEquals("board", nearCache.get("board:1"));
+  }
+}
@@ -0,0 +1,161 @@
+package com.app.helper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+@ExtendWith(MockitoExtension.class)
+class SingleFlightTest {
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private ValueOperations<String, String> valueOperations;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private double waits(String scope) {
+    return meterRegistry.get("cache.load.coalesced").tag("scope", scope).counter().count();
+  }
+
+  /** Starts a load that blocks until released and waits for a second caller to join it. */
+  private Future<String> joinBlockedLoad(SingleFlight singleFlight, AtomicInteger loads)
+      throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> first =
+        executor.submit(
+            () ->
+                singleFlight.load(
+                    "pin:1:basic",
+                    () -> null,
+                    () -> {
+                      loads.incrementAndGet();
+                      started.countDown();
+                      try {
+                        release.await();
+                      } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                      }
+                      return "pin";
+                    }));
+    started.await();
+    Supplier<String> secondLoader = () -> "pin " + loads.incrementAndGet();
+    Future<String> second =
+        executor.submit(() -> singleFlight.load("pin:1:basic", () -> null, secondLoader));
+    while (waits("local") == 0) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+    assertEquals("pin", first.get());
+    return second;
+  }
+
+  @Test
+  void load_shouldShareResultWithConcurrentCallers() throws Exception {
+    SingleFlight singleFlight = new SingleFlight(meterRegistry, null, Duration.ZERO, Duration.ZERO);
+    AtomicInteger loads = new AtomicInteger();
+
+    Future<String> second = joinBlockedLoad(singleFlight, loads);
+
+    assertEquals("pin", second.get());
+    assertEquals(1, loads.get());
+    assertEquals(1, meterRegistry.get("cache.load.wait").timer().count());
+  }
+
+  @Test
+  void load_shouldLoadAgain_onceFlightIsOver() {
+    SingleFlight singleFlight = new SingleFlight(meterRegistry, null, Duration.ZERO, Duration.ZERO);
+
+    singleFlight.load("pin:1:basic", () -> null, () -> "pin");
+
+    assertEquals("new pin", singleFlight.load("pin:1:basic", () -> null, () -> "new pin"));
+    assertEquals(0, waits("local"));
+  }
+
+  @Test
+  void load_shouldPassFailureToConcurrentCallers() throws Exception {
+    SingleFlight singleFlight = new SingleFlight(meterRegistry, null, Duration.ZERO, Duration.ZERO);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> first =
+        executor.submit(
+            () ->
+                singleFlight.<String>load(
+                    "pin:1:basic",
+                    () -> null,
+                    () -> {
+                      started.countDown();
+                      try {
+                        release.await();
+                      } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                      }
+                      throw new IllegalStateException("database down");
+                    }));
+    started.await();
+    Future<String> second =
+        executor.submit(() -> singleFlight.load("pin:1:basic", () -> null, () -> "pin"));
+    while (waits("local") == 0) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+
+    var failure = assertThrows(Exception.class, second::get);
+    assertInstanceOf(IllegalStateException.class, failure.getCause());
+    assertThrows(Exception.class, first::get);
+  }
+
+  @Test
+  void load_shouldWaitForOtherNode_whenLeaseIsTaken() {
+    Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    Mockito.when(
+            valueOperations.setIfAbsent(
+                Mockito.eq("lock:pin:1:basic"), Mockito.anyString(), Mockito.any(Duration.class)))
+        .thenReturn(false);
+    SingleFlight singleFlight =
+        new SingleFlight(meterRegistry, redisTemplate, Duration.ofSeconds(5), Duration.ofMillis(1));
+    AtomicInteger lookups = new AtomicInteger();
+
+    String value =
+        singleFlight.load(
+            "pin:1:basic",
+            () -> lookups.incrementAndGet() < 3 ? null : "pin",
+            () -> fail("loaded although another node holds the lease"));
+
+    assertEquals("pin", value);
+    assertEquals(1, waits("remote"));
+  }
+
+  @Test
+  void load_shouldLoad_whenLeaseOfOtherNodeRunsOut() {
+    Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    Mockito.when(
+            valueOperations.setIfAbsent(
+                Mockito.anyString(), Mockito.anyString(), Mockito.any(Duration.class)))
+        .thenReturn(false);
+    SingleFlight singleFlight =
+        new SingleFlight(meterRegistry, redisTemplate, Duration.ofMillis(20), Duration.ofMillis(5));
+
+    assertEquals("pin", singleFlight.load("pin:1:basic", () -> null, () -> "pin"));
+  }
+}
@@ -0,0 +1,87 @@
+package com.app.helper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.app.Model.Hashtag;
+import com.app.Model.Media;
+import com.app.Model.MediaType;
+import com.app.Model.MediaVariant;
+import com.app.Model.Pin;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+class SmileRedisSerializerTest {
+
+  private final SmileRedisSerializer<Pin> serializer = new SmileRedisSerializer<>(Pin.class, false);
+
+  private static Pin pin() {
+    return Pin.builder()
+        .id(1L)
+        .userId(2L)
+        .description("A cat")
+        .mediaId(3L)
+        .aspectRatio(1.5)
+        .hashtags(List.of(new Hashtag(4L, "cat", null)))
+        .createdAt(LocalDateTime.of(2024, 5, 1, 12, 30))
+        .build();
+  }
+
+  @Test
+  void deserialize_shouldReadWhatWasWritten() {
+    Pin pin = pin();
+
+    byte[] bytes = serializer.serialize(pin);
+    Pin read = serializer.deserialize(bytes);
+
+    assertEquals(pin.getDescription(), read.getDescription());
+    assertEquals(pin.getCreatedAt(), read.getCreatedAt());
+    assertEquals("cat", read.getHashtags().iterator().next().getTag());
+    assertTrue(bytes.length < new JdkSerializationRedisSerializer().serialize(pin).length);
+  }
+
+  @Test
+  void deserialize_shouldReadJavaSerializedValues() {
+    byte[] legacy = new JdkSerializationRedisSerializer().serialize(pin());
+
+    assertEquals("A cat", serializer.deserialize(legacy).getDescription());
+  }
+
+  @Test
+  void deserialize_shouldSkipUnknownFields() throws Exception {
+    byte[] bytes =
+        SmileMapper.builder().build().writeValueAsBytes(Map.of("id", 1, "pinned", true));
+
+    assertEquals(1L, serializer.deserialize(bytes).getId());
+  }
+
+  @Test
+  void deserialize_shouldRejectJavaSerializedValuesOfOtherTypes() {
+    byte[] legacy = new JdkSerializationRedisSerializer().serialize("pin");
+
+    assertThrows(SerializationException.class, () -> serializer.deserialize(legacy));
+  }
+
+  @Test
+  void serialize_shouldWriteJavaSerialization_whenLegacyWritesAreEnabled() {
+    Media media =
+        Media.builder()
+            .id(1L)
+            .url("cat.jpg")
+            .mediaType(MediaType.IMAGE)
+            .created_at(new Timestamp(1_700_000_000_000L))
+            .variants(List.of(MediaVariant.builder().width(320).url("cat_320.jpg").build()))
+            .build();
+    SmileRedisSerializer<Media> legacy = new SmileRedisSerializer<>(Media.class, true);
+
+    byte[] bytes = legacy.serialize(media);
+
+    assertEquals(media, new JdkSerializationRedisSerializer().deserialize(bytes));
+    assertEquals(media, new SmileRedisSerializer<>(Media.class, false).deserialize(bytes));
+  }
+}
@@ -0,0 +1,54 @@
+package com.app.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+class ByteRangeResponseTest {
+
+  private static final String ETAG = "\"abc\"";
+  private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+  @Test
+  void isNotModified_shouldMatchEntityTag() {
+    HttpHeaders request = new HttpHeaders();
+    request.setIfNoneMatch("\"other\", W/\"abc\"");
+
+    assertTrue(ByteRangeResponse.isNotModified(request, ETAG, null));
+  }
+
+  @Test
+  void isNotModified_shouldIgnoreModifiedSince_whenEntityTagDoesNotMatch() {
+    HttpHeaders request = new HttpHeaders();
+    request.setIfNoneMatch("\"other\"");
+    request.setIfModifiedSince(LAST_MODIFIED);
+
+    assertFalse(ByteRangeResponse.isNotModified(request, ETAG, LAST_MODIFIED));
+  }
+
+  @Test
+  void isNotModified_shouldCompareModifiedSinceInSeconds() {
+    HttpHeaders request = new HttpHeaders();
+    request.setIfModifiedSince(LAST_MODIFIED);
+
+    assertTrue(ByteRangeResponse.isNotModified(request, ETAG, LAST_MODIFIED + 999));
+    assertFalse(ByteRangeResponse.isNotModified(request, ETAG, LAST_MODIFIED + 1000));
+    assertFalse(ByteRangeResponse.isNotModified(request, ETAG, null));
+  }
+
+  @Test
+  void of_shouldSendCacheControl() {
+    CacheControl cacheControl = CacheControl.noCache();
+
+    var response =
+        ByteRangeResponse.of(
+            new HttpHeaders(), 10, "video/mp4", ETAG, LAST_MODIFIED, cacheControl, (p, l, o) -> l);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("no-cache", response.getHeaders().getCacheControl());
+    assertEquals(ETAG, response.getHeaders().getETag());
+  }
+}
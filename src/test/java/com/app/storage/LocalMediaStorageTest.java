@@ -0,0 +1,129 @@
+package com.app.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalMediaStorageTest {
+
+  @TempDir private Path root;
+
+  private ExecutorService executor;
+  private LocalMediaStorage storage;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    storage = new LocalMediaStorage(root, executor);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.close();
+  }
+
+  private Path writeFlat(String filename, String content) throws Exception {
+    Path flat = FileManager.resolveFlat(root, filename);
+    Files.createDirectories(flat.getParent());
+    return Files.writeString(flat, content);
+  }
+
+  @Test
+  void commit_shouldStoreFileInHashedLayout() {
+    byte[] content = "cat".getBytes(StandardCharsets.UTF_8);
+    StagedFile staged = storage.stage(new ByteArrayInputStream(content), "jpg").join();
+    storage.commit(staged).join();
+
+    Path stored = storage.resolve(staged.filename());
+    assertTrue(Files.exists(stored));
+    assertEquals(root.resolve("image"), stored.getParent().getParent().getParent());
+    assertEquals(2, stored.getParent().getFileName().toString().length());
+  }
+
+  @Test
+  void transferRange_shouldReadFlatLayout_whenNotMigrated() throws Exception {
+    writeFlat("legacy.mp4", "0123456789");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    storage.transferRange("legacy.mp4", 2, 3, out);
+
+    assertEquals("234", out.toString(StandardCharsets.UTF_8));
+    assertEquals(10, storage.stat("legacy.mp4").size());
+  }
+
+  @Test
+  void relativePath_shouldFollowFileLayout() throws Exception {
+    writeFlat("legacy.mp4", "0123456789");
+    assertEquals("video/legacy.mp4", storage.relativePath("legacy.mp4").orElseThrow());
+
+    storage.migrateLayout(10);
+
+    String hashed = storage.relativePath("legacy.mp4").orElseThrow();
+    assertTrue(hashed.matches("video/[0-9a-f]{2}/[0-9a-f]{2}/legacy\\.mp4"), hashed);
+    assertTrue(storage.relativePath("missing.mp4").isEmpty());
+  }
+
+  @Test
+  void list_shouldListFilesOfBothLayouts() throws Exception {
+    writeFlat("legacy.mp4", "0123456789");
+    writeFlat(MediaManager.DEFAULT_PROFILE_PICTURE, "default");
+    Files.writeString(root.resolve("image").resolve("upload-1.tmp"), "staged");
+    byte[] content = "cat".getBytes(StandardCharsets.UTF_8);
+    StagedFile staged = storage.stage(new ByteArrayInputStream(content), "jpg").join();
+    storage.commit(staged).join();
+
+    try (var files = storage.list()) {
+      var names = files.map(StoredFile::filename).sorted().toList();
+
+      assertEquals(List.of(staged.filename(), "legacy.mp4"), names);
+    }
+  }
+
+  @Test
+  void migrateLayout_shouldMoveFlatFiles() throws Exception {
+    Path flat = writeFlat("legacy.png", "image");
+    writeFlat(MediaManager.DEFAULT_PROFILE_PICTURE, "default");
+
+    int moved = storage.migrateLayout(10);
+
+    assertEquals(1, moved);
+    assertFalse(Files.exists(flat));
+    assertEquals("image", Files.readString(storage.resolve("legacy.png")));
+    assertTrue(Files.exists(FileManager.resolveFlat(root, MediaManager.DEFAULT_PROFILE_PICTURE)));
+  }
+
+  @Test
+  void migrateLayout_shouldStopAtLimit() throws Exception {
+    writeFlat("a.png", "a");
+    writeFlat("b.png", "b");
+
+    assertEquals(1, storage.migrateLayout(1));
+    assertEquals(1, storage.migrateLayout(1));
+    assertEquals(0, storage.migrateLayout(1));
+  }
+
+  @Test
+  void delete_shouldRemoveFileFromEitherLayout() throws Exception {
+    writeFlat("moved.gif", "moved");
+    storage.migrateLayout(10);
+    Path flat = writeFlat("legacy.gif", "flat");
+
+    storage.delete("legacy.gif").join();
+    storage.delete("moved.gif").join();
+
+    assertFalse(Files.exists(flat));
+    assertFalse(storage.exists("legacy.gif"));
+    assertFalse(storage.exists("moved.gif"));
+  }
+}
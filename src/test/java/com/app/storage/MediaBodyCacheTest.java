@@ -0,0 +1,50 @@
+package com.app.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MediaBodyCacheTest {
+
+  @Mock private MediaStorage mediaStorage;
+
+  @Test
+  void get_shouldLoadBodyOnce() throws Exception {
+    Mockito.when(mediaStorage.openStream("cat.jpg"))
+        .thenReturn(new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8)));
+    MediaBodyCache cache = new MediaBodyCache(mediaStorage, 1024, 100);
+
+    cache.get("cat.jpg", 10);
+    ByteBuffer body = cache.get("cat.jpg", 10);
+
+    assertTrue(body.isDirect());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(3, MediaBodyCache.transferRange(body, 2, 3, out));
+    assertEquals("234", out.toString(StandardCharsets.UTF_8));
+    Mockito.verify(mediaStorage, Mockito.times(1)).openStream("cat.jpg");
+  }
+
+  @Test
+  void get_shouldSkipFilesAboveEntrySize() throws Exception {
+    MediaBodyCache cache = new MediaBodyCache(mediaStorage, 1024, 100);
+
+    assertNull(cache.get("large.jpg", 101));
+    assertFalse(new MediaBodyCache(mediaStorage, 0, 100).admits(10));
+    Mockito.verifyNoInteractions(mediaStorage);
+  }
+
+  @Test
+  void fitToDirectMemory_shouldKeepCacheToHalfOfDirectMemory() {
+    assertEquals(256, MediaBodyCache.fitToDirectMemory(256, 1024));
+    assertEquals(512, MediaBodyCache.fitToDirectMemory(2048, 1024));
+  }
+}
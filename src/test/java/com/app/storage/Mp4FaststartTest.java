@@ -0,0 +1,91 @@
+package com.app.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class Mp4FaststartTest {
+
+  private static final byte[] FTYP = box("ftyp", "isom".getBytes(StandardCharsets.ISO_8859_1));
+  private static final byte[] MDAT = box("mdat", "ABCDEFGH".getBytes(StandardCharsets.ISO_8859_1));
+
+  @TempDir private Path tempDir;
+
+  private static byte[] box(String type, byte[]... children) {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    for (byte[] child : children) {
+      body.writeBytes(child);
+    }
+    return ByteBuffer.allocate(8 + body.size())
+        .putInt(8 + body.size())
+        .put(type.getBytes(StandardCharsets.ISO_8859_1))
+        .put(body.toByteArray())
+        .array();
+  }
+
+  private static byte[] stco(int offset) {
+    return box("stco", ByteBuffer.allocate(12).putInt(0).putInt(1).putInt(offset).array());
+  }
+
+  private static byte[] moov(int chunkOffset) {
+    return box("moov", box("trak", box("mdia", box("minf", box("stbl", stco(chunkOffset))))));
+  }
+
+  private static byte[] concat(byte[]... parts) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] part : parts) {
+      out.writeBytes(part);
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  void writeTo_shouldMoveMoovInFrontOfMediaData() throws Exception {
+    int chunkOffset = FTYP.length + 8;
+    Path source = Files.write(tempDir.resolve("tail.mp4"), concat(FTYP, MDAT, moov(chunkOffset)));
+
+    Mp4Faststart faststart = Mp4Faststart.of(source);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    faststart.writeTo(out);
+
+    byte[] moov = moov(chunkOffset + moov(0).length);
+    byte[] expected = concat(FTYP, moov, MDAT);
+    assertArrayEquals(expected, out.toByteArray());
+    int shifted = ByteBuffer.wrap(moov, moov.length - 4, 4).getInt();
+    assertEquals("ABCDEFGH", new String(expected, shifted, 8, StandardCharsets.ISO_8859_1));
+  }
+
+  @Test
+  void of_shouldReturnNull_whenMoovIsAlreadyFirst() throws Exception {
+    int chunkOffset = FTYP.length + moov(0).length + 8;
+    Path source = Files.write(tempDir.resolve("fast.mp4"), concat(FTYP, moov(chunkOffset), MDAT));
+
+    assertNull(Mp4Faststart.of(source));
+  }
+
+  @Test
+  void of_shouldReturnNull_whenBoxesAreMalformed() throws Exception {
+    Path source = Files.write(tempDir.resolve("broken.mp4"), concat(FTYP, new byte[] {0, 0, 0}));
+
+    assertNull(Mp4Faststart.of(source));
+  }
+
+  @Test
+  void stage_shouldNameRewrittenContent() throws Exception {
+    byte[] content = concat(FTYP, MDAT, moov(FTYP.length + 8));
+
+    StagedFile staged = FileManager.stage(tempDir, new ByteArrayInputStream(content), "mp4");
+
+    byte[] stored = Files.readAllBytes(staged.temp());
+    assertEquals(content.length, stored.length);
+    assertEquals("moov", new String(stored, FTYP.length + 4, 4, StandardCharsets.ISO_8859_1));
+    assertEquals(FileManager.identify(staged.temp(), "mp4").filename(), staged.filename());
+  }
+}
@@ -0,0 +1,110 @@
+package com.app.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.app.exception.sub.MediaNotFoundException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+@Testcontainers(disabledWithoutDocker = true)
+class S3MediaStorageTest {
+
+  @Container
+  private static final MinIOContainer minio =
+      new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+  @TempDir private static Path stagingDir;
+
+  private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private static S3Client s3Client;
+  private static S3MediaStorage storage;
+
+  @BeforeAll
+  static void setUp() {
+    s3Client =
+        S3Client.builder()
+            .endpointOverride(URI.create(minio.getS3URL()))
+            .forcePathStyle(true)
+            .region(Region.US_EAST_1)
+            .credentialsProvider(
+                StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())))
+            .build();
+    storage = new S3MediaStorage(s3Client, "media", stagingDir, executor);
+    storage.createBucketIfMissing();
+  }
+
+  @AfterAll
+  static void tearDown() {
+    s3Client.close();
+    executor.close();
+  }
+
+  private static StagedFile store(String content) {
+    StagedFile staged =
+        storage
+            .stage(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), "mp4")
+            .join();
+    storage.commit(staged).join();
+    return staged;
+  }
+
+  @Test
+  void commit_shouldStoreObjectUnderContentHash() throws Exception {
+    StagedFile staged = store("hello media");
+
+    assertTrue(staged.filename().matches("[0-9a-f]{64}\\.mp4"));
+    assertFalse(Files.exists(staged.temp()));
+    assertEquals(11, storage.stat(staged.filename()).size());
+    try (InputStream in = storage.openStream(staged.filename())) {
+      assertEquals("hello media", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void commit_shouldKeepSingleObject_whenContentAlreadyStored() {
+    StagedFile first = store("duplicate");
+    StagedFile second = store("duplicate");
+
+    assertEquals(first.filename(), second.filename());
+    assertEquals(9, storage.stat(second.filename()).size());
+  }
+
+  @Test
+  void transferRange_shouldStreamRequestedBytesOnly() throws Exception {
+    StagedFile staged = store("0123456789");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long sent = storage.transferRange(staged.filename(), 3, 4, out);
+
+    assertEquals(4, sent);
+    assertEquals("3456", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void delete_shouldRemoveObject() {
+    StagedFile staged = store("to be deleted");
+
+    storage.delete(staged.filename()).join();
+
+    assertThrows(MediaNotFoundException.class, () -> storage.stat(staged.filename()));
+  }
+}
@@ -0,0 +1,57 @@
+package com.app.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.app.exception.sub.MediaNotSupportException;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+
+class UploadInspectorTest {
+
+  @Test
+  void inspection_shouldDescribeImageInOnePass() throws Exception {
+    ByteArrayOutputStream png = new ByteArrayOutputStream();
+    ImageIO.write(new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB), "png", png);
+    byte[] content = png.toByteArray();
+
+    UploadInspector inspector =
+        new UploadInspector(new ByteArrayInputStream(content), "png", true);
+    inspector.transferTo(OutputStream.nullOutputStream());
+    var result = inspector.inspection();
+
+    assertEquals(content.length, result.sizeBytes());
+    assertEquals(
+        HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)),
+        result.sha256());
+    assertEquals("image/png", result.mimeType());
+    assertEquals(64, result.width());
+    assertEquals(48, result.height());
+  }
+
+  @Test
+  void read_shouldRejectContentNotMatchingExtension_beforeReadingItAll() {
+    byte[] content = new byte[1024 * 1024];
+    InputStream source = new ByteArrayInputStream(content);
+    UploadInspector inspector = new UploadInspector(source, "jpg", true);
+
+    assertThrows(MediaNotSupportException.class, () -> inspector.read(new byte[16]));
+    assertTrue(inspector.inspection().sizeBytes() < content.length);
+  }
+
+  @Test
+  void read_shouldAcceptUnknownContent_whenNotStrict() throws Exception {
+    UploadInspector inspector =
+        UploadInspector.of(new ByteArrayInputStream("hello media".getBytes()), "mp4");
+    inspector.transferTo(OutputStream.nullOutputStream());
+
+    assertNull(inspector.inspection().mimeType());
+    assertEquals(11, inspector.inspection().sizeBytes());
+  }
+}